@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import java.nio.ByteBuffer;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Atomics operations of several agents (one context per thread) on a single element of a shared
+ * buffer.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+@Threads(4)
+public class JMHAtomicsContentionBenchmark {
+    private static final int OPERATIONS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class SharedState {
+        ByteBuffer buffer;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            buffer = ByteBuffer.allocateDirect(64);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AgentState {
+        @Param({"Int8Array", "Int16Array", "Int32Array", "BigInt64Array"}) String arrayType;
+
+        Context context;
+        Value add;
+        Value compareExchange;
+
+        @Setup(Level.Trial)
+        public void doSetup(SharedState shared) {
+            context = Context.newBuilder("js").allowHostAccess(HostAccess.ALL).build();
+            context.getBindings("js").putMember("hostBuffer", shared.buffer);
+            String one = arrayType.startsWith("Big") ? "1n" : "1";
+            context.eval("js", "var array = new " + arrayType + "(new SharedArrayBuffer(hostBuffer));");
+            add = context.eval("js", "(function(n) { for (let i = 0; i < n; i++) { Atomics.add(array, 1, " + one + "); } })");
+            compareExchange = context.eval("js", "(function(n) { for (let i = 0; i < n; i++) { " +
+                            "let v = Atomics.load(array, 1); Atomics.compareExchange(array, 1, v, v + " + one + "); } })");
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public void testAdd(AgentState state) {
+        state.add.execute(OPERATIONS);
+    }
+
+    @Benchmark
+    public void testCompareExchange(AgentState state) {
+        state.compareExchange.execute(OPERATIONS);
+    }
+}
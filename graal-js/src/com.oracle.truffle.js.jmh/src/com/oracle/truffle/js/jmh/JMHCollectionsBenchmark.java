@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+
+/**
+ * {@code Map} and {@code Set} operations from JavaScript, and the backing {@link JSHashMap} used
+ * directly.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHCollectionsBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"100", "100000"}) int size;
+        @Param({"int", "string"}) String keyType;
+
+        Context context;
+        Value mapFill;
+        Value mapGet;
+        Value mapIterate;
+        Value setFillAndDelete;
+        Object[] keys;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            context = Context.create("js");
+            String key = keyType.equals("int") ? "i" : "'k' + i";
+            context.eval("js", "var size = " + size + "; var keys = [];" +
+                            "for (var i = 0; i < size; i++) { keys.push(" + key + "); }" +
+                            "var map = new Map(); keys.forEach((k, i) => map.set(k, i));");
+            mapFill = context.eval("js", "(function mapFill() { var m = new Map(); for (var i = 0; i < size; i++) { m.set(keys[i], i); } return m.size; })");
+            mapGet = context.eval("js", "(function mapGet() { var sum = 0; for (var i = 0; i < size; i++) { sum += map.get(keys[i]); } return sum; })");
+            mapIterate = context.eval("js", "(function mapIterate() { var sum = 0; for (var [k, v] of map) { sum += v; } return sum; })");
+            setFillAndDelete = context.eval("js", "(function setFillAndDelete() {" +
+                            "  var s = new Set(); for (var i = 0; i < size; i++) { s.add(keys[i]); }" +
+                            "  for (var i = 0; i < size; i += 2) { s.delete(keys[i]); }" +
+                            "  return s.size;" +
+                            "})");
+            keys = new Object[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = keyType.equals("int") ? (Object) i : "k" + i;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Value testMapFill(MyState state) {
+        return state.mapFill.execute();
+    }
+
+    @Benchmark
+    public Value testMapGet(MyState state) {
+        return state.mapGet.execute();
+    }
+
+    @Benchmark
+    public Value testMapIterate(MyState state) {
+        return state.mapIterate.execute();
+    }
+
+    @Benchmark
+    public Value testSetFillAndDelete(MyState state) {
+        return state.setFillAndDelete.execute();
+    }
+
+    @Benchmark
+    public int testJSHashMap(MyState state) {
+        JSHashMap map = new JSHashMap();
+        Object[] keys = state.keys;
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            map.remove(keys[i]);
+        }
+        int sum = 0;
+        JSHashMap.Cursor cursor = map.getEntries();
+        while (cursor.advance()) {
+            sum += (int) cursor.getValue();
+        }
+        return sum;
+    }
+}
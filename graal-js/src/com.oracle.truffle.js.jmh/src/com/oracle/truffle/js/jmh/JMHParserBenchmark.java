@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parser throughput on a large generated script. Sources are not cached, so every iteration parses
+ * and translates the whole file.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHParserBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"1000", "10000"}) int functions;
+        @Param({"true", "false"}) boolean lazyTranslation;
+
+        Engine engine;
+        Context context;
+        String code;
+        int counter;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            engine = Engine.create();
+            context = Context.newBuilder("js").engine(engine).allowExperimentalOptions(true).option("js.lazy-translation", String.valueOf(lazyTranslation)).build();
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < functions; i++) {
+                sb.append("function f").append(i).append("(a, b) {\n");
+                sb.append("  var o = {x: a, y: b, s: 'str").append(i).append("', arr: [1, 2, 3]};\n");
+                sb.append("  for (let i = 0; i < o.arr.length; i++) { if (o.x > i) { o.y += o.arr[i] * 2; } else { o.y -= i; } }\n");
+                sb.append("  return class C").append(i).append(" { m() { return o.x + o.y; } get g() { return `${o.s}`; } };\n");
+                sb.append("}\n");
+            }
+            code = sb.toString();
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+            engine.close();
+        }
+    }
+
+    @Benchmark
+    public Value testParse(MyState state) {
+        Source source = Source.newBuilder("js", state.code, "parser-benchmark-" + state.counter++ + ".js").cached(false).buildLiteral();
+        return state.context.parse(source);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.nodes.JSNodeDecoder;
+import com.oracle.truffle.js.nodes.NodeFactory;
+import com.oracle.truffle.js.nodes.ScriptNode;
+import com.oracle.truffle.js.nodes.function.FunctionRootNode;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSParserOptions;
+
+/**
+ * Persistent cache of translated scripts, stored as binary snapshots in the directory given by the
+ * {@code js.code-cache-dir} option. Entries are keyed by a digest of the source code, prolog and
+ * epilog, parser options, and the snapshot format checksum, so a changed source or a different
+ * engine version never picks up a stale entry. Entries are memory-mapped and decoded with
+ * {@link BinarySnapshotProvider}. On a miss, the script is translated and a new entry is written if a
+ * {@link CodeCacheWriter} is available; otherwise the script is just translated. All file access
+ * goes through {@link TruffleFile}s of the current realm, so the polyglot IO permissions and file
+ * system of the context apply. If access is denied, the cache is skipped.
+ */
+final class CodeCache {
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final CodeCacheWriter WRITER = loadWriter();
+
+    private final TruffleLanguage.Env env;
+    private final TruffleFile directory;
+
+    private CodeCache(TruffleLanguage.Env env, TruffleFile directory) {
+        this.env = env;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the code cache configured for this context, or {@code null} if there is none.
+     */
+    static CodeCache forContext(JSContext context) {
+        String dir = context.getContextOptions().getCodeCacheDir();
+        if (dir.isEmpty()) {
+            return null;
+        }
+        TruffleLanguage.Env env = context.getRealm().getEnv();
+        try {
+            return new CodeCache(env, env.getPublicTruffleFile(dir));
+        } catch (SecurityException | UnsupportedOperationException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static CodeCacheWriter loadWriter() {
+        Iterator<CodeCacheWriter> writers = ServiceLoader.load(CodeCacheWriter.class, CodeCache.class.getClassLoader()).iterator();
+        return writers.hasNext() ? writers.next() : null;
+    }
+
+    @TruffleBoundary
+    ScriptNode parseScript(JSContext context, Source source, String prolog, String epilog) {
+        String key = computeKey(context.getParserOptions(), source, prolog, epilog);
+        TruffleFile entry = directory.resolve(key + ENTRY_SUFFIX);
+        ScriptNode cached = load(context, source, entry);
+        if (cached != null) {
+            return cached;
+        }
+        if (WRITER == null || context.getContextOptions().isLazyTranslation()) {
+            return translate(context, source, prolog, epilog);
+        }
+        return store(context, source, prolog, epilog, key, entry);
+    }
+
+    private static ScriptNode translate(JSContext context, Source source, String prolog, String epilog) {
+        return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, context.getParserOptions().isStrict(), prolog, epilog);
+    }
+
+    private static ScriptNode load(JSContext context, Source source, TruffleFile entry) {
+        ByteBuffer buffer;
+        try {
+            if (!entry.isRegularFile()) {
+                return null;
+            }
+            try (SeekableByteChannel channel = entry.newByteChannel(EnumSet.of(StandardOpenOption.READ))) {
+                if (channel instanceof FileChannel) {
+                    buffer = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } else {
+                    // not backed by the default file system, read the entry instead
+                    buffer = ByteBuffer.wrap(entry.readAllBytes());
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+        try {
+            return ScriptNode.fromFunctionRoot(context, (FunctionRootNode) new BinarySnapshotProvider(buffer).apply(NodeFactory.getInstance(context), context, source));
+        } catch (IllegalArgumentException e) {
+            // corrupt or incompatible entry, it is overwritten by the caller
+            return null;
+        }
+    }
+
+    private ScriptNode store(JSContext context, Source source, String prolog, String epilog, String key, TruffleFile entry) {
+        ScriptNode result = null;
+        TruffleFile tempFile = null;
+        try {
+            directory.createDirectories();
+            tempFile = env.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = tempFile.newOutputStream()) {
+                result = WRITER.translateAndWrite(context, source, prolog, epilog, out);
+            }
+            if (tempFile.size() != 0) {
+                // concurrent writers produce equivalent entries, so any of them may win
+                tempFile.move(entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                tempFile = null;
+            }
+        } catch (IOException | SecurityException e) {
+            // the script is not cached, but it can still be used
+        } finally {
+            deleteIfExists(tempFile);
+        }
+        return result != null ? result : translate(context, source, prolog, epilog);
+    }
+
+    private static void deleteIfExists(TruffleFile file) {
+        if (file != null) {
+            try {
+                file.delete();
+            } catch (IOException | SecurityException e) {
+                // left for the next writer to overwrite
+            }
+        }
+    }
+
+    private static String computeKey(JSParserOptions parserOptions, Source source, String prolog, String epilog) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String header = JSNodeDecoder.getChecksum() + ":" + parserOptions.hashCode() + ":" + prolog.length() + ":" + epilog.length() + ":";
+        digest.update(header.getBytes(StandardCharsets.UTF_8));
+        digest.update(prolog.getBytes(StandardCharsets.UTF_8));
+        digest.update(epilog.getBytes(StandardCharsets.UTF_8));
+        digest.update(source.getCharacters().toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -256,6 +256,10 @@ public final class GraalJSEvaluator implements JSParser {
             return fakeScriptForModule(context, source);
         }
         try {
+            CodeCache codeCache = source.isInternal() ? null : CodeCache.forContext(context);
+            if (codeCache != null) {
+                return codeCache.parseScript(context, source, prolog, epilog);
+            }
             return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, context.getParserOptions().isStrict(), prolog, epilog);
         } catch (com.oracle.js.parser.ParserException e) {
             throw Errors.createSyntaxError(e.getMessage());
@@ -325,6 +329,26 @@ public final class GraalJSEvaluator implements JSParser {
         }
     }
 
+    @TruffleBoundary
+    @Override
+    public com.oracle.js.parser.ir.FunctionNode preparseModule(JSContext context, Source source) {
+        return GraalJSParserHelper.preparseModule(context, source, context.getParserOptions().putStrict(true));
+    }
+
+    @TruffleBoundary
+    @Override
+    public JSModuleRecord parseModule(JSContext context, Source source, JSModuleLoader moduleLoader, com.oracle.js.parser.ir.FunctionNode preparsed) {
+        if (!GraalJSParserHelper.validateRegExpLiterals(context, preparsed, context.getParserOptions())) {
+            // parse again to report the error
+            return parseModule(context, source, moduleLoader);
+        }
+        try {
+            return JavaScriptTranslator.translateModule(NodeFactory.getInstance(context), context, source, moduleLoader, preparsed);
+        } catch (com.oracle.js.parser.ParserException e) {
+            throw Errors.createSyntaxError(e.getMessage(), e, null);
+        }
+    }
+
     @TruffleBoundary
     @Override
     public JSModuleRecord hostResolveImportedModule(JSContext context, ScriptOrModule referrer, String specifier) {
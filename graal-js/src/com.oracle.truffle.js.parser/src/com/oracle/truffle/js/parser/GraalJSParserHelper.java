@@ -54,7 +54,11 @@ import com.oracle.js.parser.Token;
 import com.oracle.js.parser.TokenType;
 import com.oracle.js.parser.ir.Expression;
 import com.oracle.js.parser.ir.FunctionNode;
+import com.oracle.js.parser.ir.LexicalContext;
+import com.oracle.js.parser.ir.LiteralNode;
+import com.oracle.js.parser.ir.Node;
 import com.oracle.js.parser.ir.Scope;
+import com.oracle.js.parser.ir.visitor.NodeVisitor;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.js.builtins.helper.TruffleJSONParser;
@@ -85,11 +89,60 @@ public final class GraalJSParserHelper {
     }
 
     public static FunctionNode parseModule(JSContext context, com.oracle.truffle.api.source.Source truffleSource, JSParserOptions parserOptions) {
-        return parseSource(context, truffleSource, parserOptions, true, false, false, null, "", "");
+        return parseSource(context, truffleSource, parserOptions, true, false, false, null, "", "", true);
+    }
+
+    /**
+     * Parses a module without validating its regular expression literals, which needs the regex
+     * engine of the context. Does not access the realm and may therefore be called from any
+     * thread. The result must be checked with {@link #validateRegExpLiterals} before translation.
+     */
+    public static FunctionNode preparseModule(JSContext context, com.oracle.truffle.api.source.Source truffleSource, JSParserOptions parserOptions) {
+        return parseSource(context, truffleSource, parserOptions, true, false, false, null, "", "", false);
+    }
+
+    /**
+     * Validates the regular expression literals of a module that has been parsed with
+     * {@link #preparseModule}.
+     *
+     * @return false if the module contains an invalid regular expression literal
+     */
+    public static boolean validateRegExpLiterals(JSContext context, FunctionNode parsed, JSParserOptions parserOptions) {
+        CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
+        if (!context.getContextOptions().isValidateRegExpLiterals()) {
+            return true;
+        }
+        boolean[] valid = new boolean[]{true};
+        parsed.accept(new NodeVisitor<LexicalContext>(new LexicalContext()) {
+            @Override
+            public boolean enterLiteralNode(LiteralNode<?> literalNode) {
+                if (valid[0] && literalNode.getValue() instanceof RegexToken) {
+                    RegexToken regex = (RegexToken) literalNode.getValue();
+                    try {
+                        RegexCompilerInterface.validate(context, regex.getExpression(), regex.getOptions(), parserOptions.getEcmaScriptVersion());
+                    } catch (JSException e) {
+                        valid[0] = false;
+                    }
+                }
+                // array literals may contain further literals
+                return valid[0];
+            }
+
+            @Override
+            public boolean enterDefault(Node node) {
+                return valid[0];
+            }
+        });
+        return valid[0];
     }
 
     private static FunctionNode parseSource(JSContext context, com.oracle.truffle.api.source.Source truffleSource, JSParserOptions parserOptions,
                     boolean parseModule, boolean eval, boolean evalInFunction, Scope evalScope, String prologue, String epilogue) {
+        return parseSource(context, truffleSource, parserOptions, parseModule, eval, evalInFunction, evalScope, prologue, epilogue, true);
+    }
+
+    private static FunctionNode parseSource(JSContext context, com.oracle.truffle.api.source.Source truffleSource, JSParserOptions parserOptions,
+                    boolean parseModule, boolean eval, boolean evalInFunction, Scope evalScope, String prologue, String epilogue, boolean validateRegExps) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
         CharSequence code;
         if (prologue.isEmpty() && epilogue.isEmpty()) {
@@ -112,7 +165,7 @@ public final class GraalJSParserHelper {
         }
         errors.setLimit(0);
 
-        Parser parser = createParser(context, env, source, errors, parserOptions);
+        Parser parser = createParser(context, env, source, errors, parserOptions, validateRegExps);
 
         FunctionNode parsed;
         if (parseModule) {
@@ -148,10 +201,14 @@ public final class GraalJSParserHelper {
     }
 
     private static Parser createParser(JSContext context, ScriptEnvironment env, com.oracle.js.parser.Source source, ErrorManager errors, JSParserOptions parserOptions) {
+        return createParser(context, env, source, errors, parserOptions, true);
+    }
+
+    private static Parser createParser(JSContext context, ScriptEnvironment env, com.oracle.js.parser.Source source, ErrorManager errors, JSParserOptions parserOptions, boolean validateRegExps) {
         return new Parser(env, source, errors) {
             @Override
             protected void validateLexerToken(LexerToken lexerToken) {
-                if (lexerToken instanceof RegexToken) {
+                if (validateRegExps && lexerToken instanceof RegexToken) {
                     final RegexToken regex = (RegexToken) lexerToken;
                     // validate regular expression
                     if (context.getContextOptions().isValidateRegExpLiterals()) {
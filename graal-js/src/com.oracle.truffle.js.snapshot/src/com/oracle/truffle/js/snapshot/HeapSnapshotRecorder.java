@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.codec.BinaryEncoder;
+import com.oracle.truffle.js.runtime.BigInt;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSDate;
+import com.oracle.truffle.js.runtime.builtins.JSMap;
+import com.oracle.truffle.js.runtime.builtins.JSSet;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.JSAttributes;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.HeapSnapshot;
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+
+/**
+ * Records a {@link HeapSnapshot} of the global properties that were added to a realm after the
+ * recorder was created, usually by running an initialization script.
+ */
+public class HeapSnapshotRecorder {
+    private final JSRealm realm;
+    private final Set<Object> initialGlobals;
+    private final BinaryEncoder encoder = new BinaryEncoder();
+    private final Map<DynamicObject, Integer> objectIds = new IdentityHashMap<>();
+
+    public HeapSnapshotRecorder(JSRealm realm) {
+        this.realm = realm;
+        this.initialGlobals = new HashSet<>(JSObject.ownPropertyKeys(realm.getGlobalObject()));
+    }
+
+    public ByteBuffer finish() {
+        DynamicObject global = realm.getGlobalObject();
+        List<String> keys = new ArrayList<>();
+        for (Object key : JSObject.ownPropertyKeys(global)) {
+            if (!initialGlobals.contains(key)) {
+                keys.add(checkKey(key, "global"));
+            }
+        }
+        encoder.putInt(HeapSnapshot.MAGIC);
+        encoder.putInt(HeapSnapshot.VERSION);
+        encoder.putUInt(keys.size());
+        for (String key : keys) {
+            writeProperty(global, key, key);
+        }
+        return encoder.getBuffer();
+    }
+
+    private void writeProperty(DynamicObject object, String key, String path) {
+        PropertyDescriptor desc = JSObject.getOwnProperty(object, key);
+        if (!desc.isDataDescriptor()) {
+            throw unsupported(path, "accessor property");
+        }
+        HeapSnapshot.putString(encoder, key);
+        encoder.putUInt(JSAttributes.fromConfigurableEnumerableWritable(desc.getConfigurable(), desc.getEnumerable(), desc.getWritable()));
+        writeValue(desc.getValue(), path);
+    }
+
+    private void writeValue(Object value, String path) {
+        if (value == Undefined.instance) {
+            encoder.putUInt(HeapSnapshot.TAG_UNDEFINED);
+        } else if (value == Null.instance) {
+            encoder.putUInt(HeapSnapshot.TAG_NULL);
+        } else if (value instanceof Boolean) {
+            encoder.putUInt((boolean) value ? HeapSnapshot.TAG_TRUE : HeapSnapshot.TAG_FALSE);
+        } else if (value instanceof Integer) {
+            encoder.putUInt(HeapSnapshot.TAG_INT);
+            encoder.putInt((int) value);
+        } else if (JSRuntime.isNumber(value)) {
+            encoder.putUInt(HeapSnapshot.TAG_DOUBLE);
+            encoder.putDouble(JSRuntime.doubleValue((Number) value));
+        } else if (JSRuntime.isString(value)) {
+            encoder.putUInt(HeapSnapshot.TAG_STRING);
+            HeapSnapshot.putString(encoder, value.toString());
+        } else if (value instanceof BigInt) {
+            encoder.putUInt(HeapSnapshot.TAG_BIGINT);
+            encoder.putByteArray(((BigInt) value).bigIntegerValue().toByteArray());
+        } else if (JSObject.isJSObject(value)) {
+            writeObject((DynamicObject) value, path);
+        } else {
+            throw unsupported(path, value.getClass().getSimpleName());
+        }
+    }
+
+    private void writeObject(DynamicObject object, String path) {
+        Integer id = objectIds.get(object);
+        if (id != null) {
+            encoder.putUInt(HeapSnapshot.TAG_REFERENCE);
+            encoder.putUInt(id);
+            return;
+        }
+        objectIds.put(object, objectIds.size());
+        if (JSUserObject.isJSUserObject(object)) {
+            DynamicObject prototype = JSObject.getPrototype(object);
+            if (prototype == realm.getObjectPrototype()) {
+                encoder.putUInt(HeapSnapshot.TAG_OBJECT);
+            } else if (prototype == Null.instance) {
+                encoder.putUInt(HeapSnapshot.TAG_NULL_PROTOTYPE_OBJECT);
+            } else {
+                throw unsupported(path, "object with custom prototype");
+            }
+            List<String> keys = new ArrayList<>();
+            for (Object key : JSObject.ownPropertyKeys(object)) {
+                keys.add(checkKey(key, path));
+            }
+            encoder.putUInt(keys.size());
+            for (String key : keys) {
+                writeProperty(object, key, path + "." + key);
+            }
+            encoder.putUInt(JSObject.isExtensible(object) ? 1 : 0);
+        } else if (JSArray.isJSArray(object)) {
+            long length = JSArray.arrayGetLength(object);
+            if (length > Integer.MAX_VALUE) {
+                throw unsupported(path, "array length " + length);
+            }
+            List<Integer> indices = new ArrayList<>();
+            for (Object key : JSObject.ownPropertyKeys(object)) {
+                if (JSRuntime.isArrayIndex(key)) {
+                    indices.add((int) JSRuntime.propertyKeyToArrayIndex(key));
+                } else if (!JSArray.LENGTH.equals(key)) {
+                    throw unsupported(path, "array with non-index properties");
+                }
+            }
+            int integrityLevel = getIntegrityLevel(object);
+            boolean sealed = integrityLevel >= HeapSnapshot.ARRAY_SEALED;
+            boolean frozen = integrityLevel == HeapSnapshot.ARRAY_FROZEN;
+            if (JSObject.getOwnProperty(object, JSArray.LENGTH).getWritable() == frozen) {
+                throw unsupported(path, "array with read-only length");
+            }
+            // arrays that are mostly holes are written as (index, value) pairs
+            if (indices.size() < length / 2) {
+                encoder.putUInt(HeapSnapshot.TAG_SPARSE_ARRAY);
+                encoder.putUInt((int) length);
+                encoder.putUInt(indices.size());
+                for (int index : indices) {
+                    encoder.putUInt(index);
+                    writeElement(object, index, sealed, frozen, path);
+                }
+            } else {
+                encoder.putUInt(HeapSnapshot.TAG_ARRAY);
+                encoder.putUInt((int) length);
+                int next = 0;
+                for (int index : indices) {
+                    for (; next < index; next++) {
+                        encoder.putUInt(HeapSnapshot.TAG_HOLE);
+                    }
+                    writeElement(object, index, sealed, frozen, path);
+                    next = index + 1;
+                }
+                for (; next < length; next++) {
+                    encoder.putUInt(HeapSnapshot.TAG_HOLE);
+                }
+            }
+            encoder.putUInt(integrityLevel);
+        } else if (JSDate.isJSDate(object)) {
+            checkNoOwnProperties(object, path);
+            encoder.putUInt(HeapSnapshot.TAG_DATE);
+            encoder.putDouble(JSDate.getTimeMillisField(object));
+        } else if (JSMap.isJSMap(object)) {
+            checkNoOwnProperties(object, path);
+            JSHashMap map = JSMap.getInternalMap(object);
+            encoder.putUInt(HeapSnapshot.TAG_MAP);
+            encoder.putUInt(map.size());
+            JSHashMap.Cursor cursor = map.getEntries();
+            while (cursor.advance()) {
+                writeValue(cursor.getKey(), path + "<key>");
+                writeValue(cursor.getValue(), path + "<value>");
+            }
+        } else if (JSSet.isJSSet(object)) {
+            checkNoOwnProperties(object, path);
+            JSHashMap set = JSSet.getInternalSet(object);
+            encoder.putUInt(HeapSnapshot.TAG_SET);
+            encoder.putUInt(set.size());
+            JSHashMap.Cursor cursor = set.getEntries();
+            while (cursor.advance()) {
+                writeValue(cursor.getKey(), path + "<key>");
+            }
+        } else {
+            throw unsupported(path, JSObject.getClassName(object));
+        }
+    }
+
+    private void writeElement(DynamicObject array, int index, boolean sealed, boolean frozen, String path) {
+        String elementPath = path + "[" + index + "]";
+        PropertyDescriptor desc = JSObject.getOwnProperty(array, String.valueOf(index));
+        if (!desc.isDataDescriptor()) {
+            throw unsupported(elementPath, "accessor property");
+        } else if (!desc.getEnumerable() || desc.getConfigurable() == sealed || desc.getWritable() == frozen) {
+            // only the attributes implied by the integrity level of the array are restored
+            throw unsupported(elementPath, "array element with custom attributes");
+        }
+        writeValue(desc.getValue(), elementPath);
+    }
+
+    private static int getIntegrityLevel(DynamicObject object) {
+        if (JSObject.isExtensible(object)) {
+            return HeapSnapshot.ARRAY_EXTENSIBLE;
+        } else if (JSObject.testIntegrityLevel(object, true)) {
+            return HeapSnapshot.ARRAY_FROZEN;
+        } else if (JSObject.testIntegrityLevel(object, false)) {
+            return HeapSnapshot.ARRAY_SEALED;
+        } else {
+            return HeapSnapshot.ARRAY_NON_EXTENSIBLE;
+        }
+    }
+
+    private static String checkKey(Object key, String path) {
+        if (!(key instanceof String)) {
+            throw unsupported(path, "symbol-keyed property");
+        }
+        return (String) key;
+    }
+
+    private static void checkNoOwnProperties(DynamicObject object, String path) {
+        if (!JSObject.ownPropertyKeys(object).isEmpty()) {
+            throw unsupported(path, JSObject.getClassName(object) + " with own properties");
+        }
+    }
+
+    private static IllegalArgumentException unsupported(String path, String what) {
+        return new IllegalArgumentException("Unsupported value in heap snapshot at " + path + ": " + what);
+    }
+}
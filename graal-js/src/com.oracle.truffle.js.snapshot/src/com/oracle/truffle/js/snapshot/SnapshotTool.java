@@ -43,6 +43,7 @@ package com.oracle.truffle.js.snapshot;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -71,6 +72,7 @@ public class SnapshotTool {
         boolean wrapped = false;
         String outDir = null;
         String inDir = null;
+        String heapSnapshotFile = null;
         List<String> srcFiles = new ArrayList<>();
         for (String arg : args) {
             if (arg.startsWith("--")) {
@@ -86,12 +88,22 @@ public class SnapshotTool {
                     outDir = requireDirectory(arg.substring(arg.indexOf('=') + 1));
                 } else if (arg.startsWith("--indir=")) {
                     inDir = requireDirectory(arg.substring(arg.indexOf('=') + 1));
+                } else if (arg.startsWith("--heap-snapshot=")) {
+                    heapSnapshotFile = arg.substring(arg.indexOf('=') + 1);
                 }
             }
         }
 
         SnapshotTool snapshotTool = new SnapshotTool();
-        if (!srcFiles.isEmpty() && outDir != null) {
+        if (!srcFiles.isEmpty() && heapSnapshotFile != null) {
+            try (Context polyglotContext = Context.newBuilder(JavaScriptLanguage.ID).allowIO(true).build()) {
+                polyglotContext.initialize(JavaScriptLanguage.ID);
+                polyglotContext.enter();
+                snapshotTool.heapSnapshotTo(polyglotContext, srcFiles, inDir, new File(heapSnapshotFile));
+                snapshotTool.timeStats.print();
+                polyglotContext.leave();
+            }
+        } else if (!srcFiles.isEmpty() && outDir != null) {
             try (Context polyglotContext = Context.newBuilder(JavaScriptLanguage.ID).allowIO(true).allowExperimentalOptions(true).option(JSContextOptions.CLASS_FIELDS_NAME, "true").option(
                             JSContextOptions.LAZY_TRANSLATION_NAME, "false").build()) {
                 polyglotContext.initialize(JavaScriptLanguage.ID);
@@ -109,6 +121,7 @@ public class SnapshotTool {
             }
         } else {
             System.out.println("Usage: [--java|--binary] --outdir=DIR [--indir=DIR] --file=FILE [--file=FILE ...]");
+            System.out.println("       --heap-snapshot=OUTFILE [--indir=DIR] --file=FILE [--file=FILE ...]");
         }
     }
 
@@ -156,6 +169,32 @@ public class SnapshotTool {
         }
     }
 
+    /**
+     * Runs the given initialization scripts and writes a heap snapshot of the global properties
+     * they define. The snapshot is restored with the {@code js.heap-snapshot} option. Only data is
+     * supported, see {@link com.oracle.truffle.js.runtime.util.HeapSnapshot}; globals holding
+     * functions are rejected.
+     */
+    private void heapSnapshotTo(Context polyglotContext, List<String> srcFiles, String inDir, File outputFile) throws IOException {
+        JSRealm realm = JavaScriptLanguage.getCurrentJSRealm();
+        try (TimerCloseable timer = timeStats.file(outputFile.getName())) {
+            HeapSnapshotRecorder rec = new HeapSnapshotRecorder(realm);
+            for (String srcFile : srcFiles) {
+                File sourceFile = inDir == null ? new File(srcFile) : Paths.get(inDir, srcFile).toFile();
+                if (!sourceFile.isFile()) {
+                    throw new IllegalArgumentException("Not a file: " + sourceFile);
+                }
+                Recording.logv("running %s", srcFile);
+                polyglotContext.eval(org.graalvm.polyglot.Source.newBuilder(JavaScriptLanguage.ID, sourceFile).build());
+            }
+            ByteBuffer buffer = rec.finish();
+            outputFile.getAbsoluteFile().getParentFile().mkdirs();
+            try (FileOutputStream outs = new FileOutputStream(outputFile)) {
+                outs.getChannel().write(buffer);
+            }
+        }
+    }
+
     private interface TimerCloseable extends AutoCloseable {
         @Override
         void close();
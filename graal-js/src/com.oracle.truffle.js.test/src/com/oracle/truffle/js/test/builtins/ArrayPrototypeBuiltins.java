@@ -49,6 +49,7 @@ import org.graalvm.polyglot.Value;
 import org.junit.Test;
 
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
 import com.oracle.truffle.js.test.JSTest;
 
 public class ArrayPrototypeBuiltins {
@@ -81,4 +82,96 @@ public class ArrayPrototypeBuiltins {
         }
     }
 
+    @Test
+    public void testNumericSort() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            String check = "function check(a, cmp, expected) { var r = a.sort(cmp); return r === a && String(Array.from(r)) === expected; }";
+            context.eval(JavaScriptLanguage.ID, check);
+            String[] cases = {
+                            "check([3, -1, 20, 100000, 2], (a, b) => a - b, '-1,2,3,20,100000')",
+                            "check([3, -1, 20, 100000, 2], function (x, y) { return y - x; }, '100000,20,3,2,-1')",
+                            "check([3, -1, 20, 100000, 2], undefined, '-1,100000,2,20,3')",
+                            "check([2.5, -1.5, 0.25], (a, b) => a - b, '-1.5,0.25,2.5')",
+                            "Object.is([0, -0, 1.5].sort((a, b) => a - b)[1], -0)",
+                            "check(new Int16Array([5, -3, 7]), undefined, '-3,5,7')",
+                            "check(new Uint32Array([4294967295, 0, 2147483648, 1]), undefined, '0,1,2147483648,4294967295')",
+                            "check(new Uint32Array([4294967295, 0, 2147483648, 1]), (a, b) => b - a, '4294967295,2147483648,1,0')",
+                            "check(new Float64Array([1, NaN, -0, 0, -Infinity]), undefined, '-Infinity,0,0,1,NaN') && Object.is(new Float64Array([0, -0]).sort()[0], -0)",
+                            "check(new Float32Array([1.5, -2, 0.5]), (a, b) => a - b, '-2,0.5,1.5')",
+            };
+            for (String test : cases) {
+                assertTrue(test, context.eval(JavaScriptLanguage.ID, test).asBoolean());
+            }
+        }
+    }
+
+    @Test
+    public void testNumericSortFrozen() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var a = Object.freeze([3, 1, 2]); var d = Object.freeze([3.5, 1.5, 2.5]);" +
+                            "[a, d].map((x) => { try { x.sort(); return 'no error'; } catch (e) { return e.name + ':' + String(x); } }).join('|')");
+            assertEquals("TypeError:3,1,2|TypeError:3.5,1.5,2.5", result.asString());
+            assertEquals("1,2,3", context.eval(JavaScriptLanguage.ID, "String(Object.seal([3, 1, 2]).sort())").asString());
+        }
+    }
+
+    @Test
+    public void testNumericSortDetachedTypedArray() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.DEBUG_BUILTIN_NAME, "true").build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var t = new Int32Array([3, 1, 2]); Debug.typedArrayDetachBuffer(t.buffer);" +
+                            "try { t.sort(); 'no error'; } catch (e) { e.name; }");
+            assertEquals("TypeError", result.asString());
+        }
+    }
+
+    @Test
+    public void testParallelNumericSort() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            // the arrays are long enough for Arrays.parallelSort; the expected orders are computed
+            // with comparators that are not recognized and are called by the generic path
+            context.eval(JavaScriptLanguage.ID, "var n = 100000; var ints = []; var doubles = []; for (var i = 0; i < n; i++) {" +
+                            " ints.push((i * 7919) % n - (i % 3 === 0 ? n / 2 : 0)); doubles.push((i * 7919) % n + 0.5); }" +
+                            "ints.push(2147483647, -2147483648); doubles.push(-Infinity, Infinity);" +
+                            "function same(a, b) { return a.length === b.length && a.every((v, i) => Object.is(v, b[i])); }" +
+                            "function generic(a, cmp) { return a.slice().sort(cmp); }" +
+                            "function asc(a, b) { return a < b ? -1 : a > b ? 1 : 0; } function desc(a, b) { return asc(b, a); }");
+            String[] cases = {
+                            "same(ints.slice().sort(), generic(ints, (a, b) => asc(String(a), String(b))))",
+                            "same(ints.slice().sort((a, b) => a - b), generic(ints, asc))",
+                            "same(ints.slice().sort(function (x, y) { return y - x; }), generic(ints, desc))",
+                            "same(doubles.slice().sort((a, b) => { return a - b; }), generic(doubles, asc))",
+                            "same(doubles.slice().sort((a, b) => b - a), generic(doubles, desc))",
+                            // -0 and +0 compare equal, the sort has to keep their order
+                            "var z = doubles.slice(0, 100).concat([0, -0, 0, -0]); same(z.slice().sort((a, b) => a - b), generic(z, asc))",
+                            // not recognized as a numeric comparator
+                            "same(ints.slice(0, 100).sort((a, b) => a - a), ints.slice(0, 100))",
+            };
+            for (String test : cases) {
+                assertTrue(test, context.eval(JavaScriptLanguage.ID, test).asBoolean());
+            }
+        }
+    }
+
+    @Test
+    public void testPackedArrayIteration() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            String[] cases = {
+                            "String([1, 2, 3].map(x => x * 2)) === '2,4,6'",
+                            "String([1.5, 2.5, 3.5].filter(x => x > 2)) === '2.5,3.5'",
+                            "['a', 'b', 'c'].reduce((acc, x) => acc + x, '') === 'abc'",
+                            "['a', 'b', 'c'].reduceRight((acc, x) => acc + x, '') === 'cba'",
+                            "[1, 2, 3, 4].findIndex(x => x === 3) === 2 && [4, 3, 2, 1].lastIndexOf(3) === 1",
+                            // callback changes the array type
+                            "var a = [1, 2, 3, 4]; String(a.map((x, i) => { a[i + 1] += 0.5; return x; })) === '1,2.5,3.5,4.5'",
+                            // callback shrinks the array
+                            "var a = [1, 2, 3, 4]; var seen = []; a.forEach(x => { seen.push(x); a.length = 2; }); String(seen) === '1,2'",
+                            "var a = [1, 2, 3, 4]; var seen = []; a.reduceRight((acc, x) => { seen.push(x); a.length = 2; }, 0); String(seen) === '4,2,1'",
+                            // callback turns the array into a holey one
+                            "var a = [1, 2, 3, 4]; var seen = []; a.forEach(x => { seen.push(x); delete a[2]; }); String(seen) === '1,2,4'",
+            };
+            for (String test : cases) {
+                assertTrue(test, context.eval(JavaScriptLanguage.ID, test).asBoolean());
+            }
+        }
+    }
 }
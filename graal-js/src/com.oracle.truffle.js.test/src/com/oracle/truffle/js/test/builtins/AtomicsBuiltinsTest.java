@@ -80,4 +80,53 @@ public class AtomicsBuiltinsTest {
         }
     }
 
+    @Test
+    public void testConcurrentAdd() {
+        int agentCount = 4;
+        int iterations = 1000;
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.TEST262_MODE_NAME, "true").build()) {
+            String code = "let agentCount = " + agentCount + ";\n" //
+                            + "for (let i = 0; i < agentCount; i++) {\n" //
+                            + "  $262.agent.start(`\n" //
+                            + "    $262.agent.receiveBroadcast(function(sab) {\n" //
+                            + "      const u8a = new Uint8Array(sab, 0, 4);\n" //
+                            + "      const i16a = new Int16Array(sab, 4, 2);\n" //
+                            + "      const i32a = new Int32Array(sab, 8, 2);\n" //
+                            + "      const i64a = new BigInt64Array(sab, 16, 1);\n" //
+                            + "      for (let i = 0; i < " + iterations + "; i++) {\n" //
+                            + "        for (let j = 0; j < u8a.length; j++) {\n" //
+                            + "          Atomics.add(u8a, j, 1);\n" //
+                            + "        }\n" //
+                            + "        Atomics.sub(i16a, 0, 1);\n" //
+                            + "        Atomics.add(i16a, 1, 1);\n" //
+                            + "        let v;\n" //
+                            + "        do {\n" //
+                            + "          v = Atomics.load(i32a, 1);\n" //
+                            + "        } while (Atomics.compareExchange(i32a, 1, v, v + 1) !== v);\n" //
+                            + "        Atomics.add(i64a, 0, 1n);\n" //
+                            + "      }\n" //
+                            + "      $262.agent.report('done');\n" //
+                            + "      $262.agent.leaving();\n" //
+                            + "    });\n" //
+                            + "  `);\n" //
+                            + "}\n" //
+                            + "const sab = new SharedArrayBuffer(24);\n" //
+                            + "$262.agent.broadcast(sab);\n" //
+                            + "let count = 0;\n" //
+                            + "while (count < agentCount) {\n" //
+                            + "  if ($262.agent.getReport() !== null) {\n" //
+                            + "    count++;\n" //
+                            + "  } else {\n" //
+                            + "    $262.agent.sleep(1);\n" //
+                            + "  }\n" //
+                            + "}\n" //
+                            + "[...new Uint8Array(sab, 0, 4), ...new Int16Array(sab, 4, 2), ...new Int32Array(sab, 8, 2), new BigInt64Array(sab, 16, 1)[0]].join();";
+            Value result = context.eval(JavaScriptLanguage.ID, code);
+            int total = agentCount * iterations;
+            int bytes = total & 0xFF;
+            // concurrent updates of neighbouring elements must not get lost
+            Assert.assertEquals(bytes + "," + bytes + "," + bytes + "," + bytes + "," + (-total) + "," + total + ",0," + total + "," + total, result.asString());
+        }
+    }
+
 }
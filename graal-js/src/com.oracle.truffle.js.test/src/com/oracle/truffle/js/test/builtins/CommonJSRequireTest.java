@@ -59,6 +59,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -70,6 +71,8 @@ import static com.oracle.truffle.js.runtime.JSContextOptions.COMMONJS_REQUIRE_GL
 import static com.oracle.truffle.js.runtime.JSContextOptions.COMMONJS_REQUIRE_NAME;
 import static com.oracle.truffle.js.runtime.JSContextOptions.ECMASCRIPT_VERSION_NAME;
 import static com.oracle.truffle.js.runtime.JSContextOptions.GLOBAL_PROPERTY_NAME;
+import static com.oracle.truffle.js.runtime.JSContextOptions.MODULE_RESOLUTION_CACHE_NAME;
+import static com.oracle.truffle.js.runtime.JSContextOptions.MODULE_RESOLUTION_CACHE_VALIDATE_NAME;
 import static org.junit.Assert.assertEquals;
 
 public class CommonJSRequireTest {
@@ -638,4 +641,77 @@ public class CommonJSRequireTest {
         options.put(COMMONJS_CORE_MODULES_REPLACEMENTS_NAME, "assert:./builtin-assert-mockup.mjs");
         runAndExpectOutput(Source.newBuilder(ID, dirFile.toFile()).build(), "all OK!\n", options);
     }
+
+    // ##### Module resolution cache
+
+    private static Map<String, String> getResolutionCacheOptions(Path cwd, boolean validate) {
+        Map<String, String> options = new HashMap<>();
+        options.put(COMMONJS_REQUIRE_NAME, "true");
+        options.put(COMMONJS_REQUIRE_CWD_NAME, cwd.toAbsolutePath().toString());
+        options.put(MODULE_RESOLUTION_CACHE_NAME, "true");
+        options.put(MODULE_RESOLUTION_CACHE_VALIDATE_NAME, Boolean.toString(validate));
+        return options;
+    }
+
+    @Test
+    public void resolutionCache() {
+        try (Context cx = testContext(getResolutionCacheOptions(getTestRootFolder(), false))) {
+            Value js = cx.eval(ID, "[require('with-package').foo, require('./with-package').foo, require('wrong-package').foo, " +
+                            "require('./module').foo, require('./module.js').foo, require('./nested.js').foo].join();");
+            Assert.assertEquals("42,42,42,42,42,42", js.asString());
+        }
+    }
+
+    @Test
+    public void resolutionCacheMissingModule() {
+        try (Context cx = testContext(getResolutionCacheOptions(getTestRootFolder(), false))) {
+            Value js = cx.eval(ID, "var r = [];" +
+                            "for (var i = 0; i < 2; i++) { try { require('./does-not-exist'); } catch (e) { r.push(e.message); } }" +
+                            "r.join('|');");
+            Assert.assertEquals("Cannot load CommonJS module: './does-not-exist'|Cannot load CommonJS module: './does-not-exist'", js.asString());
+        }
+    }
+
+    @Test
+    public void resolutionCacheValidation() throws IOException {
+        for (boolean validate : new boolean[]{false, true}) {
+            Path dir = Files.createTempDirectory("resolution-cache");
+            Path module = dir.resolve("late.js");
+            try (Context cx = testContext(getResolutionCacheOptions(dir, validate))) {
+                Value tryRequire = cx.eval(ID, "(function(m) { try { return String(require(m).foo); } catch (e) { return 'missing'; } })");
+                Assert.assertEquals("missing", tryRequire.execute("./late.js").asString());
+
+                Files.write(module, "module.exports.foo = 42;".getBytes());
+                // make sure that the modification time of the directory changes
+                Files.setLastModifiedTime(dir, FileTime.fromMillis(Files.getLastModifiedTime(dir).toMillis() + 10000));
+                Assert.assertEquals(validate ? "42" : "missing", tryRequire.execute("./late.js").asString());
+            } finally {
+                Files.deleteIfExists(module);
+                Files.delete(dir);
+            }
+        }
+    }
+
+    @Test
+    public void resolutionCacheSeparatesRequireAndImport() throws IOException {
+        Path dir = Files.createTempDirectory("resolution-cache");
+        Path module = dir.resolve("foo.js");
+        Path main = dir.resolve("main.mjs");
+        try (Context cx = testContext(getResolutionCacheOptions(dir, false))) {
+            Files.write(module, "module.exports.foo = 42;".getBytes());
+            Files.write(main, "import './foo';".getBytes());
+            Assert.assertEquals(42, cx.eval(ID, "require('./foo').foo").asInt());
+            // require probes extensions, an import has to name the exact file
+            try {
+                cx.eval(Source.newBuilder(ID, main.toFile()).build());
+                Assert.fail("should have thrown");
+            } catch (PolyglotException e) {
+                Assert.assertFalse(e.getMessage(), e.isInternalError());
+            }
+        } finally {
+            Files.deleteIfExists(module);
+            Files.deleteIfExists(main);
+            Files.delete(dir);
+        }
+    }
 }
@@ -44,7 +44,12 @@ import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
 import org.graalvm.polyglot.Value;
 import org.junit.Test;
 
@@ -61,4 +66,41 @@ public class JSONParseTest {
         }
     }
 
+    @Test
+    public void testGraalParseJSONBytes() {
+        String json = "{\"a\": [1, -0, 2.5e3, true, null], \"\u00fcml\u00e4ut\": \"\u20ac\\u0041\ud83d\ude00\"}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            Value bindings = context.getBindings(ID);
+            bindings.putMember("bytes", bytes);
+            bindings.putMember("byteBuffer", ByteBuffer.wrap(bytes));
+            bindings.putMember("stream", new ByteArrayInputStream(bytes));
+            bindings.putMember("json", json);
+            context.eval(ID, "var check = (r) => JSON.stringify(r) === JSON.stringify(JSON.parse(json)) && Object.is(r.a[1], -0);" +
+                            "var u8 = new Uint8Array(bytes.length); for (var i = 0; i < u8.length; i++) { u8[i] = bytes[i]; }");
+            for (String input : new String[]{"bytes", "byteBuffer", "stream", "u8", "u8.buffer", "new DataView(u8.buffer)"}) {
+                assertTrue(input, context.eval(ID, "check(Graal.parseJSON(" + input + "))").asBoolean());
+            }
+        }
+    }
+
+    @Test
+    public void testGraalParseJSONErrors() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(ID, "var enc = (s) => new Uint8Array(Array.from(s, (c) => c.charCodeAt(0)));" +
+                            "['[1,]', '{\"a\" 1}', '01', '[1] x', '\"abc', ''].map((s) => { try { Graal.parseJSON(enc(s)); return 'no error'; } catch (e) { return e.name; } }).join()");
+            assertEquals("SyntaxError,SyntaxError,SyntaxError,SyntaxError,SyntaxError,SyntaxError", result.asString());
+            assertEquals(42, context.eval(ID, "Graal.parseJSON(enc('[40, 2]'), (k, v) => Array.isArray(v) ? v[0] + v[1] : v)").asInt());
+        }
+    }
+
+    @Test
+    public void testGraalParseJSONByteOrderMark() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(ID, "var bytes = new Uint8Array([0xEF, 0xBB, 0xBF, 0x5B, 0x31, 0x5D]);" +
+                            "[JSON.stringify(Graal.parseJSON(bytes)), (() => { try { Graal.parseJSON('\\uFEFF[1]'); return 'no error'; } catch (e) { return e.name; } })()," +
+                            " (() => { try { JSON.parse('\\uFEFF[1]'); return 'no error'; } catch (e) { return e.name; } })()].join('|')");
+            assertEquals("[1]|SyntaxError|SyntaxError", result.asString());
+        }
+    }
 }
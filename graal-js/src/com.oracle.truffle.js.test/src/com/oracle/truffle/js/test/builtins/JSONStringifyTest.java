@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.junit.Test;
+
+import com.oracle.truffle.js.test.JSTest;
+
+public class JSONStringifyTest {
+
+    private static String stringify(String code) {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            return context.eval(ID, code).asString();
+        }
+    }
+
+    @Test
+    public void testSameShapeRecords() {
+        assertEquals("[{\"id\":0,\"name\":\"a\\n0\",\"ok\":true},{\"id\":1,\"name\":\"a\\n1\",\"ok\":false},{\"id\":2,\"name\":\"a\\n2\",\"ok\":true}]",
+                        stringify("var a = []; for (var i = 0; i < 3; i++) { a.push({id: i, name: 'a\\n' + i, ok: i % 2 == 0}); } JSON.stringify(a)"));
+    }
+
+    @Test
+    public void testPropertyOrder() {
+        assertEquals("{\"1\":1,\"2\":2,\"b\":3,\"a\":4}", stringify("JSON.stringify({b: 3, 2: 2, a: 4, 1: 1})"));
+    }
+
+    @Test
+    public void testSkippedProperties() {
+        assertEquals("[{\"a\":1,\"d\":null},{\"a\":1,\"d\":null}]",
+                        stringify("var s = Symbol(); var o = () => { var r = {a: 1, b: undefined, c: () => 0, d: NaN}; r[s] = 2; Object.defineProperty(r, 'e', {value: 3}); return r; };" +
+                                        "JSON.stringify([o(), o()])"));
+    }
+
+    @Test
+    public void testAccessorProperty() {
+        assertEquals("[{\"a\":1,\"g\":2},{\"a\":1,\"g\":2}]", stringify("var o = () => ({a: 1, get g() { return 2; }}); JSON.stringify([o(), o()])"));
+    }
+
+    @Test
+    public void testShapeChangeDuringSerialization() {
+        assertEquals("[{\"a\":{\"x\":1},\"c\":4},{\"a\":{\"x\":1},\"b\":2,\"c\":3}]",
+                        stringify("var holder = {}; var o = (b) => ({a: {toJSON() { if (b) { delete holder.b; holder.c = 4; } return {x: 1}; }}, b: 2, c: 3});" +
+                                        "var first = o(true); holder = first; JSON.stringify([first, o(false)])"));
+    }
+
+    @Test
+    public void testToJSONAndReplacer() {
+        assertEquals("{\"a\":\"A\",\"b\":{\"c\":20}}", stringify("JSON.stringify({a: {toJSON: () => 'A'}, b: {c: 2}}, (k, v) => typeof v === 'number' ? v * 10 : v)"));
+    }
+
+    @Test
+    public void testGraalStringifyJSON() {
+        String value = "var v = []; for (var i = 0; i < 5000; i++) { v.push({id: i, name: '\u00fcml\u00e4ut \u20ac\ud83d\ude00 ' + i, nested: [i, i / 2, null]}); } v";
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            context.eval(ID, value);
+            String expected = context.eval(ID, "JSON.stringify(v, null, 2)").asString();
+            byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            context.getBindings(ID).putMember("out", out);
+            assertEquals(expectedBytes.length, context.eval(ID, "Graal.stringifyJSON(v, out, null, 2)").asInt());
+            assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+            ByteBuffer buffer = ByteBuffer.allocate(expectedBytes.length);
+            context.getBindings(ID).putMember("buffer", buffer);
+            assertEquals(expectedBytes.length, context.eval(ID, "Graal.stringifyJSON(v, buffer, null, 2)").asInt());
+            assertEquals(ByteBuffer.wrap(expectedBytes), buffer.flip());
+
+            assertEquals(true, context.eval(ID, "var chunks = []; Graal.stringifyJSON(v, (c) => chunks.push(c), null, 2);" +
+                            "chunks.length > 1 && chunks.join('') === JSON.stringify(v, null, 2)").asBoolean());
+            assertEquals("{\"a\":1}", context.eval(ID, "var s = ''; Graal.stringifyJSON({a: 1, b: 2}, (c) => { s += c; }, ['a']); s").asString());
+            assertEquals(true, context.eval(ID, "Graal.stringifyJSON(undefined, () => { throw new Error(); }) === undefined").asBoolean());
+            assertEquals("RangeError", context.eval(ID, "try { Graal.stringifyJSON(v, buffer); } catch (e) { e.name }").asString());
+        }
+    }
+
+    @Test
+    public void testForeignReplacer() {
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            context.getBindings(ID).putMember("replacerFn", (BiFunction<String, Object, Object>) (k, v) -> "b".equals(k) ? null : v);
+            context.getBindings(ID).putMember("replacerList", new String[]{"a", "c"});
+            assertEquals("{\"a\":1,\"b\":null}|{\"a\":1,\"b\":null}", context.eval(ID, "var o = {a: 1, b: 2};" +
+                            "JSON.stringify(o, replacerFn) + '|' + (s = '', Graal.stringifyJSON(o, (c) => { s += c; }, replacerFn), s)").asString());
+            assertEquals("{\"a\":1,\"c\":3}|{\"a\":1,\"c\":3}", context.eval(ID, "var o = {a: 1, b: 2, c: 3}; var s = '';" +
+                            "Graal.stringifyJSON(o, (c) => { s += c; }, new Proxy(['a', 'c'], {})); JSON.stringify(o, replacerList) + '|' + s").asString());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Tests of {@code Graal.mapFile} and array buffers backed by host {@link MappedByteBuffer}s.
+ */
+public class MappedArrayBufferTest {
+
+    private static Path createFile(byte[] contents) throws IOException {
+        Path file = Files.createTempFile("mapped", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, contents);
+        return file;
+    }
+
+    private static Context newContext(Path file) {
+        Context context = JSTest.newContextBuilder().allowIO(true).build();
+        context.getBindings(JavaScriptLanguage.ID).putMember("path", file.toString());
+        return context;
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        Path file = createFile(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        try (Context context = newContext(file)) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var buffer = Graal.mapFile(path);" +
+                            "var bytes = new Uint8Array(buffer);" +
+                            "var sum = bytes.reduce((a, b) => a + b);" +
+                            "bytes[0] = 42; new DataView(buffer).setUint16(6, 0x0102);" +
+                            "Graal.flushArrayBuffer(buffer);" +
+                            "buffer.byteLength + ':' + sum;");
+            assertEquals("8:36", result.asString());
+        }
+        assertArrayEquals(new byte[]{42, 2, 3, 4, 5, 6, 1, 2}, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testRegion() throws IOException {
+        Path file = createFile(new byte[]{0, 1, 2, 3, 4, 5, 6, 7});
+        try (Context context = newContext(file)) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var buffer = Graal.mapFile(path, {offset: 2, length: 4});" +
+                            "Array.from(new Uint8Array(buffer)).join();");
+            assertEquals("2,3,4,5", result.asString());
+        }
+    }
+
+    @Test
+    public void testPrivate() throws IOException {
+        Path file = createFile(new byte[]{1, 2, 3, 4});
+        try (Context context = newContext(file)) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var bytes = new Uint8Array(Graal.mapFile(path, {mode: 'private'}));" +
+                            "bytes.fill(9); Array.from(bytes).join();");
+            assertEquals("9,9,9,9", result.asString());
+        }
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testPrivateReadOnlyFile() throws IOException {
+        Path file = createFile(new byte[]{1, 2, 3, 4});
+        assertTrue(file.toFile().setWritable(false));
+        try (Context context = newContext(file)) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var bytes = new Uint8Array(Graal.mapFile(path, {mode: 'private'}));" +
+                            "bytes[0] = 9; Array.from(bytes).join();");
+            assertEquals("9,2,3,4", result.asString());
+        } finally {
+            file.toFile().setWritable(true);
+        }
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testShared() throws IOException {
+        Path file = createFile(new byte[16]);
+        try (Context context = newContext(file)) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var buffer = Graal.mapFile(path, {shared: true});" +
+                            "var ints = new Int32Array(buffer); Atomics.add(ints, 1, 5); Atomics.add(ints, 1, 2);" +
+                            "(buffer instanceof SharedArrayBuffer) + ':' + Atomics.load(ints, 1);");
+            assertEquals("true:7", result.asString());
+        }
+    }
+
+    @Test
+    public void testUnmap() throws IOException {
+        Path file = createFile(new byte[4]);
+        try (Context context = newContext(file)) {
+            Value result = context.eval(JavaScriptLanguage.ID, "var buffer = Graal.mapFile(path); var bytes = new Uint8Array(buffer);" +
+                            "Graal.unmapArrayBuffer(buffer);" +
+                            "var error; try { bytes.fill(1); } catch (e) { error = e; }" +
+                            "buffer.byteLength + ':' + (error instanceof TypeError);");
+            assertEquals("0:true", result.asString());
+        }
+        assertArrayEquals(new byte[4], Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        Path file = createFile(new byte[4]);
+        try (Context context = newContext(file)) {
+            assertTrue(context.eval(JavaScriptLanguage.ID, "try { Graal.mapFile(path, {offset: -1}); false; } catch (e) { e instanceof RangeError; }").asBoolean());
+            assertTrue(context.eval(JavaScriptLanguage.ID, "try { Graal.mapFile(path, {mode: 'r'}); false; } catch (e) { e instanceof RangeError; }").asBoolean());
+            assertTrue(context.eval(JavaScriptLanguage.ID, "try { Graal.flushArrayBuffer(new ArrayBuffer(4)); false; } catch (e) { e instanceof TypeError; }").asBoolean());
+            assertTrue(context.eval(JavaScriptLanguage.ID, "try { Graal.unmapArrayBuffer(Graal.mapFile(path, {shared: true})); false; } catch (e) { e instanceof TypeError; }").asBoolean());
+        }
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.getBindings(JavaScriptLanguage.ID).putMember("path", file.toString());
+            context.eval(JavaScriptLanguage.ID, "Graal.mapFile(path);");
+            fail("file access should be denied");
+        } catch (PolyglotException e) {
+            assertTrue(e.isGuestException());
+        }
+    }
+
+    @Test
+    public void testHostMappedByteBuffer() throws IOException {
+        Path file = createFile(new byte[]{1, 2, 3, 4});
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, 4);
+        }
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            context.getBindings(JavaScriptLanguage.ID).putMember("mapped", mapped);
+            Value result = context.eval(JavaScriptLanguage.ID, "var bytes = new Uint8Array(new ArrayBuffer(mapped)); bytes[3] = 40;" +
+                            "(new SharedArrayBuffer(mapped) instanceof SharedArrayBuffer) + ':' + Array.from(bytes).join();");
+            assertEquals("true:1,2,3,40", result.asString());
+        }
+        ByteBuffer copy = ByteBuffer.allocate(4);
+        copy.put(mapped.duplicate());
+        assertArrayEquals(new byte[]{1, 2, 3, 40}, copy.array());
+    }
+}
@@ -81,4 +81,20 @@ public class NumberPrototypeBuiltins {
         }
     }
 
+    @Test
+    public void testToLocaleStringRepeated() {
+        // formatters of option-less calls are cached per realm; results must not depend on call order
+        assertTrue(testIntl("var r = [];" +
+                        "for (var i = 0; i < 3; i++) { r.push((1234.5).toLocaleString(), (1234.5).toLocaleString('de'), (1234.5).toLocaleString('en')); }" +
+                        "r.join('|') === '1,234.5|1.234,5|1,234.5|1,234.5|1.234,5|1,234.5|1,234.5|1.234,5|1,234.5';", "en"));
+        // options objects are still read on every call
+        assertTrue(testIntl("var reads = 0; var options = { get maximumFractionDigits() { reads++; return 1; } };" +
+                        "var a = (1.26).toLocaleString('en', options) + (1.26).toLocaleString('en', options);" +
+                        "a === '1.31.3' && reads === 2;", "en"));
+        // invalid locales still throw on every call
+        assertTrue(testIntl("var errors = 0;" +
+                        "for (var i = 0; i < 2; i++) { try { (1).toLocaleString('x-invalid-'); } catch (e) { if (e instanceof RangeError) errors++; } }" +
+                        "errors === 2;", "en"));
+    }
+
 }
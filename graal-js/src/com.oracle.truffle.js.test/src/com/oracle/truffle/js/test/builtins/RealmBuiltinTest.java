@@ -94,6 +94,19 @@ public class RealmBuiltinTest {
         }
     }
 
+    @Test
+    public void testPromiseJobsAcrossRealms() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.V8_REALM_BUILTIN_NAME, "true").build()) {
+            // jobs of different realms must run in the order they have been enqueued
+            context.eval(JavaScriptLanguage.ID, "const id = Realm.create(); var log = []; Realm.shared = log;" +
+                            "Realm.eval(id, 'Promise.resolve().then(() => Realm.shared.push(\\'a1\\')).then(() => Realm.shared.push(\\'a2\\'))');" +
+                            "Promise.resolve().then(() => log.push('m1')).then(() => log.push('m2'));" +
+                            "Realm.eval(id, 'Promise.resolve().then(() => Realm.shared.push(\\'a3\\'))');");
+            Value result = context.eval(JavaScriptLanguage.ID, "log.join()");
+            Assert.assertEquals("a1,m1,a3,a2,m2", result.asString());
+        }
+    }
+
     @Test
     public void testInvalidRealmIndex() {
         try (Context context = JSTest.newContextBuilder().option(JSContextOptions.V8_REALM_BUILTIN_NAME, "true").build()) {
@@ -41,12 +41,14 @@
 package com.oracle.truffle.js.test.builtins;
 
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Value;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
 import com.oracle.truffle.js.test.JSTest;
 
 public class RegExpBuiltinTest {
@@ -65,4 +67,24 @@ public class RegExpBuiltinTest {
         }
     }
 
+    @Test
+    public void testCompiledRegexSharedAcrossContexts() {
+        String code = "var source = ['a', 'b+', 'c'].join('');" +
+                        "var r = new RegExp(source, 'g');" +
+                        "var m = 'xabbbcyabc'.match(r).join();" +
+                        "try { new RegExp(source + '(', 'g'); m += ':no error'; } catch (e) { m += ':' + (e instanceof SyntaxError); }" +
+                        "m;";
+        try (Engine engine = JSTest.newEngineBuilder().build()) {
+            for (int i = 0; i < 3; i++) {
+                try (Context context = JSTest.newContextBuilder().engine(engine).build()) {
+                    // results and syntax errors must be the same whether the regex is compiled or taken from the cache
+                    Assert.assertEquals("abbbc,abc:true", context.eval(JavaScriptLanguage.ID, code).asString());
+                }
+            }
+        }
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.REGEX_CACHE_SIZE_NAME, "0").build()) {
+            Assert.assertEquals("abbbc,abc:true", context.eval(JavaScriptLanguage.ID, code).asString());
+        }
+    }
+
 }
@@ -131,4 +131,25 @@ public class StringPrototypeTest {
         }
     }
 
+    @Test
+    public void testLazyStringSearch() {
+        // every check gets a fresh rope, since a search or slice that falls back to toString()
+        // flattens the rope in place
+        String code = "function build() { var s = ''; for (var i = 0; i < 500; i++) { s += 'chunk' + i + '-abcdefghijklmnopqrstuvwxyz|'; } return s; }\n" +
+                        "var flat = build(); flat.charCodeAt(0);\n" +
+                        "var checks = [(s, p, pos) => s.indexOf(p, pos), (s, p, pos) => s.includes(p, pos), (s, p, pos) => s.startsWith(p, pos),\n" +
+                        "  (s, p, pos) => s.endsWith(p, pos), (s, p, pos) => s.slice(pos, 40), (s, p, pos) => s.substring(pos, 40)];\n" +
+                        "var ok = true;\n" +
+                        "['chunk0', 'chunk499', 'z|chunk1', '|chunk12', 'xyz|chunk3', 'missing', '', 'k1-a'].forEach(function(p) {\n" +
+                        "  [undefined, 0, 7, 5000, -3, 1e9].forEach(function(pos) {\n" +
+                        "    checks.forEach(function(check) { ok = ok && check(build(), p, pos) === check(flat, p, pos); });\n" +
+                        "  });\n" +
+                        "});\n" +
+                        "ok && build().endsWith('chunk499-abcdefghijklmnopqrstuvwxyz|') && build() === flat;";
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, code);
+            assertTrue(result.asBoolean());
+        }
+    }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Scripts stored in and loaded from the {@code js.code-cache-dir} code cache.
+ */
+public class CodeCacheTest {
+
+    private static final String CODE = "function fib(n) { return n < 2 ? n : fib(n - 1) + fib(n - 2); }\nfib(10);";
+
+    private static int run(Path cacheDir, boolean allowIO) {
+        try (Context context = JSTest.newContextBuilder().allowIO(allowIO).option(JSContextOptions.CODE_CACHE_DIR_NAME, cacheDir.toString()).build()) {
+            return context.eval(Source.newBuilder(JavaScriptLanguage.ID, CODE, "fib.js").buildLiteral()).asInt();
+        }
+    }
+
+    private static List<Path> entries(Path cacheDir) throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static void deleteAll(Path cacheDir) throws IOException {
+        for (Path file : entries(cacheDir)) {
+            Files.delete(file);
+        }
+        Files.delete(cacheDir);
+    }
+
+    @Test
+    public void testSecondRunReusesEntry() throws IOException {
+        Path cacheDir = Files.createTempDirectory("code-cache");
+        try {
+            assertEquals(55, run(cacheDir, true));
+            List<Path> entries = entries(cacheDir);
+            assertEquals(entries.toString(), 1, entries.size());
+            Path entry = entries.get(0);
+            assertTrue(entry.toString(), entry.toString().endsWith(".bin"));
+            FileTime stamp = FileTime.fromMillis(0);
+            Files.setLastModifiedTime(entry, stamp);
+
+            // a hit loads the entry without writing it again
+            assertEquals(55, run(cacheDir, true));
+            assertEquals(entries, entries(cacheDir));
+            assertEquals(stamp, Files.getLastModifiedTime(entry));
+        } finally {
+            deleteAll(cacheDir);
+        }
+    }
+
+    @Test
+    public void testNoAccessWithoutIO() throws IOException {
+        Path cacheDir = Files.createTempDirectory("code-cache");
+        try {
+            assertEquals(55, run(cacheDir, false));
+            assertTrue(entries(cacheDir).isEmpty());
+        } finally {
+            deleteAll(cacheDir);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.polyglot.Context;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.snapshot.HeapSnapshotRecorder;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Global properties recorded in a heap snapshot and restored into a fresh context.
+ */
+public class HeapSnapshotTest {
+
+    private static byte[] record(String before, String init) {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(JavaScriptLanguage.ID, before);
+            context.enter();
+            try {
+                HeapSnapshotRecorder rec = new HeapSnapshotRecorder(JavaScriptLanguage.getJSRealm(context));
+                context.eval(JavaScriptLanguage.ID, init);
+                ByteBuffer buffer = rec.finish();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                return bytes;
+            } finally {
+                context.leave();
+            }
+        }
+    }
+
+    private static String restoreAndEval(byte[] snapshot, String code) throws IOException {
+        Path file = Files.createTempFile("heap-snapshot", ".bin");
+        try {
+            Files.write(file, snapshot);
+            try (Context context = JSTest.newContextBuilder().allowIO(true).option(JSContextOptions.HEAP_SNAPSHOT_NAME, file.toString()).build()) {
+                return context.eval(JavaScriptLanguage.ID, code).asString();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        String init = "var config = {name: 'app', port: 8080, ratio: 0.5, big: 12345678901234567890n, neg: -5n};\n" +
+                        "config.list = [1, , 'x', null, undefined, true];\n" +
+                        "config.when = new Date(0);\n" +
+                        "config.map = new Map([['a', 1], [2, {deep: 'y'}]]);\n" +
+                        "config.set = new Set(['s', 3]);\n" +
+                        "config.frozen = Object.freeze({k: 1});\n" +
+                        "config.bare = Object.create(null);\n" +
+                        "config.self = config;\n" +
+                        "var shared = config.list;\n" +
+                        "var lone = '\\uD800';";
+        String check = "[config.name, config.port, config.ratio, config.big, config.neg,\n" +
+                        " JSON.stringify(config.list), 1 in config.list, config.list.length,\n" +
+                        " config.when.getTime(), config.map.get('a'), config.map.get(2).deep, config.map.size,\n" +
+                        " config.set.has('s'), config.set.has(3), Object.isFrozen(config.frozen),\n" +
+                        " Object.getPrototypeOf(config.bare) === null, config.self === config, shared === config.list,\n" +
+                        " lone.length, lone.charCodeAt(0)].join();";
+        String expected = "app,8080,0.5,12345678901234567890,-5,[1,null,\"x\",null,null,true],false,6,0,1,y,2,true,true,true,true,true,true,1,55296";
+        assertEquals(expected, restoreAndEval(record("", init), check));
+    }
+
+    @Test
+    public void testOnlyNewGlobals() throws IOException {
+        byte[] snapshot = record("var before = 1;", "var after = 2;");
+        assertEquals("undefined,2", restoreAndEval(snapshot, "[typeof before, after].join();"));
+    }
+
+    @Test
+    public void testUnsupportedValue() {
+        try {
+            record("", "var settings = {handler: function() {}};");
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("settings.handler"));
+        }
+    }
+
+    @Test
+    public void testArrayIntegrityLevels() throws IOException {
+        String init = "var plain = [1, 2]; var nonExtensible = Object.preventExtensions([1, 2]);\n" +
+                        "var sealed = Object.seal([1, 2]); var frozen = Object.freeze([1, 2]);";
+        String check = "[plain, nonExtensible, sealed, frozen].map(a => [Object.isExtensible(a), Object.isSealed(a), Object.isFrozen(a)].join('/')).join();";
+        assertEquals("true/false/false,false/false/false,false/true/false,false/true/true", restoreAndEval(record("", init), check));
+    }
+
+    @Test
+    public void testSparseArray() throws IOException {
+        byte[] snapshot = record("", "var sparse = [1]; sparse[1e9] = 2; var frozen = Object.freeze(sparse.slice(0, 10));");
+        assertTrue(String.valueOf(snapshot.length), snapshot.length < 1000);
+        String check = "[sparse.length, sparse[0], sparse[1e9], 5 in sparse, Object.keys(sparse).length, frozen.length, Object.isFrozen(frozen)].join();";
+        assertEquals("1000000001,1,2,false,2,10,true", restoreAndEval(snapshot, check));
+    }
+
+    @Test
+    public void testArrayElementAttributes() {
+        try {
+            record("", "var list = [1, 2]; Object.defineProperty(list, 1, {writable: false});");
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("list[1]"));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+
+public class JSHashMapTest {
+
+    private static List<Object> keys(JSHashMap.Cursor cursor) {
+        List<Object> keys = new ArrayList<>();
+        while (cursor.advance()) {
+            keys.add(cursor.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testIntKeys() {
+        JSHashMap map = new JSHashMap();
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            map.put(i, "v" + i);
+        }
+        assertEquals(count, map.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("v" + i, map.get(i));
+        }
+        assertNull(map.get(count));
+        assertFalse(map.has(0.5));
+        assertFalse(map.has("0"));
+        for (int i = 0; i < count; i += 2) {
+            assertTrue(map.remove(i));
+        }
+        assertFalse(map.remove(0));
+        assertEquals(count / 2, map.size());
+        JSHashMap.Cursor cursor = map.getEntries();
+        for (int i = 1; i < count; i += 2) {
+            assertTrue(cursor.advance());
+            assertEquals(i, cursor.getKey());
+            assertEquals("v" + i, cursor.getValue());
+        }
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void testDoubleAndStringKeys() {
+        JSHashMap map = new JSHashMap();
+        map.put(0.5, "half");
+        map.put(Double.NaN, "nan");
+        assertEquals("nan", map.get(Double.NaN));
+        assertEquals("half", map.get(0.5));
+        assertNull(map.get(0));
+
+        JSHashMap strings = new JSHashMap();
+        strings.put("a", 1);
+        strings.put(new String("a"), 2);
+        strings.put("b", 3);
+        assertEquals(2, strings.size());
+        assertEquals(2, strings.get("a"));
+    }
+
+    @Test
+    public void testMixedKeys() {
+        JSHashMap map = new JSHashMap();
+        Object object = new Object();
+        map.put(1, "int");
+        map.put(1.5, "double");
+        map.put("1", "string");
+        map.put(true, "boolean");
+        map.put(object, "object");
+        assertEquals(5, map.size());
+        assertEquals("int", map.get(1));
+        assertEquals("double", map.get(1.5));
+        assertEquals("string", map.get("1"));
+        assertEquals("boolean", map.get(true));
+        assertEquals("object", map.get(object));
+        assertEquals(List.of(1, 1.5, "1", true, object), keys(map.getEntries()));
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        JSHashMap map = new JSHashMap();
+        map.put("x", 1);
+        map.put("y", 2);
+        map.put("z", 3);
+        map.remove("x");
+        map.put("x", 4);
+        map.put("y", 5);
+        assertEquals(List.of("y", "z", "x"), keys(map.getEntries()));
+    }
+
+    @Test
+    public void testCursorSurvivesRehash() {
+        JSHashMap map = new JSHashMap();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        JSHashMap.Cursor cursor = map.getEntries();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cursor.advance());
+        }
+        assertEquals(9, cursor.getKey());
+        // removing most entries shrinks the table
+        for (int i = 0; i < 95; i++) {
+            map.remove(i);
+        }
+        // adding entries grows it again
+        for (int i = 100; i < 300; i++) {
+            map.put(i, i);
+        }
+        JSHashMap.Cursor copy = cursor.copy();
+        List<Object> expected = new ArrayList<>();
+        for (int i = 95; i < 300; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, keys(cursor));
+        assertEquals(expected, keys(copy));
+    }
+
+    @Test
+    public void testCursorSurvivesClear() {
+        JSHashMap map = new JSHashMap();
+        map.put("a", 1);
+        map.put("b", 2);
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        map.clear();
+        assertEquals(0, map.size());
+        map.put("c", 3);
+        assertTrue(cursor.advance());
+        assertEquals("c", cursor.getKey());
+        assertFalse(cursor.advance());
+        map.put("d", 4);
+        assertFalse(cursor.advance());
+    }
+}
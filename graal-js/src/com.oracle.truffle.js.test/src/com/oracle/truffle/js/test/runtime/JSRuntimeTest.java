@@ -407,6 +407,16 @@ public class JSRuntimeTest extends JSTest {
         assertEquals('0', JSRuntime.charAt(createLazyString(), 0));
     }
 
+    @Test
+    public void testLazyStringFlatten() {
+        testHelper.getJSContext(); // initializes Context
+
+        CharSequence ascii = JSLazyString.createLazyInt(createLazyString(), 42);
+        assertEquals("0123456789012345678901234567890123456789" + "42", ascii.toString());
+        CharSequence mixed = JSLazyString.create(ascii, "\u20ac\u00e9 nonlatin and latin");
+        assertEquals("0123456789012345678901234567890123456789" + "42" + "\u20ac\u00e9 nonlatin and latin", mixed.toString());
+    }
+
     private static class TestCharSequence implements CharSequence {
         @Override
         public int length() {
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Built-in functions created on first access ({@code js.lazy-builtins}) must be indistinguishable
+ * from eagerly created ones.
+ */
+public class LazyBuiltinsTest {
+
+    private static final String[] OBJECTS = {"Object", "Object.prototype", "Array.prototype", "String.prototype", "Math", "JSON", "Reflect", "Map.prototype", "Set.prototype",
+                    "Promise", "Date.prototype", "Uint8Array.prototype", "globalThis"};
+
+    private static Context newContext(boolean lazy) {
+        return JSTest.newContextBuilder().option(JSContextOptions.LAZY_BUILTINS_NAME, String.valueOf(lazy)).build();
+    }
+
+    private static String describe(Context context, String object) {
+        String code = "var o = " + object + "; Reflect.ownKeys(o).map(k => {" +
+                        "  var d = Object.getOwnPropertyDescriptor(o, k);" +
+                        "  return String(k) + ':' + typeof d.value + ':' + d.writable + d.enumerable + d.configurable +" +
+                        "    (typeof d.value === 'function' ? ':' + d.value.name + ':' + d.value.length : '');" +
+                        "}).join();";
+        return context.eval(ID, code).asString();
+    }
+
+    @Test
+    public void testSameProperties() {
+        try (Context eager = newContext(false); Context lazy = newContext(true)) {
+            for (String object : OBJECTS) {
+                assertEquals(object, describe(eager, object), describe(lazy, object));
+            }
+        }
+    }
+
+    @Test
+    public void testIdentity() {
+        try (Context context = newContext(true)) {
+            assertTrue(context.eval(ID, "Array.prototype.map === Array.prototype.map").asBoolean());
+            assertTrue(context.eval(ID, "Array.prototype.values === Array.prototype[Symbol.iterator]").asBoolean());
+            assertTrue(context.eval(ID, "Set.prototype.values === Set.prototype.keys && Set.prototype.keys === Set.prototype[Symbol.iterator]").asBoolean());
+            assertTrue(context.eval(ID, "var f = Object.getOwnPropertyDescriptor(String.prototype, 'trim').value; f === String.prototype.trim").asBoolean());
+            assertTrue(context.eval(ID, "[3, 1, 2].map(x => x * 2).join() === '6,2,4'").asBoolean());
+        }
+    }
+
+    @Test
+    public void testModification() {
+        try (Context context = newContext(true)) {
+            assertEquals(42, context.eval(ID, "Math.abs = 42; Math.abs").asInt());
+            assertTrue(context.eval(ID, "delete Math.min && !('min' in Math)").asBoolean());
+            assertTrue(context.eval(ID, "Object.defineProperty(Math, 'max', {writable: false}); var d = Object.getOwnPropertyDescriptor(Math, 'max');" +
+                            "!d.writable && d.value(1, 2) === 2").asBoolean());
+            assertTrue(context.eval(ID, "Object.freeze(JSON); var p = JSON.parse; JSON.parse = null; JSON.parse === p && Object.isFrozen(JSON)").asBoolean());
+            assertTrue(context.eval(ID, "var keys = Object.getOwnPropertyNames(Reflect); Reflect.has; Object.getOwnPropertyNames(Reflect).join() === keys.join()").asBoolean());
+        }
+    }
+
+    @Test
+    public void testSharedEngine() {
+        try (Engine engine = JSTest.newEngineBuilder().option(JSContextOptions.LAZY_BUILTINS_NAME, "true").build()) {
+            for (int i = 0; i < 3; i++) {
+                try (Context context = JSTest.newContextBuilder().engine(engine).build()) {
+                    assertTrue(context.eval(ID, "typeof Math.max === 'function' && Math.max.marker === undefined").asBoolean());
+                    assertTrue(context.eval(ID, "Object.getPrototypeOf(Array.prototype.map) === Function.prototype").asBoolean());
+                    context.eval(ID, "Math.max.marker = 1; Math.min = null;");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Module graphs whose dependencies are parsed in the background.
+ */
+public class ModulePrefetchTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("module-prefetch");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (File file : dir.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(dir);
+    }
+
+    private void writeModule(String name, String code) throws IOException {
+        Files.write(dir.resolve(name), code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String evalMain() throws IOException {
+        return evalMain(true);
+    }
+
+    private String evalMain(boolean allowCreateThread) throws IOException {
+        try (Context context = JSTest.newContextBuilder().allowIO(true).allowCreateThread(allowCreateThread).option(JSContextOptions.MODULE_PREFETCH_NAME, "true").build()) {
+            Source main = Source.newBuilder(JavaScriptLanguage.ID, dir.resolve("main.mjs").toFile()).build();
+            return context.eval(main).asString();
+        }
+    }
+
+    @Test
+    public void testEvaluationOrder() throws IOException {
+        writeModule("log.mjs", "export const log = [];");
+        writeModule("a.mjs", "import { log } from './log.mjs'; import './c.mjs'; log.push('a');");
+        writeModule("b.mjs", "import { log } from './log.mjs'; import './c.mjs'; import './d.mjs'; log.push('b');");
+        writeModule("c.mjs", "import { log } from './log.mjs'; log.push('c');");
+        writeModule("d.mjs", "import { log } from './log.mjs'; import { a } from './cycle.mjs'; log.push('d' + a());");
+        writeModule("cycle.mjs", "import './d.mjs'; export function a() { return /x/.source; }");
+        writeModule("main.mjs", "import { log } from './log.mjs'; import './a.mjs'; import './b.mjs'; log.join();");
+        assertEquals("c,a,dx,b", evalMain());
+    }
+
+    @Test
+    public void testLargeGraph() throws IOException {
+        // more modules than can be prefetched at once, found both in depth and in breadth
+        int count = 200;
+        StringBuilder main = new StringBuilder("import { log } from './log.mjs';");
+        for (int i = 0; i < count; i++) {
+            String next = i + 1 < count ? "import './m" + (i + 1) + ".mjs';" : "";
+            writeModule("m" + i + ".mjs", "import { log } from './log.mjs';" + next + "log.push(" + i + ");");
+            main.append("import './m").append(count - 1 - i).append(".mjs';");
+        }
+        writeModule("log.mjs", "export const log = [];");
+        writeModule("main.mjs", main.append("log.length + ':' + log[0] + ':' + log[" + (count - 1) + "];").toString());
+        assertEquals(count + ":" + (count - 1) + ":0", evalMain());
+    }
+
+    @Test
+    public void testSyntaxError() throws IOException {
+        writeModule("ok.mjs", "export const ok = 1;");
+        writeModule("bad.mjs", "export const bad = ;");
+        writeModule("main.mjs", "import { ok } from './ok.mjs'; import { bad } from './bad.mjs'; '' + ok + bad;");
+        try {
+            evalMain();
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.isSyntaxError());
+            assertTrue(e.getMessage(), e.getMessage().contains("bad.mjs"));
+        }
+    }
+
+    @Test
+    public void testInvalidRegExp() throws IOException {
+        writeModule("regex.mjs", "export const re = /(/;");
+        writeModule("main.mjs", "import { re } from './regex.mjs'; '' + re;");
+        try {
+            evalMain();
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.isSyntaxError());
+        }
+    }
+
+    @Test
+    public void testThreadCreationNotAllowed() throws IOException {
+        writeModule("a.mjs", "export const a = 'a';");
+        writeModule("main.mjs", "import { a } from './a.mjs'; a;");
+        assertEquals("a", evalMain(false));
+    }
+}
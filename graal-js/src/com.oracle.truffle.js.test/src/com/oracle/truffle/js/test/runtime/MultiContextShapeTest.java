@@ -42,6 +42,7 @@ package com.oracle.truffle.js.test.runtime;
 
 import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
@@ -91,6 +92,29 @@ public class MultiContextShapeTest {
         testSameShapeAcrossContexts("class C extends null {} C;");
     }
 
+    @Test
+    public void builtinObjectShape() {
+        testSameShapeAcrossContexts("Math;");
+        testSameShapeAcrossContexts("JSON;");
+        testSameShapeAcrossContexts("Object;");
+        testSameShapeAcrossContexts("Array.prototype;");
+    }
+
+    @Test
+    public void builtinFunctionsPerRealm() {
+        try (Engine engine = JSTest.newEngineBuilder().build()) {
+            for (int i = 0; i < 3; i++) {
+                try (Context c = JSTest.newContextBuilder().engine(engine).build()) {
+                    assertTrue(c.eval(ID, "Math.max === Math.max && Math.max(1, 3, 2) === 3").asBoolean());
+                    assertTrue(c.eval(ID, "Object.getPrototypeOf(Math.max) === Function.prototype").asBoolean());
+                    assertTrue(c.eval(ID, "Object.getOwnPropertyDescriptor(Math, 'abs').writable && !Object.getOwnPropertyDescriptor(Math, 'abs').enumerable").asBoolean());
+                    assertTrue(c.eval(ID, "Math.abs.marker === undefined").asBoolean());
+                    c.eval(ID, "Math.abs.marker = 42; delete Math.min;");
+                }
+            }
+        }
+    }
+
     private static void testSameShapeAcrossContexts(String source) {
         try (Engine engine = JSTest.newEngineBuilder().build()) {
             Shape lastShape = null;
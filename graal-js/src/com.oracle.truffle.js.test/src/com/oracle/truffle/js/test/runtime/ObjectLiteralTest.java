@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Object literals created repeatedly at the same allocation site.
+ */
+public class ObjectLiteralTest {
+
+    private static String eval(String source) {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, source);
+            return result.asString();
+        }
+    }
+
+    @Test
+    public void testChangingValueTypes() {
+        String source = "function f(x, y) { return {a: x, b: y, c: 'c'}; }\n" +
+                        "var r = [];\n" +
+                        "for (var i = 0; i < 5; i++) { r.push(f(i, i + 1)); }\n" +
+                        "r.push(f(1.5, 'str'));\n" +
+                        "r.push(f({}, undefined));\n" +
+                        "r.push(f(7, 8));\n" +
+                        "JSON.stringify(r);";
+        assertEquals("[{\"a\":0,\"b\":1,\"c\":\"c\"},{\"a\":1,\"b\":2,\"c\":\"c\"},{\"a\":2,\"b\":3,\"c\":\"c\"},{\"a\":3,\"b\":4,\"c\":\"c\"},{\"a\":4,\"b\":5,\"c\":\"c\"}," +
+                        "{\"a\":1.5,\"b\":\"str\",\"c\":\"c\"},{\"a\":{},\"c\":\"c\"},{\"a\":7,\"b\":8,\"c\":\"c\"}]", eval(source));
+    }
+
+    @Test
+    public void testDuplicateNames() {
+        String source = "function f(x) { return {a: x, b: 2, a: x + 1}; }\n" +
+                        "var r = [];\n" +
+                        "for (var i = 0; i < 5; i++) { r.push(f(i)); }\n" +
+                        "JSON.stringify(r) + Object.keys(r[4]).join();";
+        assertEquals("[{\"a\":1,\"b\":2},{\"a\":2,\"b\":2},{\"a\":3,\"b\":2},{\"a\":4,\"b\":2},{\"a\":5,\"b\":2}]a,b", eval(source));
+    }
+
+    @Test
+    public void testEvaluationOrder() {
+        String source = "var log = [];\n" +
+                        "function v(x) { log.push(x); return x; }\n" +
+                        "function f() { return {a: v(1), b: v(2), c: v(3)}; }\n" +
+                        "for (var i = 0; i < 5; i++) { f(); }\n" +
+                        "var o = f(); o.d = 4; log.join('') + ':' + Object.keys(o).join();";
+        assertEquals("123123123123123123:a,b,c,d", eval(source));
+    }
+}
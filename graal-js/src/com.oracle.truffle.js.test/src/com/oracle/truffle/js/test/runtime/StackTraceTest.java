@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Stack traces are captured as raw frames and only symbolized when they are used.
+ */
+public class StackTraceTest {
+
+    private static String eval(String code) {
+        return eval(code, false);
+    }
+
+    private static String eval(String code, boolean v8CompatibilityMode) {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.V8_COMPATIBILITY_MODE_NAME, String.valueOf(v8CompatibilityMode)).build()) {
+            return context.eval(Source.newBuilder(JavaScriptLanguage.ID, code, "test.js").buildLiteral()).asString();
+        }
+    }
+
+    @Test
+    public void testSymbolizedAfterCapture() {
+        String code = "function make() { return new Error('x'); }\n" +
+                        "var errors = [];\n" +
+                        "for (var i = 0; i < 3; i++) { errors.push(make()); }\n" +
+                        "function read(e) { return e.stack; }\n" +
+                        "read(errors[2]);";
+        String stack = eval(code);
+        assertTrue(stack, stack.startsWith("Error: x\n    at make (test.js:1:"));
+        assertTrue(stack, stack.contains("\n    at test.js:3:"));
+        assertFalse(stack, stack.contains("read"));
+    }
+
+    @Test
+    public void testSharedLocationDifferentReceivers() {
+        String code = "function f() { return new Error().stack.split('\\n')[1]; }\n" +
+                        "function Foo() {} Foo.prototype.f = f;\n" +
+                        "function Bar() {} Bar.prototype.f = f;\n" +
+                        "[new Foo().f(), new Bar().f(), new Foo().f()].join('|');";
+        String[] frames = eval(code).split("\\|");
+        assertEquals(3, frames.length);
+        assertTrue(frames[0], frames[0].startsWith("    at Foo.f (test.js:1:"));
+        assertTrue(frames[1], frames[1].startsWith("    at Bar.f (test.js:1:"));
+        assertEquals(frames[0], frames[2]);
+        assertEquals(frames[0].substring(frames[0].indexOf('(')), frames[1].substring(frames[1].indexOf('(')));
+    }
+
+    @Test
+    public void testPrepareStackTrace() {
+        String code = "Error.prepareStackTrace = function(e, frames) {\n" +
+                        "  return frames.map(function(f) { return f.getFunctionName() + ':' + f.getLineNumber(); }).join();\n" +
+                        "};\n" +
+                        "function g() { return new Error().stack; }\n" +
+                        "function h() { return g(); }\n" +
+                        "h();";
+        String stack = eval(code);
+        assertTrue(stack, stack.startsWith("g:4,h:5,"));
+    }
+
+    @Test
+    public void testCaptureStackTraceSkipsFrames() {
+        String code = "function inner() { var o = {}; Error.captureStackTrace(o, inner); return o.stack; }\n" +
+                        "function outer() { return inner(); }\n" +
+                        "outer();";
+        String stack = eval(code);
+        assertFalse(stack, stack.contains("at inner"));
+        assertTrue(stack, stack.contains("at outer (test.js:2:"));
+    }
+
+    @Test
+    public void testLocationFormatsV8CompatibilityMode() {
+        String code = "function make() { return eval('new Error()'); }\n" +
+                        "var stack = make().stack.split('\\n')[1];\n" +
+                        "Error.prepareStackTrace = function(e, frames) { return String(frames[0]); };\n" +
+                        "var callSite = make().stack;\n" +
+                        "[stack, callSite].join('|');";
+        String[] frames = eval(code, true).split("\\|");
+        assertEquals(2, frames.length);
+        // the stack property keeps its format, only CallSite.toString describes the eval origin
+        assertFalse(frames[0], frames[0].contains("<anonymous>"));
+        assertTrue(frames[1], frames[1].contains(", <anonymous>:1:1"));
+    }
+}
@@ -50,10 +50,14 @@ import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
@@ -72,6 +76,7 @@ import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.ValueProfile;
+import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.js.builtins.ArrayPrototypeBuiltinsFactory.DeleteAndSetLengthNodeGen;
 import com.oracle.truffle.js.builtins.ArrayPrototypeBuiltinsFactory.FlattenIntoArrayNodeGen;
 import com.oracle.truffle.js.builtins.ArrayPrototypeBuiltinsFactory.JSArrayConcatNodeGen;
@@ -147,6 +152,7 @@ import com.oracle.truffle.js.nodes.unary.JSIsArrayNode;
 import com.oracle.truffle.js.runtime.Boundaries;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSArguments;
+import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRealm;
 import com.oracle.truffle.js.runtime.JSRuntime;
@@ -155,6 +161,9 @@ import com.oracle.truffle.js.runtime.Symbol;
 import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.SparseArray;
 import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.TypedArray.AbstractUint32Array;
+import com.oracle.truffle.js.runtime.array.TypedArray.TypedFloatArray;
+import com.oracle.truffle.js.runtime.array.TypedArray.TypedIntArray;
 import com.oracle.truffle.js.runtime.array.dyn.AbstractDoubleArray;
 import com.oracle.truffle.js.runtime.array.dyn.AbstractIntArray;
 import com.oracle.truffle.js.runtime.array.dyn.ConstantByteArray;
@@ -2461,6 +2470,20 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
 
     public abstract static class JSArraySortNode extends JSArrayOperation {
 
+        /** Shorter arrays are not worth checking the source of the comparator. */
+        private static final int NUMERIC_COMPARATOR_MIN_LENGTH = 32;
+        private static final String IDENTIFIER = "([A-Za-z_$][\\w$]*)";
+        private static final String PARAMETERS = "\\(\\s*" + IDENTIFIER + "\\s*,\\s*" + IDENTIFIER + "\\s*\\)\\s*";
+        private static final String DIFFERENCE = IDENTIFIER + "\\s*-\\s*" + IDENTIFIER;
+        private static final Pattern[] NUMERIC_COMPARATOR_PATTERNS = {
+                        Pattern.compile("function\\s*[\\w$]*\\s*" + PARAMETERS + "\\{\\s*return\\s+" + DIFFERENCE + "\\s*;?\\s*\\}"),
+                        Pattern.compile(PARAMETERS + "=>\\s*" + DIFFERENCE),
+                        Pattern.compile(PARAMETERS + "=>\\s*\\{\\s*return\\s+" + DIFFERENCE + "\\s*;?\\s*\\}"),
+        };
+        /** Number of decimal digits of an int, and 11^10, the first key of a non-negative int. */
+        private static final int STRING_ORDER_KEY_DIGITS = 10;
+        private static final long STRING_ORDER_KEY_NON_NEGATIVE = 25937424601L;
+
         @Child private DeletePropertyNode deletePropertyNode; // DeletePropertyOrThrow
         private final BranchProfile arrayIsSparseBranch = BranchProfile.create();
         private final BranchProfile arrayHasHolesBranch = BranchProfile.create();
@@ -2468,6 +2491,8 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
         private final BranchProfile hasCompareFnBranch = BranchProfile.create();
         private final BranchProfile noCompareFnBranch = BranchProfile.create();
         private final BranchProfile growProfile = BranchProfile.create();
+        private final ConditionProfile numericArrayProfile = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile numericTypedArrayProfile = ConditionProfile.createBinaryProfile();
         @Child private InteropLibrary interopNode;
         @Child private JSForeignToJSTypeNode importValueNode;
 
@@ -2496,6 +2521,9 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
                 array = getArraySparse(thisObj, scriptArray, len);
             } else {
                 arrayIsDefaultBranch.enter();
+                if (numericArrayProfile.profile(scriptArray instanceof AbstractIntArray || scriptArray instanceof AbstractDoubleArray) && sortNumericArray(thisObj, scriptArray, compare)) {
+                    return thisObj;
+                }
                 array = arrayToObjectArrayNode.executeObjectArray(thisObj);
             }
 
@@ -2534,6 +2562,12 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             checkCompareFunction(comparefn);
             Object thisJSObj = toObject(thisObj);
             if (isJSObject.profile(JSObject.isJSObject(thisJSObj))) {
+                if (isTypedArrayImplementation) {
+                    validateTypedArray(thisJSObj);
+                    if (numericTypedArrayProfile.profile(comparefn == Undefined.instance) && sortNumericTypedArray((DynamicObject) thisJSObj)) {
+                        return thisJSObj;
+                    }
+                }
                 return sortJSObject(comparefn, (DynamicObject) thisJSObj);
             } else {
                 return sortTruffleObject(comparefn, thisJSObj);
@@ -2642,6 +2676,219 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             return list.toArray(new Object[list.size()]);
         }
 
+        /**
+         * Sorts the elements of an int or double array without holes in place using a primitive
+         * sort. Supported are int arrays in the default order of {@code Array.prototype.sort} and
+         * int or double arrays with a comparator recognized by {@link #numericComparatorOrder}.
+         *
+         * @return false if the array has to be sorted by the generic path
+         */
+        @TruffleBoundary
+        private static boolean sortNumericArray(DynamicObject thisObj, ScriptArray scriptArray, Object compare) {
+            if (JSObject.isFrozen(thisObj)) {
+                // the generic path throws the TypeError for the element writes
+                return false;
+            }
+            boolean condition = JSArray.isJSArray(thisObj);
+            int len = scriptArray.lengthInt(thisObj, condition);
+            int order;
+            if (compare == Undefined.instance) {
+                // the default order of doubles depends on their string conversion
+                if (!(scriptArray instanceof AbstractIntArray)) {
+                    return false;
+                }
+                order = 0;
+            } else {
+                if (len < NUMERIC_COMPARATOR_MIN_LENGTH) {
+                    return false;
+                }
+                order = numericComparatorOrder(compare);
+                if (order == 0) {
+                    return false;
+                }
+            }
+            if (scriptArray instanceof AbstractIntArray) {
+                AbstractIntArray intArray = (AbstractIntArray) scriptArray;
+                if (order == 0) {
+                    long[] keys = new long[len];
+                    for (int i = 0; i < len; i++) {
+                        keys[i] = toStringOrderKey(intArray.getInBoundsFastInt(thisObj, i, condition));
+                    }
+                    sortPrimitive(keys);
+                    for (int i = 0; i < len; i++) {
+                        intArray.setInBoundsFast(thisObj, i, fromStringOrderKey(keys[i]), condition);
+                    }
+                } else {
+                    int[] values = new int[len];
+                    for (int i = 0; i < len; i++) {
+                        values[i] = intArray.getInBoundsFastInt(thisObj, i, condition);
+                    }
+                    sortPrimitive(values);
+                    for (int i = 0; i < len; i++) {
+                        intArray.setInBoundsFast(thisObj, i, values[order > 0 ? i : len - 1 - i], condition);
+                    }
+                }
+            } else {
+                AbstractDoubleArray doubleArray = (AbstractDoubleArray) scriptArray;
+                double[] values = new double[len];
+                for (int i = 0; i < len; i++) {
+                    double value = doubleArray.getInBoundsFastDouble(thisObj, i, condition);
+                    if (Double.isNaN(value) || JSRuntime.isNegativeZero(value)) {
+                        // the comparator treats these as equal to other values, the sort must be
+                        // stable
+                        return false;
+                    }
+                    values[i] = value;
+                }
+                sortPrimitive(values);
+                for (int i = 0; i < len; i++) {
+                    doubleArray.setInBoundsFast(thisObj, i, values[order > 0 ? i : len - 1 - i], condition);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Recognizes comparators that subtract their parameters, i.e. {@code (a, b) => a - b} and
+         * {@code function (a, b) { return a - b; }}. For numbers, such a comparator orders like
+         * the primitive sort, and calling it has no observable effects.
+         *
+         * @return 1 for {@code a - b}, -1 for {@code b - a}, 0 if the comparator is not recognized
+         */
+        private static int numericComparatorOrder(Object compare) {
+            if (!JSFunction.isJSFunction(compare) || JSFunction.isBoundFunction((DynamicObject) compare)) {
+                return 0;
+            }
+            CallTarget callTarget = JSFunction.getCallTarget((DynamicObject) compare);
+            if (!(callTarget instanceof RootCallTarget)) {
+                return 0;
+            }
+            SourceSection sourceSection = ((RootCallTarget) callTarget).getRootNode().getSourceSection();
+            if (sourceSection == null || !sourceSection.isAvailable()) {
+                return 0;
+            }
+            CharSequence code = sourceSection.getCharacters();
+            for (Pattern pattern : NUMERIC_COMPARATOR_PATTERNS) {
+                Matcher matcher = pattern.matcher(code);
+                if (matcher.matches()) {
+                    String first = matcher.group(1);
+                    String second = matcher.group(2);
+                    if (first.equals(second)) {
+                        return 0;
+                    } else if (first.equals(matcher.group(3)) && second.equals(matcher.group(4))) {
+                        return 1;
+                    } else if (second.equals(matcher.group(3)) && first.equals(matcher.group(4))) {
+                        return -1;
+                    }
+                    return 0;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Maps an int to a key whose numeric order is the order of the decimal strings of the ints.
+         * The digits are stored left-aligned as base-11 digits, 0 marks the end of the string, and
+         * negative numbers ("-" sorts before all digits) come first.
+         */
+        private static long toStringOrderKey(int value) {
+            long magnitude = Math.abs((long) value);
+            long divisor = 1;
+            while (divisor * 10 <= magnitude) {
+                divisor *= 10;
+            }
+            long key = 0;
+            for (int i = 0; i < STRING_ORDER_KEY_DIGITS; i++) {
+                key *= 11;
+                if (divisor > 0) {
+                    key += magnitude / divisor % 10 + 1;
+                    divisor /= 10;
+                }
+            }
+            return value < 0 ? key : key + STRING_ORDER_KEY_NON_NEGATIVE;
+        }
+
+        private static int fromStringOrderKey(long key) {
+            boolean negative = key < STRING_ORDER_KEY_NON_NEGATIVE;
+            long digits = negative ? key : key - STRING_ORDER_KEY_NON_NEGATIVE;
+            long divisor = STRING_ORDER_KEY_NON_NEGATIVE / 11;
+            long magnitude = 0;
+            for (int i = 0; i < STRING_ORDER_KEY_DIGITS; i++) {
+                long digit = digits / divisor % 11;
+                if (digit == 0) {
+                    break;
+                }
+                magnitude = magnitude * 10 + digit - 1;
+                divisor /= 11;
+            }
+            return (int) (negative ? -magnitude : magnitude);
+        }
+
+        private static void sortPrimitive(int[] values) {
+            if (values.length >= JSConfig.ParallelSortThreshold) {
+                Arrays.parallelSort(values);
+            } else {
+                Arrays.sort(values);
+            }
+        }
+
+        private static void sortPrimitive(long[] values) {
+            if (values.length >= JSConfig.ParallelSortThreshold) {
+                Arrays.parallelSort(values);
+            } else {
+                Arrays.sort(values);
+            }
+        }
+
+        private static void sortPrimitive(double[] values) {
+            if (values.length >= JSConfig.ParallelSortThreshold) {
+                Arrays.parallelSort(values);
+            } else {
+                Arrays.sort(values);
+            }
+        }
+
+        /**
+         * Sorts the elements of a non-BigInt typed array in place, in the default order of
+         * {@code TypedArray.prototype.sort} without a comparator.
+         *
+         * @return false if the typed array has to be sorted by the generic path
+         */
+        @TruffleBoundary
+        private static boolean sortNumericTypedArray(DynamicObject thisObj) {
+            TypedArray typedArray = JSArrayBufferView.typedArrayGetArrayType(thisObj);
+            if (!(typedArray instanceof TypedIntArray || typedArray instanceof TypedFloatArray)) {
+                return false;
+            }
+            boolean condition = JSArrayBufferView.isJSArrayBufferView(thisObj);
+            int len = typedArray.lengthInt(thisObj, condition);
+            if (typedArray instanceof TypedIntArray) {
+                TypedIntArray<?> intArray = (TypedIntArray<?>) typedArray;
+                // flipping the sign bit maps the unsigned order to the signed one
+                int bias = typedArray instanceof AbstractUint32Array ? Integer.MIN_VALUE : 0;
+                int[] values = new int[len];
+                for (int i = 0; i < len; i++) {
+                    values[i] = intArray.getInt(thisObj, i, condition) ^ bias;
+                }
+                sortPrimitive(values);
+                for (int i = 0; i < len; i++) {
+                    intArray.setInt(thisObj, i, values[i] ^ bias, condition);
+                }
+            } else {
+                TypedFloatArray<?> floatArray = (TypedFloatArray<?>) typedArray;
+                double[] values = new double[len];
+                for (int i = 0; i < len; i++) {
+                    values[i] = floatArray.getDouble(thisObj, i, condition);
+                }
+                // Arrays.sort orders doubles like TypedArray SortCompare (-0 before +0, NaN last)
+                sortPrimitive(values);
+                for (int i = 0; i < len; i++) {
+                    floatArray.setDouble(thisObj, i, values[i], condition);
+                }
+            }
+            return true;
+        }
+
         @TruffleBoundary
         private static void sortIntl(Comparator<Object> comparator, Object[] array) {
             try {
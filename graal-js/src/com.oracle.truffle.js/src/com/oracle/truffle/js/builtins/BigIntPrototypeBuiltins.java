@@ -58,11 +58,13 @@ import com.oracle.truffle.js.runtime.BigInt;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSException;
+import com.oracle.truffle.js.runtime.JSRealm;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSBigInt;
 import com.oracle.truffle.js.runtime.builtins.JSNumberFormat;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.IntlUtil;
 
 /**
  * Contains builtins for {@linkplain JSBigInt}.prototype.
@@ -196,8 +198,19 @@ public final class BigIntPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
 
         @TruffleBoundary
         private DynamicObject createNumberFormat(Object locales, Object options) {
+            JSRealm realm = getContext().getRealm();
+            String cacheKey = IntlUtil.localeFormatterCacheKey(JSNumberFormat.CLASS_NAME, locales, options);
+            if (cacheKey != null) {
+                DynamicObject cached = realm.getCachedLocaleFormatter(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
             DynamicObject numberFormatObj = JSNumberFormat.create(getContext());
             initNumberFormatNode.executeInit(numberFormatObj, locales, options);
+            if (cacheKey != null) {
+                realm.cacheLocaleFormatter(cacheKey, numberFormatObj);
+            }
             return numberFormatObj;
         }
 
@@ -43,6 +43,7 @@ package com.oracle.truffle.js.builtins;
 import java.util.EnumSet;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.object.DynamicObject;
@@ -91,12 +92,14 @@ import com.oracle.truffle.js.nodes.intl.InitializeDateTimeFormatNode;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSArguments;
 import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.Symbol;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSDate;
 import com.oracle.truffle.js.runtime.builtins.JSDateTimeFormat;
 import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.util.IntlUtil;
 
 /**
  * Contains builtins for {@linkplain JSDate}.prototype.
@@ -354,9 +357,25 @@ public final class DatePrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<
             }
         }
 
-        protected DynamicObject createDateTimeFormat(InitializeDateTimeFormatNode initDateTimeFormatNode, Object locales, Object options) {
+        /**
+         * Creates the DateTimeFormat used by a toLocale*String method; {@code kind} distinguishes
+         * the required and default components of the method in the realm's formatter cache.
+         */
+        @TruffleBoundary
+        protected DynamicObject createDateTimeFormat(InitializeDateTimeFormatNode initDateTimeFormatNode, String kind, Object locales, Object options) {
+            JSRealm realm = getContext().getRealm();
+            String cacheKey = IntlUtil.localeFormatterCacheKey(kind, locales, options);
+            if (cacheKey != null) {
+                DynamicObject cached = realm.getCachedLocaleFormatter(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
             DynamicObject dateTimeFormatObj = JSDateTimeFormat.create(getContext());
             initDateTimeFormatNode.executeInit(dateTimeFormatObj, locales, options);
+            if (cacheKey != null) {
+                realm.cacheLocaleFormatter(cacheKey, dateTimeFormatObj);
+            }
             return dateTimeFormatObj;
         }
     }
@@ -420,7 +439,7 @@ public final class DatePrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<
             if (isNaN.profile(Double.isNaN(t))) {
                 return JSDate.INVALID_DATE_STRING;
             }
-            DynamicObject formatter = createDateTimeFormat(initDateTimeFormatNode, locales, options);
+            DynamicObject formatter = createDateTimeFormat(initDateTimeFormatNode, JSDateTimeFormat.CLASS_NAME, locales, options);
             return JSDateTimeFormat.format(getContext(), formatter, t);
         }
     }
@@ -488,7 +507,7 @@ public final class DatePrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<
             if (isNaN.profile(Double.isNaN(t))) {
                 return JSDate.INVALID_DATE_STRING;
             }
-            DynamicObject formatter = createDateTimeFormat(initDateTimeFormatNode, locales, options);
+            DynamicObject formatter = createDateTimeFormat(initDateTimeFormatNode, JSDateTimeFormat.CLASS_NAME + ".date", locales, options);
             return JSDateTimeFormat.format(getContext(), formatter, t);
         }
     }
@@ -524,7 +543,7 @@ public final class DatePrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<
             if (isNaN.profile(Double.isNaN(t))) {
                 return JSDate.INVALID_DATE_STRING;
             }
-            DynamicObject formatter = createDateTimeFormat(initDateTimeFormatNode, locales, options);
+            DynamicObject formatter = createDateTimeFormat(initDateTimeFormatNode, JSDateTimeFormat.CLASS_NAME + ".time", locales, options);
             return JSDateTimeFormat.format(getContext(), formatter, t);
         }
     }
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins;
+
+import static com.oracle.truffle.js.runtime.util.BufferUtil.asBaseBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalFlushArrayBufferNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalMapFileNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalParseJSONNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalStringifyJSONNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalUnmapArrayBufferNodeGen;
+import com.oracle.truffle.js.builtins.JSONBuiltins.JSONParseNode;
+import com.oracle.truffle.js.builtins.helper.CreateJSONDataNode;
+import com.oracle.truffle.js.builtins.helper.JSONData;
+import com.oracle.truffle.js.builtins.helper.JSONSink;
+import com.oracle.truffle.js.builtins.helper.JSONStringifyStringNode;
+import com.oracle.truffle.js.builtins.helper.TruffleJSONByteParser;
+import com.oracle.truffle.js.builtins.helper.TruffleJSONParser;
+import com.oracle.truffle.js.nodes.function.JSBuiltin;
+import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
+import com.oracle.truffle.js.runtime.builtins.JSDataView;
+import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.JSAttributes;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Contains builtins for the {@code Graal} object.
+ */
+public final class GraalBuiltins extends JSBuiltinsContainer.Lambda {
+
+    public static final JSBuiltinsContainer BUILTINS = new GraalBuiltins();
+
+    protected GraalBuiltins() {
+        super(JSRealm.GRAAL_CLASS_NAME);
+        defineFunction("parseJSON", 2, JSAttributes.getDefaultNotEnumerable(), (context, builtin) -> GraalParseJSONNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context)));
+        defineFunction("stringifyJSON", 4, JSAttributes.getDefaultNotEnumerable(),
+                        (context, builtin) -> GraalStringifyJSONNodeGen.create(context, builtin, args().fixedArgs(4).createArgumentNodes(context)));
+        defineFunction("mapFile", 2, JSAttributes.getDefaultNotEnumerable(), (context, builtin) -> GraalMapFileNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context)));
+        defineFunction("flushArrayBuffer", 1, JSAttributes.getDefaultNotEnumerable(),
+                        (context, builtin) -> GraalFlushArrayBufferNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context)));
+        defineFunction("unmapArrayBuffer", 1, JSAttributes.getDefaultNotEnumerable(),
+                        (context, builtin) -> GraalUnmapArrayBufferNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context)));
+    }
+
+    /**
+     * Like {@code JSON.parse}, but additionally accepts UTF-8 encoded input in an
+     * {@code ArrayBuffer}, {@code SharedArrayBuffer}, {@code TypedArray}, {@code DataView}, or a
+     * host {@link ByteBuffer}, {@code byte[]} or {@link InputStream}. Such input is parsed without
+     * materializing it as a String first.
+     */
+    public abstract static class GraalParseJSONNode extends JSBuiltinNode {
+
+        public GraalParseJSONNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object parse(Object input, Object reviver) {
+            Object unfiltered = parseIntl(input);
+            if (JSRuntime.isCallable(reviver)) {
+                return JSONParseNode.internalize(getContext(), unfiltered, (DynamicObject) reviver);
+            }
+            return unfiltered;
+        }
+
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        private Object parseIntl(Object input) {
+            if (JSRuntime.isString(input)) {
+                // same as JSON.parse: a leading byte order mark is a syntax error
+                return new TruffleJSONParser(getContext()).parse(JSRuntime.toStringIsString(input));
+            }
+            if (JSAbstractBuffer.isJSAbstractBuffer(input)) {
+                return parseBytes(bufferContents((DynamicObject) input, 0, -1));
+            } else if (JSArrayBufferView.isJSArrayBufferView(input)) {
+                DynamicObject view = (DynamicObject) input;
+                if (JSArrayBufferView.hasDetachedBuffer(view, getContext())) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                int offset = JSArrayBufferView.getByteOffset(view, true, getContext());
+                int length = JSArrayBufferView.getByteLength(view, true, getContext());
+                return parseBytes(bufferContents(JSArrayBufferView.getArrayBuffer(view), offset, length));
+            } else if (JSDataView.isJSDataView(input)) {
+                DynamicObject view = (DynamicObject) input;
+                int offset = JSDataView.typedArrayGetOffsetChecked(view);
+                int length = JSDataView.typedArrayGetLengthChecked(view);
+                return parseBytes(bufferContents(JSDataView.getArrayBuffer(view), offset, length));
+            }
+            Env env = getContext().getRealm().getEnv();
+            if (env.isHostObject(input)) {
+                Object hostObject = env.asHostObject(input);
+                if (hostObject instanceof ByteBuffer) {
+                    return parseBytes((ByteBuffer) hostObject);
+                } else if (hostObject instanceof byte[]) {
+                    return parseBytes(ByteBuffer.wrap((byte[]) hostObject));
+                } else if (hostObject instanceof InputStream) {
+                    return new TruffleJSONByteParser(getContext()).parse((InputStream) hostObject);
+                }
+            }
+            throw Errors.createTypeError("string, ArrayBuffer, ArrayBufferView, ByteBuffer, byte[] or InputStream expected");
+        }
+
+        private Object parseBytes(ByteBuffer bytes) {
+            return new TruffleJSONByteParser(getContext()).parse(bytes);
+        }
+
+        /**
+         * Returns a view of the given region of the buffer's contents. A negative length denotes
+         * the whole buffer.
+         */
+        private static ByteBuffer bufferContents(DynamicObject arrayBuffer, int offset, int length) {
+            ByteBuffer contents;
+            if (JSSharedArrayBuffer.isJSSharedArrayBuffer(arrayBuffer)) {
+                contents = JSSharedArrayBuffer.getDirectByteBuffer(arrayBuffer).duplicate();
+            } else if (JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                throw Errors.createTypeErrorDetachedBuffer();
+            } else if (JSArrayBuffer.isJSHeapArrayBuffer(arrayBuffer)) {
+                contents = ByteBuffer.wrap(JSAbstractBuffer.getByteArray(arrayBuffer));
+            } else {
+                contents = JSArrayBuffer.getDirectByteBuffer(arrayBuffer).duplicate();
+            }
+            if (length >= 0) {
+                asBaseBuffer(contents).limit(offset + length);
+                asBaseBuffer(contents).position(offset);
+            }
+            return contents;
+        }
+    }
+
+    /**
+     * Like {@code JSON.stringify(value, replacer, space)}, but streams the UTF-8 encoded output
+     * into a sink instead of returning it as a string. The sink can be a host {@link OutputStream}
+     * or {@link ByteBuffer}, or a function that is called with string chunks. The output is written
+     * in chunks of {@link JSONSink#DEFAULT_CHUNK_SIZE} characters, so memory use does not depend on
+     * the size of the output. Returns the number of bytes (for a function: characters) written, or
+     * {@code undefined} if the value is not serializable.
+     */
+    public abstract static class GraalStringifyJSONNode extends JSBuiltinNode {
+        @Child private JSONStringifyStringNode stringifyNode;
+        @Child private CreateJSONDataNode createJSONDataNode;
+
+        public GraalStringifyJSONNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+            this.stringifyNode = JSONStringifyStringNode.create(context);
+            this.createJSONDataNode = CreateJSONDataNode.create();
+        }
+
+        @Specialization
+        protected Object stringify(Object value, Object sink, Object replacer, Object space) {
+            JSONData data = createJSONDataNode.execute(replacer, space, createSink(sink));
+            DynamicObject wrapper = JSUserObject.create(getContext());
+            JSRuntime.createDataProperty(wrapper, "", value);
+            return stringifyNode.execute(data, "", wrapper);
+        }
+
+        @TruffleBoundary
+        private JSONSink createSink(Object sink) {
+            if (JSRuntime.isCallable(sink) && JSObject.isJSObject(sink)) {
+                return JSONSink.forFunction((DynamicObject) sink, JSONSink.DEFAULT_CHUNK_SIZE);
+            }
+            Env env = getContext().getRealm().getEnv();
+            if (env.isHostObject(sink)) {
+                Object hostObject = env.asHostObject(sink);
+                if (hostObject instanceof OutputStream) {
+                    return JSONSink.forOutputStream((OutputStream) hostObject, JSONSink.DEFAULT_CHUNK_SIZE);
+                } else if (hostObject instanceof ByteBuffer) {
+                    return JSONSink.forByteBuffer((ByteBuffer) hostObject, JSONSink.DEFAULT_CHUNK_SIZE);
+                }
+            }
+            throw Errors.createTypeError("OutputStream, ByteBuffer or function expected");
+        }
+    }
+
+    /**
+     * Maps a region of a file into memory and returns an {@code ArrayBuffer} or, with option
+     * {@code shared: true}, a {@code SharedArrayBuffer} that is backed by the mapping. Typed arrays
+     * and data views access the file contents without copying. Other options are {@code offset}
+     * and {@code length} of the region (defaulting to the rest of the file) and {@code mode}:
+     * {@code "rw"} (default) writes changes through to the file, {@code "private"} keeps them in a
+     * private copy-on-write mapping. Mode {@code "rw"} needs read and write access to the file,
+     * mode {@code "private"} only read access.
+     */
+    public abstract static class GraalMapFileNode extends JSBuiltinNode {
+
+        public GraalMapFileNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected DynamicObject mapFile(Object path, Object options) {
+            return mapFileIntl(JSRuntime.toString(path), options);
+        }
+
+        @TruffleBoundary
+        private DynamicObject mapFileIntl(String path, Object options) {
+            long offset = 0;
+            long length = -1;
+            FileChannel.MapMode mapMode = FileChannel.MapMode.READ_WRITE;
+            boolean shared = false;
+            if (JSRuntime.isObject(options)) {
+                DynamicObject optionsObj = (DynamicObject) options;
+                Object value = JSObject.get(optionsObj, "offset");
+                if (value != Undefined.instance) {
+                    offset = JSRuntime.toInteger(value);
+                }
+                value = JSObject.get(optionsObj, "length");
+                if (value != Undefined.instance) {
+                    length = JSRuntime.toInteger(value);
+                    if (length < 0) {
+                        throw Errors.createRangeError("length must not be negative");
+                    }
+                }
+                value = JSObject.get(optionsObj, "mode");
+                if (value != Undefined.instance) {
+                    String mode = JSRuntime.toString(value);
+                    if ("private".equals(mode)) {
+                        mapMode = FileChannel.MapMode.PRIVATE;
+                    } else if (!"rw".equals(mode)) {
+                        throw Errors.createRangeError("mode must be \"rw\" or \"private\"");
+                    }
+                }
+                shared = JSRuntime.toBoolean(JSObject.get(optionsObj, "shared"));
+            } else if (options != Undefined.instance) {
+                throw Errors.createTypeErrorNotAnObject(options);
+            }
+            if (offset < 0) {
+                throw Errors.createRangeError("offset must not be negative");
+            }
+
+            ByteBuffer buffer;
+            try {
+                TruffleFile file = getContext().getRealm().getEnv().getPublicTruffleFile(path);
+                Set<OpenOption> openOptions = mapMode == FileChannel.MapMode.READ_WRITE ? EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE)
+                                : EnumSet.of(StandardOpenOption.READ);
+                try (SeekableByteChannel channel = file.newByteChannel(openOptions)) {
+                    if (!(channel instanceof FileChannel)) {
+                        throw Errors.createError("The file system does not support memory-mapped files");
+                    }
+                    if (length < 0) {
+                        length = Math.max(0, channel.size() - offset);
+                    }
+                    if (length > getContext().getContextOptions().getMaxTypedArrayLength()) {
+                        throw Errors.createRangeError("Array buffer allocation failed");
+                    }
+                    MappedByteBuffer mapped = ((FileChannel) channel).map(mapMode, offset, length);
+                    buffer = mapped.order(ByteOrder.nativeOrder());
+                }
+            } catch (IOException | SecurityException | UnsupportedOperationException e) {
+                throw Errors.createErrorFromException(e);
+            }
+            if (shared) {
+                return JSSharedArrayBuffer.createSharedArrayBuffer(getContext(), buffer);
+            } else {
+                return JSArrayBuffer.createDirectArrayBuffer(getContext(), buffer);
+            }
+        }
+    }
+
+    /**
+     * Writes changes to a buffer created by {@code Graal.mapFile} back to the file. Does nothing
+     * for other off-heap buffers.
+     */
+    public abstract static class GraalFlushArrayBufferNode extends JSBuiltinNode {
+
+        public GraalFlushArrayBufferNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object flush(Object buffer) {
+            force(directByteBuffer(buffer));
+            return Undefined.instance;
+        }
+
+        @TruffleBoundary
+        private static void force(ByteBuffer buffer) {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+    }
+
+    /**
+     * Detaches an {@code ArrayBuffer} created by {@code Graal.mapFile}, so that the file mapping
+     * is no longer reachable from JavaScript and can be released. Changes are not flushed.
+     */
+    public abstract static class GraalUnmapArrayBufferNode extends JSBuiltinNode {
+
+        public GraalUnmapArrayBufferNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object unmap(Object buffer) {
+            if (JSSharedArrayBuffer.isJSSharedArrayBuffer(buffer)) {
+                throw Errors.createTypeError("A SharedArrayBuffer cannot be unmapped");
+            }
+            directByteBuffer(buffer);
+            JSArrayBuffer.detachArrayBuffer((DynamicObject) buffer);
+            return Undefined.instance;
+        }
+    }
+
+    private static ByteBuffer directByteBuffer(Object buffer) {
+        if (JSSharedArrayBuffer.isJSSharedArrayBuffer(buffer)) {
+            return JSSharedArrayBuffer.getDirectByteBuffer((DynamicObject) buffer);
+        } else if (JSArrayBuffer.isJSDirectArrayBuffer(buffer)) {
+            if (JSArrayBuffer.isDetachedBuffer((DynamicObject) buffer)) {
+                throw Errors.createTypeErrorDetachedBuffer();
+            }
+            return JSArrayBuffer.getDirectByteBuffer((DynamicObject) buffer);
+        }
+        throw Errors.createTypeError("memory-mapped ArrayBuffer or SharedArrayBuffer expected");
+    }
+}
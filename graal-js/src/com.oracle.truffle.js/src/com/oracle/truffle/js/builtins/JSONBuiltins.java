@@ -40,38 +40,28 @@
  */
 package com.oracle.truffle.js.builtins;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.object.DynamicObject;
-import com.oracle.truffle.api.profiles.BranchProfile;
-import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.js.builtins.JSONBuiltinsFactory.JSONParseNodeGen;
 import com.oracle.truffle.js.builtins.JSONBuiltinsFactory.JSONStringifyNodeGen;
+import com.oracle.truffle.js.builtins.helper.CreateJSONDataNode;
 import com.oracle.truffle.js.builtins.helper.JSONData;
 import com.oracle.truffle.js.builtins.helper.JSONStringifyStringNode;
 import com.oracle.truffle.js.builtins.helper.TruffleJSONParser;
 import com.oracle.truffle.js.nodes.access.CreateDataPropertyNode;
-import com.oracle.truffle.js.nodes.cast.JSToIntegerAsIntNode;
-import com.oracle.truffle.js.nodes.cast.JSToNumberNode;
 import com.oracle.truffle.js.nodes.cast.JSToStringNode;
 import com.oracle.truffle.js.nodes.function.JSBuiltin;
 import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
 import com.oracle.truffle.js.nodes.unary.IsCallableNode;
-import com.oracle.truffle.js.nodes.unary.JSIsArrayNode;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSArray;
-import com.oracle.truffle.js.runtime.builtins.JSNumber;
-import com.oracle.truffle.js.runtime.builtins.JSString;
 import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSAttributes;
 import com.oracle.truffle.js.runtime.objects.JSObject;
@@ -145,10 +135,7 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
         @Specialization(guards = "isCallable.executeBoolean(reviver)", limit = "1")
         protected Object parse(Object text, Object reviver,
                         @Cached @Shared("isCallable") @SuppressWarnings("unused") IsCallableNode isCallable) {
-            Object unfiltered = parseIntl(toString(text));
-            DynamicObject root = JSUserObject.create(getContext());
-            JSObjectUtil.putDataProperty(getContext(), root, "", unfiltered, JSAttributes.getDefault());
-            return walk((DynamicObject) reviver, root, "");
+            return internalize(getContext(), parseIntl(toString(text)), (DynamicObject) reviver);
         }
 
         @Specialization(guards = "!isCallable.executeBoolean(reviver)", limit = "1")
@@ -166,12 +153,21 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
             }
         }
 
+        /**
+         * InternalizeJSONProperty applied to the result of a JSON parse.
+         */
         @TruffleBoundary
-        private Object walk(DynamicObject reviverFn, DynamicObject holder, String property) {
+        static Object internalize(JSContext context, Object unfiltered, DynamicObject reviverFn) {
+            DynamicObject root = JSUserObject.create(context);
+            JSObjectUtil.putDataProperty(context, root, "", unfiltered, JSAttributes.getDefault());
+            return walk(reviverFn, root, "");
+        }
+
+        private static Object walk(DynamicObject reviverFn, DynamicObject holder, String property) {
             Object value = JSObject.get(holder, property);
             if (JSRuntime.isObject(value)) {
                 DynamicObject object = (DynamicObject) value;
-                if (isArray(object)) {
+                if (JSRuntime.isArray(object)) {
                     int len = (int) JSRuntime.toLength(JSObject.get(object, JSArray.LENGTH));
                     for (int i = 0; i < len; i++) {
                         String stringIndex = String.valueOf(i);
@@ -204,13 +200,8 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
         }
 
         @Child private JSONStringifyStringNode jsonStringifyStringNode;
+        @Child private CreateJSONDataNode createJSONDataNode = CreateJSONDataNode.create();
         @Child private CreateDataPropertyNode createWrapperPropertyNode;
-        @Child private JSToIntegerAsIntNode toIntegerNode;
-        @Child private JSToNumberNode toNumberNode;
-        @Child private JSIsArrayNode isArrayNode;
-        @Child private IsCallableNode isCallableNode;
-        private final BranchProfile spaceIsStringBranch = BranchProfile.create();
-        private final ConditionProfile spaceIsUndefinedProfile = ConditionProfile.createBinaryProfile();
 
         protected Object jsonStr(Object jsonData, String key, DynamicObject holder) {
             if (jsonStringifyStringNode == null) {
@@ -220,120 +211,16 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
             return jsonStringifyStringNode.execute(jsonData, key, holder);
         }
 
-        @Override
-        protected boolean isArray(Object replacer) {
-            if (isArrayNode == null) {
-                CompilerDirectives.transferToInterpreterAndInvalidate();
-                isArrayNode = insert(JSIsArrayNode.createIsArrayLike());
-            }
-            return isArrayNode.execute(replacer);
-        }
-
-        protected boolean isCallable(Object obj) {
-            if (isCallableNode == null) {
-                CompilerDirectives.transferToInterpreterAndInvalidate();
-                isCallableNode = insert(IsCallableNode.create());
-            }
-            return isCallableNode.executeBoolean(obj);
-        }
-
-        @Specialization(guards = "isCallable(replacerFn)")
-        protected Object stringify(Object value, DynamicObject replacerFn, Object spaceParam) {
-            assert JSRuntime.isCallable(replacerFn);
-            return stringifyIntl(value, spaceParam, replacerFn, null);
-        }
-
-        @Specialization(guards = "isArray(replacerObj)")
-        protected Object stringifyReplacerArray(Object value, DynamicObject replacerObj, Object spaceParam) {
-            int len = (int) JSRuntime.toLength(JSObject.get(replacerObj, JSArray.LENGTH));
-            List<String> replacerList = new ArrayList<>();
-            for (int i = 0; i < len; i++) {
-                // harmony/proxies-json.js requires toString()
-                Object v = JSObject.get(replacerObj, JSRuntime.toString(i));
-                String item = null; // Let item be undefined.
-                if (JSRuntime.isString(v)) {
-                    item = JSRuntime.toStringIsString(v);
-                } else if (JSRuntime.isNumber(v) || JSNumber.isJSNumber(v) || JSString.isJSString(v)) {
-                    item = toString(v);
-                }
-                if (item != null) { // If item is not undefined ...
-                    addToReplacer(replacerList, item);
-                }
-            }
-            return stringifyIntl(value, spaceParam, null, replacerList);
-        }
-
-        @TruffleBoundary
-        private static void addToReplacer(List<String> replacerList, String item) {
-            if (!replacerList.contains(item)) {
-                replacerList.add(item);
-            }
-        }
-
-        @SuppressWarnings("unused")
-        @Specialization(guards = {"!isCallable(replacer)", "!isArray(replacer)"})
-        protected Object stringifyNoReplacer(Object value, Object replacer, Object spaceParam) {
-            return stringifyIntl(value, spaceParam, null, null);
-        }
-
-        private Object stringifyIntl(Object value, Object spaceParam, DynamicObject replacerFnObj, List<String> replacerList) {
-            final String gap = spaceIsUndefinedProfile.profile(spaceParam == Undefined.instance) ? "" : getGap(spaceParam);
-
+        @Specialization
+        protected Object stringify(Object value, Object replacer, Object spaceParam) {
+            JSONData data = createJSONDataNode.execute(replacer, spaceParam, null);
             DynamicObject wrapper = JSUserObject.create(getContext());
             if (createWrapperPropertyNode == null) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
                 createWrapperPropertyNode = insert(CreateDataPropertyNode.create(getContext(), ""));
             }
             createWrapperPropertyNode.executeVoid(wrapper, value);
-            return jsonStr(new JSONData(gap, replacerFnObj, replacerList), "", wrapper);
-        }
-
-        private String getGap(Object spaceParam) {
-            Object space = spaceParam;
-            if (JSObject.isDynamicObject(space)) {
-                if (JSNumber.isJSNumber(space)) {
-                    space = toNumber(space);
-                } else if (JSString.isJSString(space)) {
-                    space = toString(space);
-                }
-            }
-            if (JSRuntime.isNumber(space)) {
-                if (toIntegerNode == null) {
-                    CompilerDirectives.transferToInterpreterAndInvalidate();
-                    toIntegerNode = insert(JSToIntegerAsIntNode.create());
-                }
-                int newSpace = Math.max(0, Math.min(10, toIntegerNode.executeInt(space)));
-                return makeGap(newSpace);
-            } else if (JSRuntime.isString(space)) {
-                spaceIsStringBranch.enter();
-                return makeGap(JSRuntime.toStringIsString(space));
-            } else {
-                return "";
-            }
-        }
-
-        @TruffleBoundary
-        private static String makeGap(String spaceStr) {
-            if (spaceStr.length() <= 10) {
-                return spaceStr;
-            } else {
-                return spaceStr.substring(0, 10);
-            }
-        }
-
-        @TruffleBoundary
-        private static String makeGap(int spaceValue) {
-            char[] ar = new char[spaceValue];
-            Arrays.fill(ar, ' ');
-            return new String(ar);
-        }
-
-        protected Number toNumber(Object target) {
-            if (toNumberNode == null) {
-                CompilerDirectives.transferToInterpreterAndInvalidate();
-                toNumberNode = insert(JSToNumberNode.create());
-            }
-            return toNumberNode.executeNumber(target);
+            return jsonStr(data, "", wrapper);
         }
     }
 }
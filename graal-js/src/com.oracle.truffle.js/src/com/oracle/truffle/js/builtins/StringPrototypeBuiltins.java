@@ -123,6 +123,7 @@ import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSArguments;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.Symbol;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
@@ -693,6 +694,22 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             }
         }
 
+        @Specialization
+        protected String substringLazyString(JSLazyString thisStr, Object start, Object end,
+                        @Cached("create()") JSToNumberNode toNumberNode,
+                        @Cached("create()") JSToNumberNode toNumber2Node,
+                        @Cached("createBinaryProfile()") ConditionProfile startUndefined,
+                        @Cached("createBinaryProfile()") ConditionProfile endUndefined) {
+            int len = thisStr.length();
+            int intStart = startUndefined.profile(start == Undefined.instance) ? 0 : withinNumber(toNumberNode.executeNumber(start), 0, len);
+            int intEnd = endUndefined.profile(end == Undefined.instance) ? len : withinNumber(toNumber2Node.executeNumber(end), 0, len);
+            if (startLowerEnd.profile(intStart <= intEnd)) {
+                return thisStr.substring(intStart, intEnd);
+            } else {
+                return thisStr.substring(intEnd, intStart);
+            }
+        }
+
         @Specialization(replaces = {"substring", "substringStart"})
         protected String substringGeneric(Object thisObj, Object start, Object end,
                         @Cached("create()") JSToNumberNode toNumberNode,
@@ -769,6 +786,13 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             return indexOfIntl(args, thisStr, searchStr);
         }
 
+        @Specialization
+        protected int indexOfLazyString(JSLazyString thisStr, Object[] args,
+                        @Cached("create()") JSToStringNode toString2Node) {
+            String searchStr = toString2Node.executeString(JSRuntime.getArgOrUndefined(args, 0));
+            return indexOfIntl(args, thisStr, searchStr);
+        }
+
         @Specialization(replaces = "indexOf")
         protected int indexOfGeneric(Object thisObj, Object[] args,
                         @Cached("create()") JSToStringNode toString2Node) {
@@ -778,14 +802,18 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             return indexOfIntl(args, thisStr, searchStr);
         }
 
-        private int indexOfIntl(Object[] args, String thisStr, String searchStr) {
+        private int indexOfIntl(Object[] args, CharSequence thisStr, String searchStr) {
             int startPos;
             if (hasPos.profile(args.length >= 2)) {
                 startPos = Math.min(toIntegerAsInt(args[1]), thisStr.length());
             } else {
                 startPos = 0;
             }
-            return thisStr.indexOf(searchStr, startPos);
+            if (thisStr instanceof JSLazyString) {
+                // searches the rope without flattening it
+                return ((JSLazyString) thisStr).indexOf(searchStr, startPos);
+            }
+            return ((String) thisStr).indexOf(searchStr, startPos);
         }
     }
 
@@ -2291,8 +2319,19 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
 
         @TruffleBoundary
         private DynamicObject createCollator(Object locales, Object options) {
+            JSRealm realm = getContext().getRealm();
+            String cacheKey = IntlUtil.localeFormatterCacheKey(JSCollator.CLASS_NAME, locales, options);
+            if (cacheKey != null) {
+                DynamicObject cached = realm.getCachedLocaleFormatter(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
             DynamicObject collatorObj = JSCollator.create(getContext());
             initCollatorNode.executeInit(collatorObj, locales, options);
+            if (cacheKey != null) {
+                realm.cacheLocaleFormatter(cacheKey, collatorObj);
+            }
             return collatorObj;
         }
 
@@ -2333,6 +2372,18 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             }
         }
 
+        @Specialization
+        protected String sliceLazyString(JSLazyString thisStr, Object start, Object end) {
+            long len = thisStr.length();
+            long istart = JSRuntime.getOffset(toIntegerAsInt(start), len, offsetProfile1);
+            long iend = isUndefined.profile(end == Undefined.instance) ? len : JSRuntime.getOffset(toIntegerAsInt(end), len, offsetProfile2);
+            if (canReturnEmpty.profile(iend > istart)) {
+                return thisStr.substring((int) istart, (int) iend);
+            } else {
+                return "";
+            }
+        }
+
         @Specialization(replaces = "sliceString")
         protected String sliceObject(Object thisObj, int start, int end) {
             requireObjectCoercible(thisObj);
@@ -2383,6 +2434,22 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             return true;
         }
 
+        @Specialization
+        protected boolean startsWithLazyString(JSLazyString thisStr, Object searchString, Object position,
+                        @Cached("create()") JSToStringNode toString2Node,
+                        @Cached("create(getContext())") IsRegExpNode isRegExpNode) {
+            if (isRegExpNode.executeBoolean(searchString)) {
+                noStringBranch.enter();
+                throw Errors.createTypeErrorStringExpected();
+            }
+            String searchStr = toString2Node.executeString(searchString);
+            int fromIndex = Math.max(toIntegerAsInt(position), 0);
+            if (searchStr.length() <= 0) {
+                return true;
+            }
+            return thisStr.regionMatches(fromIndex, searchStr);
+        }
+
         @Specialization
         protected boolean startsWith(Object thisObj, Object searchString, Object position,
                         @Cached("create()") JSToStringNode toString2Node,
@@ -2416,6 +2483,27 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
 
         private final BranchProfile noStringBranch = BranchProfile.create();
 
+        @Specialization
+        protected boolean endsWithLazyString(JSLazyString thisStr, Object searchString, Object position,
+                        @Cached("create()") JSToStringNode toString2Node,
+                        @Cached("create(getContext())") IsRegExpNode isRegExpNode) {
+            if (isRegExpNode.executeBoolean(searchString)) {
+                noStringBranch.enter();
+                throw Errors.createTypeErrorStringExpected();
+            }
+            String searchStr = toString2Node.executeString(searchString);
+            int fromIndex = toIntegerAsInt(position);
+            if (searchStr.length() <= 0) {
+                return true;
+            }
+            if (fromIndex >= thisStr.length() || position == Undefined.instance) {
+                fromIndex = thisStr.length();
+            } else if (fromIndex < 0) {
+                return false;
+            }
+            return thisStr.regionMatches(fromIndex - searchStr.length(), searchStr);
+        }
+
         @Specialization
         protected boolean endsWith(Object thisObj, Object searchString, Object position,
                         @Cached("create()") JSToStringNode toString2Node,
@@ -2453,6 +2541,19 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
 
         private final BranchProfile noStringBranch = BranchProfile.create();
 
+        @Specialization
+        protected boolean includesLazyString(JSLazyString thisStr, Object searchString, Object position,
+                        @Cached("create()") JSToStringNode toString2Node,
+                        @Cached("create(getContext())") IsRegExpNode isRegExpNode) {
+            if (isRegExpNode.executeBoolean(searchString)) {
+                noStringBranch.enter();
+                throw Errors.createTypeErrorStringExpected();
+            }
+            String searchStr = toString2Node.executeString(searchString);
+            int fromIndex = toIntegerAsInt(position);
+            return thisStr.indexOf(searchStr, Math.min(fromIndex, thisStr.length())) != -1;
+        }
+
         @Specialization
         protected boolean includes(Object thisObj, Object searchString, Object position,
                         @Cached("create()") JSToStringNode toString2Node,
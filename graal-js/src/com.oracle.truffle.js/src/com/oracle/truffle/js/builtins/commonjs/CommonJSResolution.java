@@ -64,6 +64,7 @@ import com.oracle.truffle.js.runtime.JSRealm;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.ModuleResolutionCache;
 
 final class CommonJSResolution {
 
@@ -145,6 +146,19 @@ final class CommonJSResolution {
         if (isCoreModule(moduleIdentifier) || "".equals(moduleIdentifier)) {
             return null;
         }
+        ModuleResolutionCache cache = context.getRealm().getModuleResolutionCache();
+        TruffleFile cached = cache.getResolvedModule(ModuleResolutionCache.Resolver.COMMONJS, entryPath, moduleIdentifier);
+        if (cached != null) {
+            return cached;
+        }
+        TruffleFile resolved = resolveUncached(context, moduleIdentifier, entryPath);
+        if (resolved != null) {
+            cache.putResolvedModule(ModuleResolutionCache.Resolver.COMMONJS, entryPath, moduleIdentifier, resolved);
+        }
+        return resolved;
+    }
+
+    private static TruffleFile resolveUncached(JSContext context, String moduleIdentifier, TruffleFile entryPath) {
         TruffleLanguage.Env env = context.getRealm().getEnv();
         // 2. If X begins with '/'
         TruffleFile currentWorkingPath = entryPath;
@@ -184,7 +198,7 @@ final class CommonJSResolution {
         return null;
     }
 
-    public static TruffleFile loadIndex(TruffleLanguage.Env env, TruffleFile modulePath) {
+    public static TruffleFile loadIndex(TruffleLanguage.Env env, ModuleResolutionCache cache, TruffleFile modulePath) {
         /* @formatter:off
          *
          * LOAD_INDEX(X)
@@ -195,20 +209,20 @@ final class CommonJSResolution {
          * @formatter:on
          */
         TruffleFile indexJs = joinPaths(env, modulePath, INDEX_JS);
-        if (fileExists(indexJs)) {
+        if (cache.isRegularFile(indexJs)) {
             return indexJs;
         }
         TruffleFile indexJson = joinPaths(env, modulePath, INDEX_JSON);
-        if (fileExists(indexJson)) {
+        if (cache.isRegularFile(indexJson)) {
             return indexJson;
-        } else if (fileExists(joinPaths(env, modulePath, INDEX_NODE))) {
+        } else if (cache.isRegularFile(joinPaths(env, modulePath, INDEX_NODE))) {
             // Ignore .node files.
             return null;
         }
         return null;
     }
 
-    static TruffleFile loadAsFile(TruffleLanguage.Env env, TruffleFile modulePath) {
+    static TruffleFile loadAsFile(TruffleLanguage.Env env, ModuleResolutionCache cache, TruffleFile modulePath) {
         /* @formatter:off
          *
          * LOAD_AS_FILE(X)
@@ -219,18 +233,18 @@ final class CommonJSResolution {
          *
          * @formatter:on
          */
-        if (fileExists(modulePath)) {
+        if (cache.isRegularFile(modulePath)) {
             return modulePath;
         }
         TruffleFile moduleJs = env.getPublicTruffleFile(modulePath.toString() + JS_EXT);
-        if (fileExists(moduleJs)) {
+        if (cache.isRegularFile(moduleJs)) {
             return moduleJs;
         }
         TruffleFile moduleJson = env.getPublicTruffleFile(modulePath.toString() + JSON_EXT);
-        if (fileExists(moduleJson)) {
+        if (cache.isRegularFile(moduleJson)) {
             return moduleJson;
         }
-        if (fileExists(env.getPublicTruffleFile(modulePath.toString() + NODE_EXT))) {
+        if (cache.isRegularFile(env.getPublicTruffleFile(modulePath.toString() + NODE_EXT))) {
             // .node files not supported.
             return null;
         }
@@ -253,7 +267,7 @@ final class CommonJSResolution {
     }
 
     private static TruffleFile loadAsFileOrDirectory(JSContext cx, TruffleLanguage.Env env, TruffleFile modulePath) {
-        TruffleFile maybeFile = loadAsFile(env, modulePath);
+        TruffleFile maybeFile = loadAsFile(env, cx.getRealm().getModuleResolutionCache(), modulePath);
         if (maybeFile == null) {
             return loadAsDirectory(cx, env, modulePath);
         } else {
@@ -272,24 +286,25 @@ final class CommonJSResolution {
     }
 
     private static TruffleFile loadAsDirectory(JSContext cx, TruffleLanguage.Env env, TruffleFile modulePath) {
+        ModuleResolutionCache cache = cx.getRealm().getModuleResolutionCache();
         TruffleFile packageJson = joinPaths(env, modulePath, PACKAGE_JSON);
-        if (fileExists(packageJson)) {
-            DynamicObject jsonObj = loadJsonObject(packageJson, cx);
+        if (cache.isRegularFile(packageJson)) {
+            DynamicObject jsonObj = cache.getPackageJson(packageJson, file -> loadJsonObject(file, cx));
             if (JSObject.isJSObject(jsonObj)) {
                 Object main = JSObject.get(jsonObj, PACKAGE_JSON_MAIN_PROPERTY_NAME);
                 if (!JSRuntime.isString(main)) {
-                    return loadIndex(env, modulePath);
+                    return loadIndex(env, cache, modulePath);
                 }
                 TruffleFile module = joinPaths(env, modulePath, JSRuntime.safeToString(main));
-                TruffleFile asFile = loadAsFile(env, module);
+                TruffleFile asFile = loadAsFile(env, cache, module);
                 if (asFile != null) {
                     return asFile;
                 } else {
-                    return loadIndex(env, module);
+                    return loadIndex(env, cache, module);
                 }
             }
         } else {
-            return loadIndex(env, modulePath);
+            return loadIndex(env, cache, modulePath);
         }
         return null;
     }
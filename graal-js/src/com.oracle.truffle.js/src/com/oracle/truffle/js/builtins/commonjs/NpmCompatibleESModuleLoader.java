@@ -55,6 +55,7 @@ import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.objects.DefaultESModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.ModuleResolutionCache;
 import com.oracle.truffle.js.runtime.objects.ScriptOrModule;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 
@@ -105,7 +106,7 @@ public final class NpmCompatibleESModuleLoader extends DefaultESModuleLoader {
             return loadCoreModule(specifier);
         }
         try {
-            TruffleFile file = resolveURL(referencingModule, specifier);
+            TruffleFile file = resolveURLCached(referencingModule, specifier);
             return loadModuleFromUrl(specifier, file, file.getPath());
         } catch (IOException e) {
             log("IMPORT resolve ", specifier, " FAILED ", e.getMessage());
@@ -159,6 +160,14 @@ public final class NpmCompatibleESModuleLoader extends DefaultESModuleLoader {
         return record;
     }
 
+    private TruffleFile resolveURLCached(ScriptOrModule referencingModule, String specifier) throws IOException {
+        ModuleResolutionCache cache = realm.getModuleResolutionCache();
+        if (!cache.isEnabled()) {
+            return resolveURL(referencingModule, specifier);
+        }
+        return cache.resolveModule(ModuleResolutionCache.Resolver.NPM_ES_MODULE, getParentPath(referencingModule), specifier, () -> resolveURL(referencingModule, specifier));
+    }
+
     private TruffleFile resolveURL(ScriptOrModule referencingModule, String specifier) {
         if (specifier.isEmpty()) {
             throw fail(specifier);
@@ -250,12 +259,13 @@ public final class NpmCompatibleESModuleLoader extends DefaultESModuleLoader {
         // Load module using `package.json`
         TruffleFile mainPackageFolder = getFullPath(referencingModule);
         List<TruffleFile> nodeModulesPaths = getNodeModulesPaths(env, mainPackageFolder);
+        ModuleResolutionCache cache = realm.getModuleResolutionCache();
 
         for (TruffleFile modulePath : nodeModulesPaths) {
             TruffleFile moduleFolder = joinPaths(env, modulePath, packageSpecifier);
             TruffleFile packageJson = joinPaths(env, moduleFolder, PACKAGE_JSON);
-            if (CommonJSResolution.fileExists(packageJson)) {
-                DynamicObject jsonObj = loadJsonObject(packageJson, realm.getContext());
+            if (cache.isRegularFile(packageJson)) {
+                DynamicObject jsonObj = cache.getPackageJson(packageJson, file -> loadJsonObject(file, realm.getContext()));
                 if (JSObject.isJSObject(jsonObj)) {
                     Object main = JSObject.get(jsonObj, PACKAGE_JSON_MAIN_PROPERTY_NAME);
                     Object type = JSObject.get(jsonObj, PACKAGE_JSON_TYPE_PROPERTY_NAME);
@@ -263,14 +273,14 @@ public final class NpmCompatibleESModuleLoader extends DefaultESModuleLoader {
                         throw failMessage("do not use import() to load non-ES modules.");
                     }
                     if (!JSRuntime.isString(main)) {
-                        return loadIndex(env, moduleFolder);
+                        return loadIndex(env, cache, moduleFolder);
                     }
                     TruffleFile mainPackageFile = joinPaths(env, moduleFolder, JSRuntime.safeToString(main));
-                    TruffleFile asFile = loadAsFile(env, mainPackageFile);
+                    TruffleFile asFile = loadAsFile(env, cache, mainPackageFile);
                     if (asFile != null) {
                         return asFile;
                     } else {
-                        return loadIndex(env, mainPackageFile);
+                        return loadIndex(env, cache, mainPackageFile);
                     }
                 }
             }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.js.nodes.JavaScriptBaseNode;
+import com.oracle.truffle.js.nodes.cast.JSToIntegerAsIntNode;
+import com.oracle.truffle.js.nodes.cast.JSToNumberNode;
+import com.oracle.truffle.js.nodes.cast.JSToStringNode;
+import com.oracle.truffle.js.nodes.unary.IsCallableNode;
+import com.oracle.truffle.js.nodes.unary.JSIsArrayNode;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSNumber;
+import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.truffleinterop.JSInteropUtil;
+
+/**
+ * Processes the {@code replacer} and {@code space} arguments of {@code JSON.stringify} (ES2015
+ * 24.3.2, steps 4-8) into a {@link JSONData}.
+ */
+public final class CreateJSONDataNode extends JavaScriptBaseNode {
+
+    @Child private IsCallableNode isCallableNode = IsCallableNode.create();
+    @Child private JSIsArrayNode isArrayNode = JSIsArrayNode.createIsArrayLike();
+    @Child private JSToStringNode toStringNode;
+    @Child private JSToNumberNode toNumberNode;
+    @Child private JSToIntegerAsIntNode toIntegerNode;
+    private final BranchProfile replacerArrayBranch = BranchProfile.create();
+    private final BranchProfile spaceIsStringBranch = BranchProfile.create();
+    private final ConditionProfile spaceIsUndefinedProfile = ConditionProfile.createBinaryProfile();
+
+    private CreateJSONDataNode() {
+    }
+
+    public static CreateJSONDataNode create() {
+        return new CreateJSONDataNode();
+    }
+
+    /**
+     * @param sink destination of streamed output, or {@code null} to build the result as a string
+     */
+    public JSONData execute(Object replacer, Object spaceParam, JSONSink sink) {
+        Object replacerFn = null;
+        List<String> replacerList = null;
+        if (isCallableNode.executeBoolean(replacer)) {
+            replacerFn = replacer;
+        } else if (isArrayNode.execute(replacer)) {
+            replacerArrayBranch.enter();
+            replacerList = getReplacerList(replacer);
+        }
+        String gap = spaceIsUndefinedProfile.profile(spaceParam == Undefined.instance) ? "" : getGap(spaceParam);
+        return new JSONData(gap, replacerFn, replacerList, sink);
+    }
+
+    private List<String> getReplacerList(Object replacer) {
+        boolean isJSObject = JSObject.isJSObject(replacer);
+        long len = isJSObject ? JSRuntime.toLength(JSObject.get((DynamicObject) replacer, JSArray.LENGTH)) : getForeignArraySize(replacer);
+        List<String> replacerList = new ArrayList<>();
+        for (long i = 0; i < len; i++) {
+            // harmony/proxies-json.js requires toString()
+            Object v = isJSObject ? JSObject.get((DynamicObject) replacer, JSRuntime.toString(i)) : readForeignArrayElement(replacer, i);
+            String item = null; // Let item be undefined.
+            if (JSRuntime.isString(v)) {
+                item = JSRuntime.toStringIsString(v);
+            } else if (JSRuntime.isNumber(v) || JSNumber.isJSNumber(v) || JSString.isJSString(v)) {
+                item = toString(v);
+            }
+            if (item != null) { // If item is not undefined ...
+                addToReplacer(replacerList, item);
+            }
+        }
+        return replacerList;
+    }
+
+    @TruffleBoundary
+    private static long getForeignArraySize(Object replacer) {
+        return JSInteropUtil.getArraySize(replacer, InteropLibrary.getFactory().getUncached(), null);
+    }
+
+    @TruffleBoundary
+    private static Object readForeignArrayElement(Object replacer, long index) {
+        return JSInteropUtil.readArrayElementOrDefault(replacer, index, Undefined.instance);
+    }
+
+    @TruffleBoundary
+    private static void addToReplacer(List<String> replacerList, String item) {
+        if (!replacerList.contains(item)) {
+            replacerList.add(item);
+        }
+    }
+
+    private String getGap(Object spaceParam) {
+        Object space = spaceParam;
+        if (JSObject.isDynamicObject(space)) {
+            if (JSNumber.isJSNumber(space)) {
+                space = toNumber(space);
+            } else if (JSString.isJSString(space)) {
+                space = toString(space);
+            }
+        }
+        if (JSRuntime.isNumber(space)) {
+            if (toIntegerNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                toIntegerNode = insert(JSToIntegerAsIntNode.create());
+            }
+            int newSpace = Math.max(0, Math.min(10, toIntegerNode.executeInt(space)));
+            return makeGap(newSpace);
+        } else if (JSRuntime.isString(space)) {
+            spaceIsStringBranch.enter();
+            return makeGap(JSRuntime.toStringIsString(space));
+        } else {
+            return "";
+        }
+    }
+
+    @TruffleBoundary
+    private static String makeGap(String spaceStr) {
+        if (spaceStr.length() <= 10) {
+            return spaceStr;
+        } else {
+            return spaceStr.substring(0, 10);
+        }
+    }
+
+    @TruffleBoundary
+    private static String makeGap(int spaceValue) {
+        char[] ar = new char[spaceValue];
+        Arrays.fill(ar, ' ');
+        return new String(ar);
+    }
+
+    private String toString(Object target) {
+        if (toStringNode == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            toStringNode = insert(JSToStringNode.create());
+        }
+        return toStringNode.executeString(target);
+    }
+
+    private Number toNumber(Object target) {
+        if (toNumberNode == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            toNumberNode = insert(JSToNumberNode.create());
+        }
+        return toNumberNode.executeNumber(target);
+    }
+}
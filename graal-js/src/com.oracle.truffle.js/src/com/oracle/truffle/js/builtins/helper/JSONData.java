@@ -43,22 +43,26 @@ package com.oracle.truffle.js.builtins.helper;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.oracle.truffle.api.object.DynamicObject;
-
 public class JSONData {
 
     protected List<Object> stack = new ArrayList<>();
     private int indent;
     private final String gap;
     private final List<String> propertyList;
-    private final DynamicObject replacerFnObj;
+    private final Object replacerFnObj;
+    private final JSONSink sink;
 
     private static final int MAX_STACK_SIZE = 1000;
 
-    public JSONData(String gap, DynamicObject replacerFnObj, List<String> replacerList) {
+    public JSONData(String gap, Object replacerFnObj, List<String> replacerList) {
+        this(gap, replacerFnObj, replacerList, null);
+    }
+
+    public JSONData(String gap, Object replacerFnObj, List<String> replacerList, JSONSink sink) {
         this.gap = gap;
         this.replacerFnObj = replacerFnObj;
         this.propertyList = replacerList;
+        this.sink = sink;
     }
 
     public String getGap() {
@@ -77,10 +81,17 @@ public class JSONData {
         return propertyList;
     }
 
-    public DynamicObject getReplacerFnObj() {
+    public Object getReplacerFnObj() {
         return replacerFnObj;
     }
 
+    /**
+     * Destination of streamed output, or {@code null} if the result is built as a string.
+     */
+    public JSONSink getSink() {
+        return sink;
+    }
+
     public void pushStack(Object value) {
         stack.add(value);
     }
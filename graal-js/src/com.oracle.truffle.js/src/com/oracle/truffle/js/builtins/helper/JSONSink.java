@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import static com.oracle.truffle.js.runtime.util.BufferUtil.asBaseBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Destination of streamed JSON output. The serializer hands over its output in chunks of roughly
+ * {@link #getChunkSize()} characters, always at value boundaries, so the complete JSON text is
+ * never held in memory.
+ */
+public abstract class JSONSink {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private final int chunkSize;
+    private long written;
+
+    protected JSONSink(int chunkSize) {
+        assert chunkSize > 0;
+        this.chunkSize = chunkSize;
+    }
+
+    public final int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Total amount of output written so far, in bytes for byte-oriented sinks and in UTF-16 code
+     * units otherwise.
+     */
+    public final long getWritten() {
+        return written;
+    }
+
+    public final boolean needsFlush(StringBuilder builder) {
+        return builder.length() >= chunkSize;
+    }
+
+    /**
+     * Writes out the contents of the builder and clears it.
+     */
+    @TruffleBoundary
+    public final void flush(StringBuilder builder) {
+        if (builder.length() > 0) {
+            written += write(builder);
+            builder.setLength(0);
+        }
+    }
+
+    /**
+     * Writes out the chunk and returns the amount of output written.
+     */
+    protected abstract long write(CharSequence chunk);
+
+    public static JSONSink forOutputStream(OutputStream out, int chunkSize) {
+        return new OutputStreamSink(out, chunkSize);
+    }
+
+    public static JSONSink forByteBuffer(ByteBuffer buffer, int chunkSize) {
+        return new ByteBufferSink(buffer, chunkSize);
+    }
+
+    /**
+     * Creates a sink that passes each chunk as a string to a JavaScript function.
+     */
+    public static JSONSink forFunction(DynamicObject function, int chunkSize) {
+        assert JSRuntime.isCallable(function);
+        return new FunctionSink(function, chunkSize);
+    }
+
+    /**
+     * Encodes chunks as UTF-8. Chunks end at value boundaries, so surrogate pairs are never split.
+     */
+    private abstract static class EncodingSink extends JSONSink {
+        protected final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        EncodingSink(int chunkSize) {
+            super(chunkSize);
+        }
+
+        /**
+         * Encodes the chunk into the target buffer; returns {@code false} on overflow.
+         */
+        protected final boolean encode(CharSequence chunk, ByteBuffer target) {
+            encoder.reset();
+            CharBuffer in = CharBuffer.wrap(chunk);
+            CoderResult result = encoder.encode(in, target, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(target);
+            }
+            return !result.isOverflow();
+        }
+    }
+
+    private static final class OutputStreamSink extends EncodingSink {
+        private final OutputStream out;
+        private final ByteBuffer buffer;
+
+        OutputStreamSink(OutputStream out, int chunkSize) {
+            super(chunkSize);
+            this.out = out;
+            // every char of a chunk takes at most 3 bytes (a surrogate pair takes 4 bytes)
+            this.buffer = ByteBuffer.allocate(3 * (chunkSize + 64));
+        }
+
+        @Override
+        protected long write(CharSequence chunk) {
+            ByteBuffer target = buffer;
+            if (3 * chunk.length() > target.capacity()) {
+                // a single long string value
+                target = ByteBuffer.allocate(3 * chunk.length());
+            }
+            asBaseBuffer(target).clear();
+            boolean complete = encode(chunk, target);
+            assert complete;
+            int length = asBaseBuffer(target).position();
+            try {
+                out.write(target.array(), 0, length);
+            } catch (IOException e) {
+                throw Errors.createErrorFromException(e);
+            }
+            return length;
+        }
+    }
+
+    private static final class ByteBufferSink extends EncodingSink {
+        private final ByteBuffer buffer;
+
+        ByteBufferSink(ByteBuffer buffer, int chunkSize) {
+            super(chunkSize);
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected long write(CharSequence chunk) {
+            int start = asBaseBuffer(buffer).position();
+            if (!encode(chunk, buffer)) {
+                throw Errors.createRangeError("JSON output does not fit into the ByteBuffer");
+            }
+            return asBaseBuffer(buffer).position() - start;
+        }
+    }
+
+    private static final class FunctionSink extends JSONSink {
+        private final DynamicObject function;
+
+        FunctionSink(DynamicObject function, int chunkSize) {
+            super(chunkSize);
+            this.function = function;
+        }
+
+        @Override
+        protected long write(CharSequence chunk) {
+            String string = chunk.toString();
+            JSRuntime.call(function, Undefined.instance, new Object[]{string});
+            return string.length();
+        }
+    }
+}
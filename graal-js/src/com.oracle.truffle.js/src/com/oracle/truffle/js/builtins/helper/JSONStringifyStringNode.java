@@ -51,12 +51,15 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.interop.UnknownIdentifierException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.js.nodes.JSGuards;
 import com.oracle.truffle.js.nodes.JavaScriptBaseNode;
 import com.oracle.truffle.js.nodes.access.PropertyGetNode;
 import com.oracle.truffle.js.nodes.function.JSFunctionCallNode;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSArguments;
+import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.Symbol;
@@ -66,7 +69,10 @@ import com.oracle.truffle.js.runtime.builtins.JSBoolean;
 import com.oracle.truffle.js.runtime.builtins.JSClass;
 import com.oracle.truffle.js.runtime.builtins.JSNumber;
 import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSProperty;
+import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.truffleinterop.JSInteropUtil;
@@ -74,10 +80,14 @@ import com.oracle.truffle.js.runtime.util.StringBuilderProfile;
 
 public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
 
+    private static final int SERIALIZATION_PLAN_CACHE_SIZE = 8;
+
     private final JSContext context;
     @Child private PropertyGetNode getToJSONProperty;
     @Child private JSFunctionCallNode callToJSONFunction;
     private final StringBuilderProfile stringBuilderProfile;
+    /** Direct-mapped cache of serialization plans, indexed by shape identity hash. */
+    private final SerializationPlan[] serializationPlans = new SerializationPlan[SERIALIZATION_PLAN_CACHE_SIZE];
 
     protected JSONStringifyStringNode(JSContext context) {
         this.context = context;
@@ -101,6 +111,11 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
             }
             StringBuilder builder = new StringBuilder();
             jsonStrExecute(builder, data, value);
+            JSONSink sink = data.getSink();
+            if (sink != null) {
+                sink.flush(builder);
+                return JSRuntime.longToIntOrDouble(sink.getWritten());
+            }
             return stringBuilderProfile.toString(builder);
         } catch (StackOverflowError ex) {
             throwStackError();
@@ -266,7 +281,13 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
         boolean hasContent;
         if (data.getPropertyList() == null) {
             if (JSObject.isJSObject(value)) {
-                hasContent = serializeJSONObjectProperties(builder, data, value, indent, JSObject.enumerableOwnNames((DynamicObject) value));
+                DynamicObject valueObj = (DynamicObject) value;
+                SerializationPlan plan = getSerializationPlan(valueObj);
+                if (plan != null) {
+                    hasContent = serializeJSONObjectProperties(builder, data, valueObj, indent, plan);
+                } else {
+                    hasContent = serializeJSONObjectProperties(builder, data, value, indent, JSObject.enumerableOwnNames(valueObj));
+                }
             } else {
                 hasContent = serializeForeignObjectProperties(builder, data, value, indent);
             }
@@ -301,6 +322,112 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
         return hasContent;
     }
 
+    /**
+     * Serializes the properties of an ordinary object using the precomputed plan for its shape.
+     * Values of data properties are read directly from their locations as long as the shape does
+     * not change; a toJSON method, getter or replacer function may modify the object, in which case
+     * the remaining properties are read generically.
+     */
+    private boolean serializeJSONObjectProperties(StringBuilder builder, JSONData data, DynamicObject object, int indent, SerializationPlan plan) {
+        Shape shape = plan.shape;
+        Property[] properties = plan.properties;
+        boolean noReplacer = data.getReplacerFnObj() == null;
+        boolean isFirst = true;
+        boolean hasContent = false;
+        for (int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            String name = (String) property.getKey();
+            Object strPPrepared;
+            if (object.getShape() == shape) {
+                Object propertyValue = property.get(object, shape);
+                if (noReplacer && isPrimitiveJSONValue(propertyValue)) {
+                    strPPrepared = propertyValue;
+                } else {
+                    strPPrepared = jsonStrPreparePart2(data, name, object, propertyValue);
+                }
+            } else {
+                strPPrepared = jsonStrPrepare(data, name, object);
+            }
+            if (isStringifyable(strPPrepared)) {
+                if (isFirst) {
+                    concatFirstStep(builder, data);
+                    isFirst = false;
+                } else {
+                    appendSeparator(builder, data, indent);
+                }
+                stringBuilderProfile.append(builder, plan.quotedKeys[i]);
+                appendColon(builder, data);
+                jsonStrExecute(builder, data, strPPrepared);
+                hasContent = true;
+            }
+        }
+        return hasContent;
+    }
+
+    /**
+     * Values that are serialized as they are, i.e., without a toJSON lookup.
+     */
+    private static boolean isPrimitiveJSONValue(Object value) {
+        return JSRuntime.isString(value) || value instanceof Integer || value instanceof Double || value instanceof Boolean || value == Null.instance;
+    }
+
+    private SerializationPlan getSerializationPlan(DynamicObject object) {
+        if (!JSConfig.FastOwnKeys || !JSUserObject.isJSUserObject(object)) {
+            return null;
+        }
+        Shape shape = object.getShape();
+        int index = System.identityHashCode(shape) & (SERIALIZATION_PLAN_CACHE_SIZE - 1);
+        SerializationPlan plan = serializationPlans[index];
+        if (plan == null || plan.shape != shape) {
+            plan = createSerializationPlan(shape);
+            serializationPlans[index] = plan;
+        }
+        return plan.properties == null ? null : plan;
+    }
+
+    private SerializationPlan createSerializationPlan(Shape shape) {
+        List<Property> properties = JSShape.getProperties(shape);
+        int count = 0;
+        for (Property property : properties) {
+            if (JSProperty.isEnumerable(property) && property.getKey() instanceof String) {
+                if (!JSProperty.isData(property) || JSProperty.isProxy(property)) {
+                    // accessors are left to the generic path
+                    return new SerializationPlan(shape, null, null);
+                }
+                count++;
+            }
+        }
+        Property[] planProperties = new Property[count];
+        String[] quotedKeys = new String[count];
+        int i = 0;
+        for (Property property : properties) {
+            if (JSProperty.isEnumerable(property) && property.getKey() instanceof String) {
+                StringBuilder quoted = new StringBuilder();
+                jsonQuote(quoted, (String) property.getKey());
+                planProperties[i] = property;
+                quotedKeys[i] = quoted.toString();
+                i++;
+            }
+        }
+        return new SerializationPlan(shape, planProperties, quotedKeys);
+    }
+
+    /**
+     * Enumerable own data properties of an ordinary object shape in property key order, together
+     * with their quoted names.
+     */
+    private static final class SerializationPlan {
+        final Shape shape;
+        final Property[] properties;
+        final String[] quotedKeys;
+
+        SerializationPlan(Shape shape, Property[] properties, String[] quotedKeys) {
+            this.shape = shape;
+            this.properties = properties;
+            this.quotedKeys = quotedKeys;
+        }
+    }
+
     private void appendColon(StringBuilder builder, JSONData data) {
         stringBuilderProfile.append(builder, ':');
         if (data.getGap().length() > 0) {
@@ -437,6 +564,10 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
 
     @TruffleBoundary
     private void appendSeparator(StringBuilder builder, JSONData data, int indent) {
+        JSONSink sink = data.getSink();
+        if (sink != null && sink.needsFlush(builder)) {
+            sink.flush(builder);
+        }
         if (data.getGap().length() <= 0) {
             stringBuilderProfile.append(builder, ',');
         } else {
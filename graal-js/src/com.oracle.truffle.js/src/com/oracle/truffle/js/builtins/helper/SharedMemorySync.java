@@ -42,6 +42,9 @@ package com.oracle.truffle.js.builtins.helper;
 
 import static com.oracle.truffle.js.runtime.builtins.JSArrayBufferView.typedArrayGetArrayType;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.BigInt;
@@ -52,10 +55,15 @@ import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.array.TypedArray;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
 import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.util.DirectByteBufferAtomics;
 import com.oracle.truffle.js.runtime.util.Fences;
 
 /**
  * Implementation of the synchronization primitives of ECMA2017 Shared Memory model.
+ *
+ * Atomic operations on elements of 8-byte aligned direct buffers are performed lock-free with
+ * hardware compare-and-exchange (see {@link DirectByteBufferAtomics}); other buffers fall back to
+ * the per-buffer lock. The lock is also still used for the waiter lists of wait/notify.
  */
 public final class SharedMemorySync {
 
@@ -66,8 +74,15 @@ public final class SharedMemorySync {
     // ##### Getters and setters with ordering and memory barriers
     @TruffleBoundary
     public static int doVolatileGet(DynamicObject target, int intArrayOffset) {
-        Fences.acquireFence();
         TypedArray array = typedArrayGetArrayType(target);
+        if (array.bytesPerElement() == 4) {
+            ByteBuffer buffer = getDirectBuffer(target, array);
+            int byteIndex = getByteIndex(target, array, intArrayOffset);
+            if (buffer != null && DirectByteBufferAtomics.isLockFree(buffer, byteIndex, 4)) {
+                return DirectByteBufferAtomics.getIntVolatile(buffer, byteIndex);
+            }
+        }
+        Fences.acquireFence();
         TypedArray.TypedIntArray<?> typedArray = (TypedArray.TypedIntArray<?>) array;
         return typedArray.getInt(target, intArrayOffset, true);
     }
@@ -75,8 +90,13 @@ public final class SharedMemorySync {
     // ##### Getters and setters with ordering and memory barriers
     @TruffleBoundary
     public static BigInt doVolatileGetBigInt(DynamicObject target, int intArrayOffset) {
-        Fences.acquireFence();
         TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        if (buffer != null && DirectByteBufferAtomics.isLockFree(buffer, byteIndex, 8)) {
+            return toBigInt(array, DirectByteBufferAtomics.getLongVolatile(buffer, byteIndex));
+        }
+        Fences.acquireFence();
         TypedArray.TypedBigIntArray<?> typedArray = (TypedArray.TypedBigIntArray<?>) array;
         return typedArray.getBigInt(target, intArrayOffset, true);
     }
@@ -84,6 +104,14 @@ public final class SharedMemorySync {
     @TruffleBoundary
     public static void doVolatilePut(DynamicObject target, int index, int value) {
         TypedArray array = typedArrayGetArrayType(target);
+        if (array.bytesPerElement() == 4) {
+            ByteBuffer buffer = getDirectBuffer(target, array);
+            int byteIndex = getByteIndex(target, array, index);
+            if (buffer != null && DirectByteBufferAtomics.isLockFree(buffer, byteIndex, 4)) {
+                DirectByteBufferAtomics.setIntVolatile(buffer, byteIndex, value);
+                return;
+            }
+        }
         TypedArray.TypedIntArray<?> typedArray = (TypedArray.TypedIntArray<?>) array;
         typedArray.setInt(target, index, value, true);
         Fences.releaseFence();
@@ -92,6 +120,12 @@ public final class SharedMemorySync {
     @TruffleBoundary
     public static void doVolatilePutBigInt(DynamicObject target, int index, BigInt value) {
         TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, index);
+        if (buffer != null && DirectByteBufferAtomics.isLockFree(buffer, byteIndex, 8)) {
+            DirectByteBufferAtomics.setLongVolatile(buffer, byteIndex, value.longValue());
+            return;
+        }
         TypedArray.TypedBigIntArray<?> typedArray = (TypedArray.TypedBigIntArray<?>) array;
         typedArray.setBigInt(target, index, value, true);
         Fences.releaseFence();
@@ -100,6 +134,14 @@ public final class SharedMemorySync {
     // ##### Atomic CAS primitives
     @TruffleBoundary
     public static boolean compareAndSwapInt(JSContext cx, DynamicObject target, int intArrayOffset, int initial, int result) {
+        TypedArray array = typedArrayGetArrayType(target);
+        int bytesPerElement = array.bytesPerElement();
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        int wordIndex = lockFreeWordIndex(buffer, byteIndex, bytesPerElement);
+        if (wordIndex >= 0) {
+            return compareAndExchangeBits(buffer, byteIndex, wordIndex, bytesPerElement, initial, result) == (initial & elementMask(bytesPerElement));
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             int value = doVolatileGet(target, intArrayOffset);
@@ -115,6 +157,13 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static boolean compareAndSwapBigInt(JSContext cx, DynamicObject target, int intArrayOffset, BigInt initial, BigInt result) {
+        TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        if (lockFreeWordIndex(buffer, byteIndex, 8) >= 0) {
+            long expected = initial.longValue();
+            return DirectByteBufferAtomics.compareAndExchangeLong(buffer, byteIndex, expected, result.longValue()) == expected;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             BigInt value = doVolatileGetBigInt(target, intArrayOffset);
@@ -131,6 +180,13 @@ public final class SharedMemorySync {
     // ##### Atomic Fetch-or-Get primitives
     @TruffleBoundary
     public static long atomicFetchOrGetUnsigned(JSContext cx, DynamicObject target, int intArrayOffset, Object expected, Object replacement) {
+        TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        if (lockFreeWordIndex(buffer, byteIndex, 4) >= 0) {
+            int read = DirectByteBufferAtomics.compareAndExchangeInt(buffer, byteIndex, (int) JSRuntime.toUInt32(expected), (int) JSRuntime.toUInt32(replacement));
+            return read & 0xFFFFFFFFL;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         long read = JSRuntime.toUInt32(doVolatileGet(target, intArrayOffset));
         if (read == JSRuntime.toUInt32(expected)) {
@@ -140,22 +196,14 @@ public final class SharedMemorySync {
         return read;
     }
 
-    @TruffleBoundary
-    public static long atomicFetchOrGetLong(JSContext cx, DynamicObject target, int intArrayOffset, long expected, long replacement) {
-        cx.getJSAgent().atomicSectionEnter(target);
-        try {
-            int read = doVolatileGet(target, intArrayOffset);
-            if (read == expected) {
-                doVolatilePut(target, intArrayOffset, (int) replacement);
-            }
-            return read;
-        } finally {
-            cx.getJSAgent().atomicSectionLeave(target);
-        }
-    }
-
     @TruffleBoundary
     public static int atomicFetchOrGetInt(JSContext cx, DynamicObject target, int intArrayOffset, int expected, int replacement) {
+        TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        if (lockFreeWordIndex(buffer, byteIndex, 4) >= 0) {
+            return DirectByteBufferAtomics.compareAndExchangeInt(buffer, byteIndex, expected, replacement);
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             int read = doVolatileGet(target, intArrayOffset);
@@ -170,6 +218,14 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static int atomicFetchOrGetShort(JSContext cx, DynamicObject target, int intArrayOffset, int expected, int replacement, boolean sign) {
+        TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        int wordIndex = lockFreeWordIndex(buffer, byteIndex, 2);
+        if (wordIndex >= 0) {
+            int read = compareAndExchangeBits(buffer, byteIndex, wordIndex, 2, expected, replacement);
+            return sign ? (short) read : read;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         int read = doVolatileGet(target, intArrayOffset);
         read = sign ? read : read & 0xFFFF;
@@ -184,6 +240,14 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static int atomicFetchOrGetByte(JSContext cx, DynamicObject target, int intArrayOffset, int expected, int replacement, boolean sign) {
+        TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        int wordIndex = lockFreeWordIndex(buffer, byteIndex, 1);
+        if (wordIndex >= 0) {
+            int read = compareAndExchangeBits(buffer, byteIndex, wordIndex, 1, expected, replacement);
+            return sign ? (byte) read : read;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             int read = doVolatileGet(target, intArrayOffset);
@@ -201,6 +265,12 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static BigInt atomicFetchOrGetBigInt(JSContext cx, DynamicObject target, int intArrayOffset, BigInt expected, BigInt replacement) {
+        TypedArray array = typedArrayGetArrayType(target);
+        ByteBuffer buffer = getDirectBuffer(target, array);
+        int byteIndex = getByteIndex(target, array, intArrayOffset);
+        if (lockFreeWordIndex(buffer, byteIndex, 8) >= 0) {
+            return toBigInt(array, DirectByteBufferAtomics.compareAndExchangeLong(buffer, byteIndex, expected.longValue(), replacement.longValue()));
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             BigInt read = doVolatileGetBigInt(target, intArrayOffset);
@@ -213,6 +283,64 @@ public final class SharedMemorySync {
         }
     }
 
+    // ##### Lock-free access helpers
+
+    private static ByteBuffer getDirectBuffer(DynamicObject target, TypedArray array) {
+        return array.isDirect() ? JSArrayBufferView.typedArrayGetByteBuffer(target, true) : null;
+    }
+
+    private static int getByteIndex(DynamicObject target, TypedArray array, int index) {
+        return JSArrayBufferView.typedArrayGetOffset(target) + index * array.bytesPerElement();
+    }
+
+    /**
+     * Returns the index of the word that has to be updated to modify the element at
+     * {@code byteIndex} without taking the lock, or -1 if the element can only be accessed under
+     * the lock. 8-bit and 16-bit elements are updated via their enclosing 32-bit word.
+     */
+    private static int lockFreeWordIndex(ByteBuffer buffer, int byteIndex, int bytesPerElement) {
+        if (buffer == null) {
+            return -1;
+        }
+        int wordIndex = bytesPerElement < 4 ? DirectByteBufferAtomics.alignDown(buffer, byteIndex, 4) : byteIndex;
+        if (wordIndex >= 0 && DirectByteBufferAtomics.isLockFree(buffer, wordIndex, Math.max(bytesPerElement, 4))) {
+            return wordIndex;
+        }
+        return -1;
+    }
+
+    private static int elementMask(int bytesPerElement) {
+        return bytesPerElement == 4 ? -1 : (1 << (bytesPerElement * 8)) - 1;
+    }
+
+    /**
+     * Compare-and-exchange of an 8-bit, 16-bit or 32-bit element. Returns the witness value,
+     * zero-extended for 8-bit and 16-bit elements.
+     */
+    private static int compareAndExchangeBits(ByteBuffer buffer, int byteIndex, int wordIndex, int bytesPerElement, int expected, int replacement) {
+        if (bytesPerElement == 4) {
+            return DirectByteBufferAtomics.compareAndExchangeInt(buffer, wordIndex, expected, replacement);
+        }
+        int mask = elementMask(bytesPerElement);
+        int offsetInWord = byteIndex - wordIndex;
+        int shift = (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? offsetInWord : 4 - bytesPerElement - offsetInWord) * 8;
+        while (true) {
+            int word = DirectByteBufferAtomics.getIntVolatile(buffer, wordIndex);
+            int read = (word >>> shift) & mask;
+            if (read != (expected & mask)) {
+                return read;
+            }
+            int newWord = (word & ~(mask << shift)) | ((replacement & mask) << shift);
+            if (DirectByteBufferAtomics.compareAndExchangeInt(buffer, wordIndex, word, newWord) == word) {
+                return read;
+            }
+        }
+    }
+
+    private static BigInt toBigInt(TypedArray array, long value) {
+        return array instanceof TypedArray.DirectBigUint64Array ? BigInt.valueOfUnsigned(value) : BigInt.valueOf(value);
+    }
+
     // ##### Thread Wake/Park primitives
 
     @SuppressWarnings("unused")
@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import static com.oracle.truffle.js.runtime.util.BufferUtil.asBaseBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSException;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.Null;
+
+/**
+ * JSON parser reading UTF-8 encoded input directly from a {@link ByteBuffer} or an
+ * {@link InputStream}. In contrast to {@link TruffleJSONParser}, the input is never decoded into a
+ * single String: it is consumed in chunks, and objects and arrays are created as it is read, so
+ * only the resulting object graph (and at most one chunk of input) is held in memory.
+ *
+ * Invalid UTF-8 sequences inside strings are replaced with U+FFFD, and a leading byte order mark
+ * is skipped.
+ */
+public final class TruffleJSONByteParser {
+
+    private static final int EOF = -1;
+    private static final int CHUNK_SIZE = 8192;
+    private static final int KEY_CACHE_SIZE = 256;
+    private static final String MALFORMED_NUMBER = "malformed number";
+
+    private final JSContext context;
+    private final StringBuilder builder = new StringBuilder();
+    private final String[] keyCache = new String[KEY_CACHE_SIZE];
+
+    private ByteBuffer buffer;
+    private InputStream stream;
+    private byte[] chunk;
+    /** Number of input bytes preceding the current {@link #buffer} contents. */
+    private long bufferStart;
+    private int parseDepth;
+
+    public TruffleJSONByteParser(JSContext context) {
+        this.context = context;
+    }
+
+    @TruffleBoundary
+    public Object parse(ByteBuffer input) {
+        this.buffer = input.slice();
+        this.stream = null;
+        this.chunk = null;
+        return parseInput();
+    }
+
+    @TruffleBoundary
+    public Object parse(InputStream input) {
+        this.chunk = new byte[CHUNK_SIZE];
+        this.buffer = ByteBuffer.wrap(chunk, 0, 0);
+        this.stream = input;
+        return parseInput();
+    }
+
+    private Object parseInput() {
+        this.bufferStart = 0;
+        this.parseDepth = 0;
+        try {
+            skipByteOrderMark();
+            skipWhitespace();
+            Object result = parseJSONValue();
+            skipWhitespace();
+            if (peek() != EOF) {
+                throw unexpectedToken(next());
+            }
+            return result;
+        } catch (StackOverflowError ex) {
+            TruffleJSONParser.throwStackError();
+            return null;
+        } finally {
+            buffer = null;
+            stream = null;
+            chunk = null;
+        }
+    }
+
+    private Object parseJSONValue() {
+        int c = peek();
+        switch (c) {
+            case '{':
+                return parseJSONObject();
+            case '[':
+                return parseJSONArray();
+            case '"':
+                return parseJSONString(false);
+            case 't':
+                readLiteral("true");
+                return true;
+            case 'f':
+                readLiteral("false");
+                return false;
+            case 'n':
+                readLiteral("null");
+                return Null.instance;
+            default:
+                if (c == '-' || isAsciiDigit(c)) {
+                    return parseJSONNumber();
+                }
+                throw unexpectedToken(next());
+        }
+    }
+
+    private Object parseJSONObject() {
+        next(); // '{'
+        incDepth();
+        DynamicObject object = JSUserObject.create(context);
+        skipWhitespace();
+        if (peek() == '}') {
+            next();
+        } else {
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw unexpectedToken(next());
+                }
+                String key = parseJSONString(true);
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                Object value = parseJSONValue();
+                JSRuntime.createDataProperty(object, key, value);
+                skipWhitespace();
+                int c = next();
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    throw unexpectedToken(c);
+                }
+            }
+        }
+        parseDepth--;
+        return object;
+    }
+
+    private Object parseJSONArray() {
+        next(); // '['
+        incDepth();
+        DynamicObject array = JSArray.createEmptyZeroLength(context);
+        skipWhitespace();
+        if (peek() == ']') {
+            next();
+        } else {
+            ScriptArray scriptArray = JSAbstractArray.arrayGetArrayType(array);
+            int index = 0;
+            while (true) {
+                skipWhitespace();
+                scriptArray = scriptArray.setElement(array, index++, parseJSONValue(), false);
+                skipWhitespace();
+                int c = next();
+                if (c == ']') {
+                    break;
+                } else if (c != ',') {
+                    throw unexpectedToken(c);
+                }
+            }
+            JSAbstractArray.arraySetArrayType(array, scriptArray);
+        }
+        parseDepth--;
+        return array;
+    }
+
+    private void incDepth() {
+        if (++parseDepth > TruffleJSONParser.MAX_PARSE_DEPTH) {
+            TruffleJSONParser.throwStackError();
+        }
+    }
+
+    private String parseJSONString(boolean isKey) {
+        next(); // '"'
+        StringBuilder sb = builder;
+        sb.setLength(0);
+        while (true) {
+            int c = next();
+            if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                parseEscapeSequence(sb);
+            } else if (c < 0x20) {
+                throw c == EOF ? unexpectedEndOfInput() : syntaxError("invalid string");
+            } else if (c < 0x80) {
+                sb.append((char) c);
+            } else {
+                decodeUTF8Sequence(c, sb);
+            }
+        }
+        return isKey ? toKey(sb) : sb.toString();
+    }
+
+    /**
+     * Returns a string for the property key, reusing recently seen keys to avoid one String per
+     * key and object in large arrays of similar records.
+     */
+    private String toKey(StringBuilder sb) {
+        int hash = 0;
+        for (int i = 0; i < sb.length(); i++) {
+            hash = 31 * hash + sb.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+        String cached = keyCache[slot];
+        if (cached != null && cached.contentEquals(sb)) {
+            return cached;
+        }
+        String key = sb.toString();
+        keyCache[slot] = key;
+        return key;
+    }
+
+    private void parseEscapeSequence(StringBuilder sb) {
+        int c = next();
+        switch (c) {
+            case '"':
+                sb.append('"');
+                break;
+            case '\\':
+                sb.append('\\');
+                break;
+            case '/':
+                sb.append('/');
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = next();
+                    int digitValue = digit == EOF ? -1 : JSRuntime.valueInHex((char) digit);
+                    if (digitValue < 0) {
+                        throw digit == EOF ? unexpectedEndOfInput() : syntaxError("invalid string");
+                    }
+                    value = (value << 4) | digitValue;
+                }
+                sb.append((char) value);
+                break;
+            case EOF:
+                throw unexpectedEndOfInput();
+            default:
+                throw syntaxError("wrong escape sequence");
+        }
+    }
+
+    private void decodeUTF8Sequence(int lead, StringBuilder sb) {
+        int codePoint;
+        int continuationBytes;
+        int minValue;
+        if ((lead & 0xE0) == 0xC0) {
+            codePoint = lead & 0x1F;
+            continuationBytes = 1;
+            minValue = 0x80;
+        } else if ((lead & 0xF0) == 0xE0) {
+            codePoint = lead & 0x0F;
+            continuationBytes = 2;
+            minValue = 0x800;
+        } else if ((lead & 0xF8) == 0xF0) {
+            codePoint = lead & 0x07;
+            continuationBytes = 3;
+            minValue = 0x10000;
+        } else {
+            sb.append('\uFFFD');
+            return;
+        }
+        for (int i = 0; i < continuationBytes; i++) {
+            int c = peek();
+            if (c == EOF || (c & 0xC0) != 0x80) {
+                // truncated sequence, the following byte is decoded on its own
+                sb.append('\uFFFD');
+                return;
+            }
+            next();
+            codePoint = (codePoint << 6) | (c & 0x3F);
+        }
+        if (codePoint < minValue || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            sb.append('\uFFFD');
+        } else {
+            sb.appendCodePoint(codePoint);
+        }
+    }
+
+    private Number parseJSONNumber() {
+        StringBuilder sb = builder;
+        sb.setLength(0);
+        int c = peek();
+        while (isAsciiDigit(c) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+            sb.append((char) c);
+            next();
+            c = peek();
+        }
+        boolean isInteger = validateNumber(sb);
+        int digits = sb.charAt(0) == '-' ? sb.length() - 1 : sb.length();
+        if (isInteger && digits <= JSRuntime.MAX_SAFE_INTEGER_DIGITS - 1) {
+            long value = Long.parseLong(sb.toString());
+            if (value == 0 && sb.charAt(0) == '-') {
+                return -0.0;
+            } else if (JSRuntime.longIsRepresentableAsInt(value)) {
+                return (int) value;
+            } else {
+                return (double) value;
+            }
+        }
+        return Double.parseDouble(sb.toString());
+    }
+
+    /**
+     * Checks the number against the JSON number grammar.
+     *
+     * @return whether the number has neither a fraction nor an exponent part
+     */
+    private boolean validateNumber(StringBuilder sb) {
+        int length = sb.length();
+        int i = 0;
+        if (i < length && sb.charAt(i) == '-') {
+            i++;
+        }
+        if (i < length && sb.charAt(i) == '0') {
+            i++;
+        } else {
+            i = skipDigits(sb, i);
+        }
+        boolean isInteger = true;
+        if (i < length && sb.charAt(i) == '.') {
+            isInteger = false;
+            i = skipDigits(sb, i + 1);
+        }
+        if (i < length && (sb.charAt(i) == 'e' || sb.charAt(i) == 'E')) {
+            isInteger = false;
+            i++;
+            if (i < length && (sb.charAt(i) == '+' || sb.charAt(i) == '-')) {
+                i++;
+            }
+            i = skipDigits(sb, i);
+        }
+        if (i != length) {
+            throw syntaxError(MALFORMED_NUMBER);
+        }
+        return isInteger;
+    }
+
+    private int skipDigits(StringBuilder sb, int start) {
+        int i = start;
+        while (i < sb.length() && isAsciiDigit(sb.charAt(i))) {
+            i++;
+        }
+        if (i == start) {
+            throw i == sb.length() && peek() == EOF ? unexpectedEndOfInput() : syntaxError(MALFORMED_NUMBER);
+        }
+        return i;
+    }
+
+    private void readLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            int c = next();
+            if (c != literal.charAt(i)) {
+                throw c == EOF ? unexpectedEndOfInput() : unexpectedToken(c);
+            }
+        }
+    }
+
+    private void expect(char expected) {
+        int c = next();
+        if (c != expected) {
+            throw c == EOF ? unexpectedEndOfInput() : unexpectedToken(c);
+        }
+    }
+
+    private void skipByteOrderMark() {
+        if (peek() == 0xEF) {
+            next();
+            if (next() != 0xBB || next() != 0xBF) {
+                throw syntaxError("invalid byte order mark");
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            next();
+            c = peek();
+        }
+    }
+
+    private static boolean isAsciiDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // ************************* Input Handling ****************************************//
+
+    private int peek() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int next() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private boolean fill() {
+        if (stream == null) {
+            return false;
+        }
+        int read;
+        try {
+            do {
+                read = stream.read(chunk);
+            } while (read == 0);
+        } catch (IOException e) {
+            throw Errors.createError("Cannot read JSON input: " + e.getMessage());
+        }
+        if (read < 0) {
+            return false;
+        }
+        bufferStart += buffer.limit();
+        asBaseBuffer(buffer).clear();
+        asBaseBuffer(buffer).limit(read);
+        return true;
+    }
+
+    private long position() {
+        return bufferStart + buffer.position();
+    }
+
+    private JSException unexpectedToken(int c) {
+        if (c == EOF) {
+            return unexpectedEndOfInput();
+        }
+        String token = c < 0x80 ? String.valueOf((char) c) : "\\x" + Integer.toHexString(c);
+        // the offending byte has already been consumed
+        return syntaxError("Unexpected token " + token + " in JSON at position " + (position() - 1));
+    }
+
+    private JSException unexpectedEndOfInput() {
+        return syntaxError(context.isOptionV8CompatibilityMode() ? "Unexpected end of JSON input" : "Unexpected end of input");
+    }
+
+    private static JSException syntaxError(String message) {
+        return Errors.createSyntaxError(message);
+    }
+}
@@ -440,6 +440,12 @@ public final class JavaScriptLanguage extends AbstractJavaScriptLanguage {
         }
     }
 
+    @Override
+    protected void finalizeContext(JSRealm realm) {
+        // threads created by the language have to be completed before the context is disposed
+        realm.disposeModuleLoader();
+    }
+
     @Override
     protected void disposeContext(JSRealm realm) {
         CompilerAsserts.neverPartOfCompilation();
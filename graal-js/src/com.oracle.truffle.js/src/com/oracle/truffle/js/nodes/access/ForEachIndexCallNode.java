@@ -41,6 +41,7 @@
 package com.oracle.truffle.js.nodes.access;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.ValueType;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.object.DynamicObject;
@@ -55,6 +56,8 @@ import com.oracle.truffle.js.nodes.interop.JSForeignToJSTypeNode;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractWritableArray;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.Undefined;
@@ -112,6 +115,10 @@ public abstract class ForEachIndexCallNode extends JavaScriptBaseNode {
     @Child private InteropLibrary interop;
     protected final JSContext context;
 
+    /** Packed array type seen by this node, or {@code null} if uninitialized or generic. */
+    @CompilationFinal private AbstractWritableArray packedArrayType;
+    @CompilationFinal private boolean packedArrayTypeGeneric;
+
     protected ForEachIndexCallNode(JSContext context, CallbackNode callbackArgumentsNode, MaybeResultNode maybeResultNode) {
         this.callbackNode = callbackArgumentsNode;
         this.maybeResultNode = maybeResultNode;
@@ -199,6 +206,35 @@ public abstract class ForEachIndexCallNode extends JavaScriptBaseNode {
         return readElementNode.executeArrayGet(target, JSObject.getArray(target, arrayCondition), index, target, Undefined.instance, arrayCondition, context);
     }
 
+    /**
+     * Returns the array type of the target if it is the only packed (i.e., hole-free) array type
+     * seen by this node, {@code null} otherwise. Elements of such arrays can be read directly from
+     * the backing storage without going through the generic element dispatch.
+     */
+    protected final AbstractWritableArray getPackedArrayType(DynamicObject target, boolean arrayCondition) {
+        if (packedArrayTypeGeneric) {
+            return null;
+        }
+        ScriptArray arrayType = JSObject.getArray(target, arrayCondition);
+        AbstractWritableArray cachedArrayType = packedArrayType;
+        if (cachedArrayType != null) {
+            if (cachedArrayType.isInstance(arrayType)) {
+                return cachedArrayType;
+            }
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            packedArrayType = null;
+            packedArrayTypeGeneric = true;
+            return null;
+        }
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        if (arrayType instanceof AbstractWritableArray && !arrayType.isHolesType()) {
+            packedArrayType = (AbstractWritableArray) arrayType;
+            return packedArrayType;
+        }
+        packedArrayTypeGeneric = true;
+        return null;
+    }
+
     protected final boolean hasProperty(Object target, long index) {
         if (hasPropertyNode == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -218,8 +254,33 @@ public abstract class ForEachIndexCallNode extends JavaScriptBaseNode {
 
         @Override
         protected Object executeForEachIndexFast(DynamicObject target, Object callback, Object callbackThisArg, long fromIndex, long length, boolean arrayCondition, Object initialResult) {
-            long index = fromIndexZero.profile(fromIndex == 0) ? firstElementIndex(target, length) : nextElementIndex(target, fromIndex - 1, length);
             Object currentResult = initialResult;
+            long index;
+            AbstractWritableArray arrayType = getPackedArrayType(target, arrayCondition);
+            if (arrayType != null) {
+                // packed array: read directly from the storage as long as the callback does not
+                // change the array type or shrink the array, then continue with the generic loop.
+                index = Math.max(fromIndex, arrayType.firstElementIndex(target, arrayCondition));
+                if (index < length) {
+                    needLoop.enter();
+                    while (index < length && arrayType.isInstance(JSObject.getArray(target, arrayCondition)) && index <= arrayType.lastElementIndex(target, arrayCondition)) {
+                        Object value = arrayType.getInBoundsFast(target, (int) index, arrayCondition);
+                        Object callbackResult = callback(index, value, target, callback, callbackThisArg, currentResult);
+                        MaybeResult<Object> maybeResult = maybeResultNode.apply(index, value, callbackResult, currentResult);
+                        currentResult = maybeResult.get();
+                        if (maybeResult.isPresent()) {
+                            return currentResult;
+                        }
+                        index++;
+                    }
+                }
+                if (index >= length) {
+                    return currentResult;
+                }
+                index = index == 0 ? firstElementIndex(target, length) : nextElementIndex(target, index - 1, length);
+            } else {
+                index = fromIndexZero.profile(fromIndex == 0) ? firstElementIndex(target, length) : nextElementIndex(target, fromIndex - 1, length);
+            }
             if (index < length) {
                 needLoop.enter();
                 while (index < length && index <= lastElementIndex(target, length)) {
@@ -281,9 +342,33 @@ public abstract class ForEachIndexCallNode extends JavaScriptBaseNode {
         @Override
         protected Object executeForEachIndexFast(DynamicObject target, Object callback, Object callbackThisArg, long fromIndex, long length, boolean arrayCondition, Object initialResult) {
             assert fromIndex < length;
-            long index = previousElementIndex(target, fromIndex + 1);
-            // NB: cannot rely on lastElementIndex here: can be > length (e.g. arguments object)
             Object currentResult = initialResult;
+            long index;
+            AbstractWritableArray arrayType = getPackedArrayType(target, arrayCondition);
+            if (arrayType != null) {
+                index = Math.min(fromIndex, arrayType.lastElementIndex(target, arrayCondition));
+                if (index >= 0) {
+                    needLoop.enter();
+                    while (index >= 0 && arrayType.isInstance(JSObject.getArray(target, arrayCondition)) && index >= arrayType.firstElementIndex(target, arrayCondition) &&
+                                    index <= arrayType.lastElementIndex(target, arrayCondition)) {
+                        Object value = arrayType.getInBoundsFast(target, (int) index, arrayCondition);
+                        Object callbackResult = callback(index, value, target, callback, callbackThisArg, currentResult);
+                        MaybeResult<Object> maybeResult = maybeResultNode.apply(index, value, callbackResult, currentResult);
+                        currentResult = maybeResult.get();
+                        if (maybeResult.isPresent()) {
+                            return currentResult;
+                        }
+                        index--;
+                    }
+                }
+                if (index < 0) {
+                    return currentResult;
+                }
+                index = previousElementIndex(target, index + 1);
+            } else {
+                index = previousElementIndex(target, fromIndex + 1);
+            }
+            // NB: cannot rely on lastElementIndex here: can be > length (e.g. arguments object)
             if (index >= 0) {
                 needLoop.enter();
                 while (index >= 0 && index >= firstElementIndex(target, length)) {
@@ -41,6 +41,7 @@
 package com.oracle.truffle.js.nodes.access;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 
@@ -327,6 +328,10 @@ public class ObjectLiteralNode extends JavaScriptNode {
             return executeWithHomeObject(valueNode, frame, homeObject);
         }
 
+        final void executeWithValue(DynamicObject receiver, Object value, JSContext context) {
+            execute(receiver, value, context);
+        }
+
         @ExplodeLoop
         private void execute(DynamicObject obj, Object value, JSContext context) {
             if (isField) {
@@ -816,12 +821,36 @@ public class ObjectLiteralNode extends JavaScriptNode {
         return new ObjectLiteralSpreadMemberNode(isStatic, JSAttributes.getDefault(), valueNode);
     }
 
+    /**
+     * Number of times the same final shape has to be observed before objects are created with it
+     * directly.
+     */
+    private static final int ALLOCATION_SITE_WARMUP = 2;
+
     @Children private final ObjectLiteralMemberNode[] members;
     @Child private CreateObjectNode objectCreateNode;
 
+    /**
+     * Whether this allocation site may create its objects directly with their final shape, instead
+     * of starting from the initial shape and adding the properties one by one.
+     */
+    private final boolean allocationSiteFeedback;
+    @CompilationFinal private boolean allocationSiteGeneric;
+    @CompilationFinal private Shape finalShape;
+    @CompilationFinal private Assumption finalShapeValidAssumption;
+    @CompilationFinal private DynamicObject finalShapePrototype;
+    @CompilationFinal(dimensions = 1) private Property[] finalShapeProperties;
+    private Shape observedShape;
+    private int observedShapeCount;
+
     public ObjectLiteralNode(ObjectLiteralMemberNode[] members, CreateObjectNode objectCreateNode) {
+        this(members, objectCreateNode, false);
+    }
+
+    private ObjectLiteralNode(ObjectLiteralMemberNode[] members, CreateObjectNode objectCreateNode, boolean allocationSiteFeedback) {
         this.members = members;
         this.objectCreateNode = objectCreateNode;
+        this.allocationSiteFeedback = allocationSiteFeedback;
     }
 
     public static ObjectLiteralNode create(JSContext context, ObjectLiteralMemberNode[] members) {
@@ -831,8 +860,24 @@ public class ObjectLiteralNode extends JavaScriptNode {
         } else if (JSConfig.DictionaryObject && members.length > JSConfig.DictionaryObjectThreshold && onlyDataMembers(members)) {
             return createDictionaryObject(context, members);
         } else {
-            return new ObjectLiteralNode(members, CreateObjectNode.create(context));
+            return new ObjectLiteralNode(members, CreateObjectNode.create(context), isAllocationSiteFeedbackSupported(context, members));
+        }
+    }
+
+    /**
+     * Objects can be created with their final shape if they are ordinary objects whose properties
+     * are all data properties with a fixed name and a value that does not need the object itself.
+     */
+    private static boolean isAllocationSiteFeedbackSupported(JSContext context, ObjectLiteralMemberNode[] members) {
+        if (context.isMultiContext() || members.length == 0) {
+            return false;
+        }
+        for (ObjectLiteralMemberNode member : members) {
+            if (!(member instanceof ObjectLiteralDataMemberNode) || member.isField || ((ObjectLiteralDataMemberNode) member).valueNode instanceof MakeMethodNode) {
+                return false;
+            }
         }
+        return true;
     }
 
     private static boolean onlyDataMembers(ObjectLiteralMemberNode[] members) {
@@ -855,10 +900,104 @@ public class ObjectLiteralNode extends JavaScriptNode {
 
     @Override
     public DynamicObject execute(VirtualFrame frame) {
+        if (finalShape != null) {
+            if (finalShapeValidAssumption.isValid() && finalShapePrototype == objectCreateNode.getContext().getRealm().getObjectPrototype()) {
+                return executeWithFinalShape(frame);
+            }
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            setAllocationSiteGeneric();
+        }
         DynamicObject ret = objectCreateNode.executeDynamicObject(frame);
+        if (allocationSiteFeedback && !allocationSiteGeneric && CompilerDirectives.inInterpreter()) {
+            Shape initialShape = ret.getShape();
+            executeWithObject(frame, ret);
+            recordFinalShape(ret, initialShape);
+            return ret;
+        }
         return executeWithObject(frame, ret);
     }
 
+    /**
+     * Evaluates the property values and creates the object directly with the final shape observed
+     * at this allocation site, skipping the intermediate shapes. The object cannot be observed
+     * before it is returned, so creating it after evaluating the values is not visible.
+     */
+    @ExplodeLoop
+    private DynamicObject executeWithFinalShape(VirtualFrame frame) {
+        Shape shape = finalShape;
+        Property[] properties = finalShapeProperties;
+        Object[] values = new Object[members.length];
+        for (int i = 0; i < members.length; i++) {
+            values[i] = members[i].executeValue(frame, null);
+        }
+        for (int i = 0; i < members.length; i++) {
+            if (!properties[i].getLocation().canStore(values[i])) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                setAllocationSiteGeneric();
+                return executeWithValues(frame, values);
+            }
+        }
+        JSContext context = objectCreateNode.getContext();
+        DynamicObject ret = JSObject.create(context, shape);
+        for (int i = 0; i < members.length; i++) {
+            properties[i].setSafe(ret, values[i], shape);
+        }
+        return ret;
+    }
+
+    private DynamicObject executeWithValues(VirtualFrame frame, Object[] values) {
+        CompilerAsserts.neverPartOfCompilation();
+        JSContext context = objectCreateNode.getContext();
+        DynamicObject ret = objectCreateNode.executeDynamicObject(frame);
+        for (int i = 0; i < members.length; i++) {
+            ((ObjectLiteralDataMemberNode) members[i]).executeWithValue(ret, values[i], context);
+        }
+        return ret;
+    }
+
+    private void recordFinalShape(DynamicObject obj, Shape initialShape) {
+        CompilerAsserts.neverPartOfCompilation();
+        Shape shape = obj.getShape();
+        if (shape != observedShape) {
+            observedShape = shape;
+            observedShapeCount = 0;
+        }
+        if (++observedShapeCount < ALLOCATION_SITE_WARMUP) {
+            return;
+        }
+        Property[] properties = new Property[members.length];
+        Set<Object> names = new HashSet<>();
+        for (int i = 0; i < members.length; i++) {
+            Object name = ((ObjectLiteralDataMemberNode) members[i]).name;
+            Property property = shape.getProperty(name);
+            if (property == null || !JSProperty.isData(property) || JSProperty.isProxy(property)) {
+                setAllocationSiteGeneric();
+                return;
+            }
+            properties[i] = property;
+            names.add(name);
+        }
+        if (!shape.isValid() || shape.getPropertyCount() != initialShape.getPropertyCount() + names.size()) {
+            setAllocationSiteGeneric();
+            return;
+        }
+        finalShapeProperties = properties;
+        finalShapeValidAssumption = shape.getValidAssumption();
+        finalShapePrototype = objectCreateNode.getContext().getRealm().getObjectPrototype();
+        finalShape = shape;
+        observedShape = null;
+    }
+
+    private void setAllocationSiteGeneric() {
+        CompilerAsserts.neverPartOfCompilation();
+        allocationSiteGeneric = true;
+        finalShape = null;
+        finalShapeProperties = null;
+        finalShapeValidAssumption = null;
+        finalShapePrototype = null;
+        observedShape = null;
+    }
+
     @ExplodeLoop
     public DynamicObject executeWithObject(VirtualFrame frame, DynamicObject ret) {
         JSContext context = objectCreateNode.getContext();
@@ -891,6 +1030,6 @@ public class ObjectLiteralNode extends JavaScriptNode {
 
     @Override
     protected JavaScriptNode copyUninitialized(Set<Class<? extends Tag>> materializedTags) {
-        return new ObjectLiteralNode(ObjectLiteralMemberNode.cloneUninitialized(members, materializedTags), objectCreateNode.copyUninitialized(materializedTags));
+        return new ObjectLiteralNode(ObjectLiteralMemberNode.cloneUninitialized(members, materializedTags), objectCreateNode.copyUninitialized(materializedTags), allocationSiteFeedback);
     }
 }
@@ -41,6 +41,7 @@
 package com.oracle.truffle.js.runtime;
 
 import com.oracle.js.parser.ir.Expression;
+import com.oracle.js.parser.ir.FunctionNode;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.object.DynamicObject;
@@ -87,6 +88,19 @@ public interface Evaluator {
 
     JSModuleRecord parseModule(JSContext context, Source source, JSModuleLoader moduleLoader);
 
+    /**
+     * Parses a module without translating it. Does not access the realm, so unlike the other
+     * methods, this method may be called from any thread, e.g. to prefetch imported modules.
+     *
+     * @see #parseModule(JSContext, Source, JSModuleLoader, FunctionNode)
+     */
+    FunctionNode preparseModule(JSContext context, Source source);
+
+    /**
+     * Translates a module that has been parsed by {@link #preparseModule}.
+     */
+    JSModuleRecord parseModule(JSContext context, Source source, JSModuleLoader moduleLoader, FunctionNode preparsed);
+
     JSModuleRecord hostResolveImportedModule(JSContext context, ScriptOrModule referencingScriptOrModule, String specifier);
 
     void moduleInstantiation(JSRealm realm, JSModuleRecord moduleRecord);
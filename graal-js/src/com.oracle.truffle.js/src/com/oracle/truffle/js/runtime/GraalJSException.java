@@ -69,7 +69,10 @@ import com.oracle.truffle.js.runtime.objects.Undefined;
 public abstract class GraalJSException extends RuntimeException implements TruffleException {
     private static final long serialVersionUID = -6624166672101791072L;
     private static final JSStackTraceElement[] EMPTY_STACK_TRACE = new JSStackTraceElement[0];
+    private static final RawStackFrame[] EMPTY_RAW_STACK_TRACE = new RawStackFrame[0];
     private JSStackTraceElement[] jsStackTrace;
+    /** Captured but not yet symbolized stack trace. */
+    private RawStackFrame[] rawStackTrace;
     private Object location;
     private int stackTraceLimit;
 
@@ -107,7 +110,8 @@ public abstract class GraalJSException extends RuntimeException implements Truff
         assert jsStackTrace == (stackTraceLimit == 0 ? EMPTY_STACK_TRACE : null);
         if (capture || JSConfig.EagerStackTrace) {
             if (stackTraceLimit > 0) {
-                this.jsStackTrace = getJSStackTrace(skipFramesUpTo);
+                // Only record the frames here, symbolization is deferred until the stack is used.
+                this.rawStackTrace = captureRawStackTrace(skipFramesUpTo);
             }
         }
         return this;
@@ -174,18 +178,23 @@ public abstract class GraalJSException extends RuntimeException implements Truff
 
     @TruffleBoundary
     private JSStackTraceElement[] materializeJSStackTrace() {
-        return getJSStackTrace(Undefined.instance);
+        RawStackFrame[] frames = rawStackTrace;
+        if (frames == null) {
+            frames = captureRawStackTrace(Undefined.instance);
+        }
+        rawStackTrace = null;
+        return symbolize(frames);
     }
 
     @TruffleBoundary
-    private JSStackTraceElement[] getJSStackTrace(DynamicObject skipUpTo) {
+    private RawStackFrame[] captureRawStackTrace(DynamicObject skipUpTo) {
         assert stackTraceLimit > 0;
         boolean nashornMode = JavaScriptLanguage.getCurrentJSRealm().getContext().isOptionNashornCompatibilityMode();
         // Nashorn does not support skipping of frames
         DynamicObject skipFramesUpTo = nashornMode ? Undefined.instance : skipUpTo;
         List<TruffleStackTraceElement> stackTrace = TruffleStackTrace.getStackTrace(this);
         if (stackTrace == null) {
-            return EMPTY_STACK_TRACE;
+            return EMPTY_RAW_STACK_TRACE;
         }
         FrameVisitorImpl visitor = new FrameVisitorImpl(getLocation(), stackTraceLimit, skipFramesUpTo, nashornMode);
         for (TruffleStackTraceElement element : stackTrace) {
@@ -193,11 +202,23 @@ public abstract class GraalJSException extends RuntimeException implements Truff
                 break;
             }
         }
-        return visitor.getStackTrace().toArray(EMPTY_STACK_TRACE);
+        return visitor.getStackTrace().toArray(EMPTY_RAW_STACK_TRACE);
+    }
+
+    private static JSStackTraceElement[] symbolize(RawStackFrame[] frames) {
+        if (frames.length == 0) {
+            return EMPTY_STACK_TRACE;
+        }
+        JSStackTraceElement[] elements = new JSStackTraceElement[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            elements[i] = frames[i].symbolize();
+        }
+        return elements;
     }
 
     public void setJSStackTrace(JSStackTraceElement[] jsStackTrace) {
         this.jsStackTrace = jsStackTrace;
+        this.rawStackTrace = null;
     }
 
     @TruffleBoundary
@@ -206,12 +227,41 @@ public abstract class GraalJSException extends RuntimeException implements Truff
         return UserScriptException.createCapture("", originatingNode, stackTraceLimit, Undefined.instance).getJSStackTrace();
     }
 
+    /**
+     * Compact record of a stack frame, captured when the exception is created. Source sections,
+     * file names and function names are only resolved when the frame is symbolized.
+     */
+    private static final class RawStackFrame {
+        private final Node callNode;
+        private final Object thisObj;
+        /** The function object of a JS frame, {@code null} for a foreign frame. */
+        private final DynamicObject functionObj;
+        private final boolean strict;
+        private final boolean inNashornMode;
+
+        RawStackFrame(Node callNode, Object thisObj, DynamicObject functionObj, boolean strict, boolean inNashornMode) {
+            this.callNode = callNode;
+            this.thisObj = thisObj;
+            this.functionObj = functionObj;
+            this.strict = strict;
+            this.inNashornMode = inNashornMode;
+        }
+
+        JSStackTraceElement symbolize() {
+            if (functionObj == null) {
+                return processForeignFrame(callNode, strict, inNashornMode);
+            } else {
+                return processJSFrame(callNode.getRootNode(), callNode, thisObj, functionObj, strict, inNashornMode);
+            }
+        }
+    }
+
     private static final class FrameVisitorImpl {
         private static final int STACK_FRAME_SKIP = 0;
         private static final int STACK_FRAME_JS = 1;
         private static final int STACK_FRAME_FOREIGN = 2;
 
-        private final List<JSStackTraceElement> stackTrace = new ArrayList<>();
+        private final List<RawStackFrame> stackTrace = new ArrayList<>();
         private final Node originatingNode;
         private final int stackTraceLimit;
         private final DynamicObject skipFramesUpTo;
@@ -308,17 +358,15 @@ public abstract class GraalJSException extends RuntimeException implements Truff
                                     // async function calls produce two frames, skip one
                                     return true;
                                 }
-                                stackTrace.add(processJSFrame(rootNode, callNode, thisObj, function, inStrictMode, inNashornMode));
+                                stackTrace.add(new RawStackFrame(callNode, thisObj, function, inStrictMode, inNashornMode));
                             }
                         }
                         break;
                     }
                     case STACK_FRAME_FOREIGN:
-                        if (!skippingFrames) {
-                            JSStackTraceElement elem = processForeignFrame(callNode, inStrictMode, inNashornMode);
-                            if (elem != null) {
-                                stackTrace.add(elem);
-                            }
+                        // can happen around FastR root nodes, see GR-6604
+                        if (!skippingFrames && callNode.getRootNode().getSourceSection() != null) {
+                            stackTrace.add(new RawStackFrame(callNode, null, null, inStrictMode, inNashornMode));
                         }
                         break;
                 }
@@ -326,7 +374,7 @@ public abstract class GraalJSException extends RuntimeException implements Truff
             return stackTrace.size() < stackTraceLimit;
         }
 
-        public List<JSStackTraceElement> getStackTrace() {
+        public List<RawStackFrame> getStackTrace() {
             return stackTrace;
         }
 
@@ -363,7 +411,7 @@ public abstract class GraalJSException extends RuntimeException implements Truff
         }
         boolean global = isGlobalObject(thisObj, JSFunction.getRealm(functionObj));
 
-        return new JSStackTraceElement(fileName, functionName, callNodeSourceSection, thisObj, functionObj, targetSourceSection, inStrictMode, eval, global, inNashornMode);
+        return new JSStackTraceElement(fileName, functionName, callNode, callNodeSourceSection, thisObj, functionObj, targetSourceSection, inStrictMode, eval, global, inNashornMode);
     }
 
     private static boolean isEvalSource(Source source) {
@@ -381,16 +429,13 @@ public abstract class GraalJSException extends RuntimeException implements Truff
     private static JSStackTraceElement processForeignFrame(Node node, boolean strict, boolean inNashornMode) {
         RootNode rootNode = node.getRootNode();
         SourceSection sourceSection = rootNode.getSourceSection();
-        if (sourceSection == null) {
-            // can happen around FastR root nodes, see GR-6604
-            return null;
-        }
+        assert sourceSection != null;
         String fileName = getFileName(sourceSection.getSource());
         String functionName = rootNode.getName();
         Object thisObj = null;
         Object functionObj = null;
 
-        return new JSStackTraceElement(fileName, functionName, sourceSection, thisObj, functionObj, null, strict, false, false, inNashornMode);
+        return new JSStackTraceElement(fileName, functionName, rootNode, sourceSection, thisObj, functionObj, null, strict, false, false, inNashornMode);
     }
 
     private static String getPrimitiveConstructorName(Object thisObj) {
@@ -449,7 +494,7 @@ public abstract class GraalJSException extends RuntimeException implements Truff
 
     public void printJSStackTrace() {
         System.err.println(getMessage());
-        for (JSStackTraceElement jsste : jsStackTrace) {
+        for (JSStackTraceElement jsste : getJSStackTrace()) {
             System.err.println(jsste);
         }
     }
@@ -463,8 +508,16 @@ public abstract class GraalJSException extends RuntimeException implements Truff
     }
 
     public static final class JSStackTraceElement {
+        /** Location format of the {@code stack} property of errors. */
+        public static final int LOCATION_FORMAT_STACK = 0;
+        /** Location format of {@code CallSite.prototype.toString}. */
+        public static final int LOCATION_FORMAT_CALL_SITE = 1;
+        public static final int LOCATION_FORMAT_COUNT = 2;
+
         private final String fileName;
         private final String functionName;
+        /** The node the source location of this element is derived from. */
+        private final Node locationNode;
         private final SourceSection sourceSection;
         private final Object thisObj;
         private final Object functionObj;
@@ -474,11 +527,12 @@ public abstract class GraalJSException extends RuntimeException implements Truff
         private final boolean global;
         private final boolean inNashornMode;
 
-        private JSStackTraceElement(String fileName, String functionName, SourceSection sourceSection, Object thisObj, Object functionObj, SourceSection targetSourceSection, boolean strict,
-                        boolean eval, boolean global, boolean inNashornMode) {
+        private JSStackTraceElement(String fileName, String functionName, Node locationNode, SourceSection sourceSection, Object thisObj, Object functionObj, SourceSection targetSourceSection,
+                        boolean strict, boolean eval, boolean global, boolean inNashornMode) {
             CompilerAsserts.neverPartOfCompilation();
             this.fileName = fileName;
             this.functionName = functionName;
+            this.locationNode = locationNode;
             this.sourceSection = sourceSection;
             this.thisObj = thisObj;
             this.functionObj = functionObj;
@@ -752,23 +806,66 @@ public abstract class GraalJSException extends RuntimeException implements Truff
                 builder.append(methodName);
                 builder.append(" (");
             }
+            builder.append(getCachedLocation(context, LOCATION_FORMAT_CALL_SITE));
+            if (includeMethodName) {
+                builder.append(")");
+            }
+            return builder.toString();
+        }
+
+        /**
+         * The source location part of this element as it appears in the {@code stack} property of
+         * errors, see {@link JSError#formatStackTrace}.
+         */
+        @TruffleBoundary
+        public String getFormattedLocation(JSContext context) {
+            return getCachedLocation(context, LOCATION_FORMAT_STACK);
+        }
+
+        /**
+         * Source locations only depend on the location node and the format, so they are formatted
+         * once and then shared by all stack traces passing through the same node.
+         */
+        private String getCachedLocation(JSContext context, int format) {
+            String location = context.getFormattedStackFrameLocation(locationNode, format);
+            if (location == null) {
+                location = format == LOCATION_FORMAT_CALL_SITE ? formatV8Location() : formatLocation(context);
+                context.cacheFormattedStackFrameLocation(locationNode, format, location);
+            }
+            return location;
+        }
+
+        private String formatV8Location() {
             if (JSFunction.isBuiltinSourceSection(sourceSection)) {
-                builder.append("native");
-            } else {
-                String evalOrigin = getEvalOrigin();
-                String sourceName = evalOrigin != null ? evalOrigin : getFileName();
-                builder.append(sourceName);
-                if (eval) {
-                    builder.append(", <anonymous>");
-                }
-                builder.append(":");
-                builder.append(getLineNumber());
+                return "native";
+            }
+            StringBuilder builder = new StringBuilder();
+            String evalOrigin = getEvalOrigin();
+            String sourceName = evalOrigin != null ? evalOrigin : getFileName();
+            builder.append(sourceName);
+            if (eval) {
+                builder.append(", <anonymous>");
+            }
+            builder.append(":");
+            builder.append(getLineNumber());
+            builder.append(":");
+            builder.append(getColumnNumber());
+            return builder.toString();
+        }
+
+        private String formatLocation(JSContext context) {
+            String name = getFileName();
+            if (JSFunction.BUILTIN_SOURCE_NAME.equals(name)) {
+                return "native";
+            }
+            StringBuilder builder = new StringBuilder();
+            builder.append(name);
+            builder.append(":");
+            builder.append(getLineNumber());
+            if (!context.isOptionNashornCompatibilityMode()) {
                 builder.append(":");
                 builder.append(getColumnNumber());
             }
-            if (includeMethodName) {
-                builder.append(")");
-            }
             return builder.toString();
         }
     }
@@ -150,19 +150,35 @@ public abstract class JSAgent implements EcmaAgent {
         promiseJobsQueue.push(job);
     }
 
+    /**
+     * Removes and returns the next promise job if it belongs to the given realm, otherwise returns
+     * {@code null}.
+     */
+    @TruffleBoundary
+    public final DynamicObject pollPromiseJob(JSRealm realm) {
+        DynamicObject nextJob = promiseJobsQueue.peekLast();
+        if (nextJob != null && JSFunction.isJSFunction(nextJob) && JSFunction.getRealm(nextJob) == realm) {
+            return promiseJobsQueue.pollLast();
+        }
+        return null;
+    }
+
     @TruffleBoundary
     public final void processAllPromises() {
         try {
             while (!promiseJobsQueue.isEmpty()) {
-                DynamicObject nextJob = promiseJobsQueue.pollLast();
+                DynamicObject nextJob = promiseJobsQueue.peekLast();
                 if (JSFunction.isJSFunction(nextJob)) {
                     JSRealm functionRealm = JSFunction.getRealm(nextJob);
                     Object prev = functionRealm.getTruffleContext().enter();
                     try {
-                        JSFunction.call(nextJob, Undefined.instance, JSArguments.EMPTY_ARGUMENTS_ARRAY);
+                        // runs this and all directly following jobs of the same realm
+                        functionRealm.getContext().getPromiseJobsRunnerCallTarget().call(this, functionRealm);
                     } finally {
                         functionRealm.getTruffleContext().leave(prev);
                     }
+                } else {
+                    promiseJobsQueue.pollLast();
                 }
             }
         } finally {
@@ -58,6 +58,8 @@ public final class JSConfig {
     public static final boolean TrackArrayAllocationSites = Boolean.FALSE;
     public static final int BigArrayThreshold = 10000;
     public static final boolean MarkElementsNonNull = true;
+    /** Numeric arrays of at least this length are sorted using {@code Arrays.parallelSort}. */
+    public static final int ParallelSortThreshold = 1 << 16;
 
     // Debug options
     public static final boolean DebugCounters = false;
@@ -66,13 +66,16 @@ import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.object.Property;
 import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.builtins.JSBuiltinsContainer;
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
 import com.oracle.truffle.js.nodes.access.GetPrototypeNode;
 import com.oracle.truffle.js.nodes.cast.JSToObjectNode;
+import com.oracle.truffle.js.nodes.promise.PromiseJobsRunnerRootNode;
 import com.oracle.truffle.js.runtime.array.TypedArray;
 import com.oracle.truffle.js.runtime.array.TypedArrayFactory;
 import com.oracle.truffle.js.runtime.builtins.Builtin;
@@ -121,6 +124,7 @@ import com.oracle.truffle.js.runtime.builtins.PrototypeSupplier;
 import com.oracle.truffle.js.runtime.java.JavaImporter;
 import com.oracle.truffle.js.runtime.java.JavaPackage;
 import com.oracle.truffle.js.runtime.java.adapter.JavaAdapterFactory;
+import com.oracle.truffle.js.runtime.objects.JSBuiltinsTemplate;
 import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSPrototypeData;
@@ -131,7 +135,10 @@ import com.oracle.truffle.js.runtime.objects.ScriptOrModule;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.CompilableBiFunction;
 import com.oracle.truffle.js.runtime.util.CompilableFunction;
+import com.oracle.truffle.js.runtime.util.DebugCounter;
 import com.oracle.truffle.js.runtime.util.DebugJSAgent;
+import com.oracle.truffle.js.runtime.util.LRUCache;
+import com.oracle.truffle.js.runtime.util.Pair;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 import com.oracle.truffle.js.runtime.util.TimeProfiler;
 
@@ -210,6 +217,7 @@ public class JSContext {
     private volatile CallTarget boundFunctionCallTargetCache;
     private volatile CallTarget boundFunctionConstructTargetCache;
     private volatile CallTarget boundFunctionConstructNewTargetCache;
+    private volatile CallTarget promiseJobsRunnerCallTargetCache;
 
     public enum BuiltinFunctionKey {
         ArrayFlattenIntoArray,
@@ -313,6 +321,23 @@ public class JSContext {
     private final JSContextOptions contextOptions;
 
     private final Map<Builtin, JSFunctionData> builtinFunctionDataMap = new ConcurrentHashMap<>();
+    private final Map<JSBuiltinsContainer, JSBuiltinsTemplate> builtinsTemplateMap = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled regular expressions by (pattern, flags), shared by all realms using this context.
+     * The regex engine options are fixed per context and therefore not part of the key.
+     */
+    private volatile Map<Pair<String, String>, Object> compiledRegexCache;
+
+    /**
+     * Formatted source locations of stack trace elements by the node they are derived from and by
+     * location format, shared by all stack traces of this context. Weak keys, so that collected
+     * ASTs are dropped.
+     */
+    private final Map<Node, String[]> formattedStackFrameLocations = new WeakHashMap<>();
+
+    private static final DebugCounter regexCacheHits = DebugCounter.create("Regex compile cache hits");
+    private static final DebugCounter regexCacheMisses = DebugCounter.create("Regex compile cache misses");
 
     private final JSPrototypeData nullPrototypeData = new JSPrototypeData();
     private final JSPrototypeData inObjectPrototypeData = new JSPrototypeData();
@@ -1044,6 +1069,20 @@ public class JSContext {
         return result;
     }
 
+    @TruffleBoundary
+    public CallTarget getPromiseJobsRunnerCallTarget() {
+        CallTarget result = promiseJobsRunnerCallTargetCache;
+        if (result == null) {
+            synchronized (this) {
+                result = promiseJobsRunnerCallTargetCache;
+                if (result == null) {
+                    result = promiseJobsRunnerCallTargetCache = Truffle.getRuntime().createCallTarget(new PromiseJobsRunnerRootNode(this));
+                }
+            }
+        }
+        return result;
+    }
+
     @TruffleBoundary
     public CallTarget getGeneratorNotConstructibleCallTarget() {
         CallTarget result = generatorNotConstructibleCallTargetCache;
@@ -1445,6 +1484,76 @@ public class JSContext {
         builtinFunctionDataMap.putIfAbsent(key, functionData);
     }
 
+    public final JSBuiltinsTemplate getBuiltinsTemplate(JSBuiltinsContainer container) {
+        CompilerAsserts.neverPartOfCompilation();
+        return builtinsTemplateMap.get(container);
+    }
+
+    public final void putBuiltinsTemplate(JSBuiltinsContainer container, JSBuiltinsTemplate template) {
+        CompilerAsserts.neverPartOfCompilation();
+        builtinsTemplateMap.putIfAbsent(container, template);
+    }
+
+    /**
+     * Returns the compiled regular expression for the given pattern and flags from the
+     * context-wide cache, or {@code null} if it has not been compiled yet.
+     */
+    @TruffleBoundary
+    public final Object getCachedCompiledRegex(String pattern, String flags) {
+        Map<Pair<String, String>, Object> cache = getCompiledRegexCache();
+        Object compiledRegex;
+        synchronized (cache) {
+            compiledRegex = cache.get(new Pair<>(pattern, flags));
+        }
+        if (compiledRegex != null) {
+            regexCacheHits.inc();
+        } else {
+            regexCacheMisses.inc();
+        }
+        return compiledRegex;
+    }
+
+    @TruffleBoundary
+    public final void cacheCompiledRegex(String pattern, String flags, Object compiledRegex) {
+        Map<Pair<String, String>, Object> cache = getCompiledRegexCache();
+        synchronized (cache) {
+            cache.put(new Pair<>(pattern, flags), compiledRegex);
+        }
+    }
+
+    private Map<Pair<String, String>, Object> getCompiledRegexCache() {
+        Map<Pair<String, String>, Object> cache = compiledRegexCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = compiledRegexCache;
+                if (cache == null) {
+                    compiledRegexCache = cache = new LRUCache<>(getContextOptions().getRegexCacheSize());
+                }
+            }
+        }
+        return cache;
+    }
+
+    @TruffleBoundary
+    public final String getFormattedStackFrameLocation(Node locationNode, int format) {
+        synchronized (formattedStackFrameLocations) {
+            String[] locations = formattedStackFrameLocations.get(locationNode);
+            return locations == null ? null : locations[format];
+        }
+    }
+
+    @TruffleBoundary
+    public final void cacheFormattedStackFrameLocation(Node locationNode, int format, String location) {
+        synchronized (formattedStackFrameLocations) {
+            String[] locations = formattedStackFrameLocations.get(locationNode);
+            if (locations == null) {
+                locations = new String[GraalJSException.JSStackTraceElement.LOCATION_FORMAT_COUNT];
+                formattedStackFrameLocations.put(locationNode, locations);
+            }
+            locations[format] = location;
+        }
+    }
+
     public final boolean neverCreatedChildRealms() {
         return noChildRealmsAssumption.isValid();
     }
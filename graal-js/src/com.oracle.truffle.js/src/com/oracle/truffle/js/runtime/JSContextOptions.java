@@ -393,6 +393,15 @@ public final class JSContextOptions {
     public static final OptionKey<Integer> FUNCTION_CONSTRUCTOR_CACHE_SIZE = new OptionKey<>(32);
     @CompilationFinal private int functionConstructorCacheSize;
 
+    public static final String REGEX_CACHE_SIZE_NAME = JS_OPTION_PREFIX + "regex-cache-size";
+    @Option(name = REGEX_CACHE_SIZE_NAME, category = OptionCategory.EXPERT, help = "Maximum size of the per-context cache of compiled regular expressions (0 to disable).") //
+    public static final OptionKey<Integer> REGEX_CACHE_SIZE = new OptionKey<>(256);
+    @CompilationFinal private int regexCacheSize;
+
+    public static final String CODE_CACHE_DIR_NAME = JS_OPTION_PREFIX + "code-cache-dir";
+    @Option(name = CODE_CACHE_DIR_NAME, category = OptionCategory.EXPERT, help = "Directory used to persist and reuse parsed scripts across runs (disabled if empty).") //
+    public static final OptionKey<String> CODE_CACHE_DIR = new OptionKey<>("");
+
     public static final String STRING_LENGTH_LIMIT_NAME = JS_OPTION_PREFIX + "string-length-limit";
     @Option(name = STRING_LENGTH_LIMIT_NAME, category = OptionCategory.EXPERT, help = "Maximum string length.") //
     public static final OptionKey<Integer> STRING_LENGTH_LIMIT = new OptionKey<>(JSConfig.StringLengthLimit);
@@ -435,6 +444,30 @@ public final class JSContextOptions {
     public static final OptionKey<Boolean> LAZY_TRANSLATION = new OptionKey<>(false);
     @CompilationFinal private boolean lazyTranslation;
 
+    public static final String LAZY_BUILTINS_NAME = JS_OPTION_PREFIX + "lazy-builtins";
+    @Option(name = LAZY_BUILTINS_NAME, category = OptionCategory.EXPERT, help = "Create built-in function objects on first access.") //
+    public static final OptionKey<Boolean> LAZY_BUILTINS = new OptionKey<>(false);
+    @CompilationFinal private boolean lazyBuiltins;
+
+    public static final String MODULE_PREFETCH_NAME = JS_OPTION_PREFIX + "module-prefetch";
+    @Option(name = MODULE_PREFETCH_NAME, category = OptionCategory.EXPERT, help = "Parse the dependencies of ES modules in parallel on background threads. Requires thread creation to be allowed.") //
+    public static final OptionKey<Boolean> MODULE_PREFETCH = new OptionKey<>(false);
+    @CompilationFinal private boolean modulePrefetch;
+
+    public static final String MODULE_RESOLUTION_CACHE_NAME = JS_OPTION_PREFIX + "module-resolution-cache";
+    @Option(name = MODULE_RESOLUTION_CACHE_NAME, category = OptionCategory.EXPERT, help = "Cache resolved module specifiers, file lookups and package.json files of require and import.") //
+    public static final OptionKey<Boolean> MODULE_RESOLUTION_CACHE = new OptionKey<>(false);
+    @CompilationFinal private boolean moduleResolutionCache;
+
+    public static final String MODULE_RESOLUTION_CACHE_VALIDATE_NAME = JS_OPTION_PREFIX + "module-resolution-cache-validate";
+    @Option(name = MODULE_RESOLUTION_CACHE_VALIDATE_NAME, category = OptionCategory.EXPERT, help = "Revalidate module resolution cache entries using file modification times.") //
+    public static final OptionKey<Boolean> MODULE_RESOLUTION_CACHE_VALIDATE = new OptionKey<>(false);
+    @CompilationFinal private boolean moduleResolutionCacheValidate;
+
+    public static final String HEAP_SNAPSHOT_NAME = JS_OPTION_PREFIX + "heap-snapshot";
+    @Option(name = HEAP_SNAPSHOT_NAME, category = OptionCategory.EXPERT, help = "Restore data-only global properties (primitives, plain objects, arrays, dates, maps and sets; no functions) from a heap snapshot file created by the snapshot tool (disabled if empty).") //
+    public static final OptionKey<String> HEAP_SNAPSHOT = new OptionKey<>("");
+
     public static final String MAX_TYPED_ARRAY_LENGTH_NAME = JS_OPTION_PREFIX + "max-typed-array-length";
     @Option(name = MAX_TYPED_ARRAY_LENGTH_NAME, category = OptionCategory.EXPERT, help = "Maximum allowed length for TypedArrays.") //
     public static final OptionKey<Integer> MAX_TYPED_ARRAY_LENGTH = new OptionKey<>(JSConfig.MaxTypedArrayLength);
@@ -531,6 +564,7 @@ public final class JSContextOptions {
         this.testV8Mode = readBooleanOption(TESTV8_MODE);
         this.validateRegExpLiterals = readBooleanOption(VALIDATE_REGEXP_LITERALS);
         this.functionConstructorCacheSize = readIntegerOption(FUNCTION_CONSTRUCTOR_CACHE_SIZE);
+        this.regexCacheSize = readIntegerOption(REGEX_CACHE_SIZE);
         this.stringLengthLimit = readIntegerOption(STRING_LENGTH_LIMIT);
         this.bindMemberFunctions = readBooleanOption(BIND_MEMBER_FUNCTIONS);
         this.commonJSRequire = readBooleanOption(COMMONJS_REQUIRE);
@@ -538,6 +572,10 @@ public final class JSContextOptions {
         this.interopCompletePromises = readBooleanOption(INTEROP_COMPLETE_PROMISES);
         this.testCloneUninitialized = readBooleanOption(TEST_CLONE_UNINITIALIZED);
         this.lazyTranslation = readBooleanOption(LAZY_TRANSLATION);
+        this.lazyBuiltins = readBooleanOption(LAZY_BUILTINS);
+        this.modulePrefetch = readBooleanOption(MODULE_PREFETCH);
+        this.moduleResolutionCache = readBooleanOption(MODULE_RESOLUTION_CACHE);
+        this.moduleResolutionCacheValidate = readBooleanOption(MODULE_RESOLUTION_CACHE_VALIDATE);
         this.stackTraceLimit = readIntegerOption(STACK_TRACE_LIMIT);
         this.maxTypedArrayLength = readIntegerOption(MAX_TYPED_ARRAY_LENGTH);
         this.maxApplyArgumentLength = readIntegerOption(MAX_APPLY_ARGUMENT_LENGTH);
@@ -825,6 +863,15 @@ public final class JSContextOptions {
         return functionConstructorCacheSize;
     }
 
+    public int getRegexCacheSize() {
+        return regexCacheSize;
+    }
+
+    public String getCodeCacheDir() {
+        CompilerAsserts.neverPartOfCompilation("Option code-cache-dir was assumed not to be accessed in compiled code.");
+        return CODE_CACHE_DIR.getValue(optionValues);
+    }
+
     public int getStringLengthLimit() {
         return stringLengthLimit;
     }
@@ -859,6 +906,27 @@ public final class JSContextOptions {
         return lazyTranslation;
     }
 
+    public boolean isLazyBuiltins() {
+        return lazyBuiltins;
+    }
+
+    public boolean isModulePrefetch() {
+        return modulePrefetch;
+    }
+
+    public boolean isModuleResolutionCache() {
+        return moduleResolutionCache;
+    }
+
+    public boolean isModuleResolutionCacheValidate() {
+        return moduleResolutionCacheValidate;
+    }
+
+    public String getHeapSnapshot() {
+        CompilerAsserts.neverPartOfCompilation("Context patchable option heap-snapshot was assumed not to be accessed in compiled code.");
+        return HEAP_SNAPSHOT.getValue(optionValues);
+    }
+
     public boolean isProfileTimePrintCumulative() {
         CompilerAsserts.neverPartOfCompilation("Context patchable option profile-time-print-cumulative was assumed not to be accessed in compiled code.");
         return PROFILE_TIME_PRINT_CUMULATIVE.getValue(optionValues);
@@ -921,6 +989,7 @@ public final class JSContextOptions {
         hash = 53 * hash + (this.testV8Mode ? 1 : 0);
         hash = 53 * hash + (this.validateRegExpLiterals ? 1 : 0);
         hash = 53 * hash + this.functionConstructorCacheSize;
+        hash = 53 * hash + this.regexCacheSize;
         hash = 53 * hash + this.stringLengthLimit;
         hash = 53 * hash + (this.bindMemberFunctions ? 1 : 0);
         hash = 53 * hash + (this.commonJSRequire ? 1 : 0);
@@ -928,6 +997,10 @@ public final class JSContextOptions {
         hash = 53 * hash + (this.interopCompletePromises ? 1 : 0);
         hash = 53 * hash + (this.testCloneUninitialized ? 1 : 0);
         hash = 53 * hash + (this.lazyTranslation ? 1 : 0);
+        hash = 53 * hash + (this.lazyBuiltins ? 1 : 0);
+        hash = 53 * hash + (this.modulePrefetch ? 1 : 0);
+        hash = 53 * hash + (this.moduleResolutionCache ? 1 : 0);
+        hash = 53 * hash + (this.moduleResolutionCacheValidate ? 1 : 0);
         hash = 53 * hash + this.stackTraceLimit;
         hash = 53 * hash + this.maxTypedArrayLength;
         hash = 53 * hash + this.maxApplyArgumentLength;
@@ -1036,6 +1109,9 @@ public final class JSContextOptions {
         if (this.functionConstructorCacheSize != other.functionConstructorCacheSize) {
             return false;
         }
+        if (this.regexCacheSize != other.regexCacheSize) {
+            return false;
+        }
         if (this.stringLengthLimit != other.stringLengthLimit) {
             return false;
         }
@@ -1057,6 +1133,18 @@ public final class JSContextOptions {
         if (this.lazyTranslation != other.lazyTranslation) {
             return false;
         }
+        if (this.lazyBuiltins != other.lazyBuiltins) {
+            return false;
+        }
+        if (this.modulePrefetch != other.modulePrefetch) {
+            return false;
+        }
+        if (this.moduleResolutionCache != other.moduleResolutionCache) {
+            return false;
+        }
+        if (this.moduleResolutionCacheValidate != other.moduleResolutionCacheValidate) {
+            return false;
+        }
         if (this.stackTraceLimit != other.stackTraceLimit) {
             return false;
         }
@@ -42,9 +42,11 @@ package com.oracle.truffle.js.runtime;
 
 import static com.oracle.truffle.js.lang.JavaScriptLanguage.MODULE_SOURCE_NAME_SUFFIX;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -76,6 +78,7 @@ import com.oracle.truffle.js.builtins.ConsoleBuiltins;
 import com.oracle.truffle.js.builtins.ConstructorBuiltins;
 import com.oracle.truffle.js.builtins.DebugBuiltins;
 import com.oracle.truffle.js.builtins.GlobalBuiltins;
+import com.oracle.truffle.js.builtins.GraalBuiltins;
 import com.oracle.truffle.js.builtins.JSBuiltinsContainer;
 import com.oracle.truffle.js.builtins.JavaBuiltins;
 import com.oracle.truffle.js.builtins.MapIteratorPrototypeBuiltins;
@@ -148,9 +151,12 @@ import com.oracle.truffle.js.runtime.objects.JSAttributes;
 import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
+import com.oracle.truffle.js.runtime.objects.ModuleResolutionCache;
 import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
 import com.oracle.truffle.js.runtime.objects.PropertyProxy;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.HeapSnapshot;
+import com.oracle.truffle.js.runtime.util.LRUCache;
 import com.oracle.truffle.js.runtime.util.PrintWriterWrapper;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 
@@ -170,6 +176,7 @@ public class JSRealm {
     public static final String JAVA_CLASS_NAME_NASHORN_COMPAT = "JavaNashornCompat";
     public static final String PERFORMANCE_CLASS_NAME = "performance";
     public static final String DEBUG_CLASS_NAME = "Debug";
+    public static final String GRAAL_CLASS_NAME = "Graal";
     public static final String CONSOLE_CLASS_NAME = "Console";
 
     private static final String GRAALVM_VERSION = HomeFinder.getInstance().getVersion();
@@ -386,6 +393,20 @@ public class JSRealm {
      */
     private final Map<TruffleFile, DynamicObject> commonJSRequireCache;
 
+    /**
+     * Per-realm cache of module resolution results of `require` and `import`.
+     */
+    private final ModuleResolutionCache moduleResolutionCache;
+
+    /**
+     * Per-realm cache of Intl objects created by locale-sensitive built-ins such as
+     * {@code Number.prototype.toLocaleString}, see
+     * {@link com.oracle.truffle.js.runtime.util.IntlUtil#localeFormatterCacheKey}.
+     */
+    private LRUCache<String, DynamicObject> localeFormatterCache;
+
+    private static final int LOCALE_FORMATTER_CACHE_SIZE = 32;
+
     public JSRealm(JSContext context, TruffleLanguage.Env env) {
         this.context = context;
         this.truffleLanguageEnv = env; // can be null
@@ -550,7 +571,7 @@ public class JSRealm {
         }
         this.enumerateIteratorPrototype = JSFunction.createEnumerateIteratorPrototype(this);
         this.forInIteratorPrototype = JSFunction.createForInIteratorPrototype(this);
-        this.arrayProtoValuesIterator = (DynamicObject) getArrayPrototype().get(Symbol.SYMBOL_ITERATOR, Undefined.instance);
+        this.arrayProtoValuesIterator = (DynamicObject) JSObject.get(getArrayPrototype(), Symbol.SYMBOL_ITERATOR);
 
         if (context.isOptionSharedArrayBuffer()) {
             ctor = JSSharedArrayBuffer.createConstructor(this);
@@ -635,6 +656,7 @@ public class JSRealm {
         } else {
             this.commonJSRequireCache = null;
         }
+        this.moduleResolutionCache = new ModuleResolutionCache(context.getContextOptions().isModuleResolutionCache(), context.getContextOptions().isModuleResolutionCacheValidate());
     }
 
     private void initializeTypedArrayConstructors() {
@@ -1348,6 +1370,21 @@ public class JSRealm {
             setupJavaInterop();
         }
         addCommonJSGlobals();
+        addHeapSnapshotGlobals();
+    }
+
+    @TruffleBoundary
+    private void addHeapSnapshotGlobals() {
+        String heapSnapshot = getContext().getContextOptions().getHeapSnapshot();
+        if (heapSnapshot != null && !heapSnapshot.isEmpty()) {
+            byte[] bytes;
+            try {
+                bytes = getEnv().getPublicTruffleFile(heapSnapshot).readAllBytes();
+            } catch (IOException | SecurityException e) {
+                throw Errors.createError("Cannot read heap snapshot " + heapSnapshot + ": " + e.getMessage());
+            }
+            HeapSnapshot.restore(this, ByteBuffer.wrap(bytes));
+        }
     }
 
     private void addGlobalGlobal() {
@@ -1402,7 +1439,8 @@ public class JSRealm {
         JSObjectUtil.putDataProperty(context, graalObject, "versionGraalVM", GRAALVM_VERSION, flags);
         JSObjectUtil.putDataProperty(context, graalObject, "versionJS", GRAALVM_VERSION, flags);
         JSObjectUtil.putDataProperty(context, graalObject, "isGraalRuntime", JSFunction.create(this, isGraalRuntimeFunction(context)), flags);
-        putGlobalProperty("Graal", graalObject);
+        JSObjectUtil.putFunctionsFromContainer(this, graalObject, GraalBuiltins.BUILTINS);
+        putGlobalProperty(GRAAL_CLASS_NAME, graalObject);
     }
 
     private static JSFunctionData isGraalRuntimeFunction(JSContext context) {
@@ -1797,6 +1835,8 @@ public class JSRealm {
         if (localTimeZoneId != null) {
             localTimeZoneId = getTimeZoneFromEnv();
         }
+        // Cached formatters depend on the default locale and time zone.
+        localeFormatterCache = null;
         initTimeOffsetAndRandom();
 
         // Patch the RegExp constructor's static result properties
@@ -2050,6 +2090,13 @@ public class JSRealm {
         }
     }
 
+    @TruffleBoundary
+    public void disposeModuleLoader() {
+        if (moduleLoader != null) {
+            moduleLoader.dispose();
+        }
+    }
+
     public final JSAgent getAgent() {
         assert agent != null;
         return agent;
@@ -2172,4 +2219,21 @@ public class JSRealm {
         return commonJSRequireCache;
     }
 
+    public final ModuleResolutionCache getModuleResolutionCache() {
+        return moduleResolutionCache;
+    }
+
+    @TruffleBoundary
+    public DynamicObject getCachedLocaleFormatter(String key) {
+        return localeFormatterCache == null ? null : localeFormatterCache.get(key);
+    }
+
+    @TruffleBoundary
+    public void cacheLocaleFormatter(String key, DynamicObject formatter) {
+        if (localeFormatterCache == null) {
+            localeFormatterCache = new LRUCache<>(LOCALE_FORMATTER_CACHE_SIZE);
+        }
+        localeFormatterCache.put(key, formatter);
+    }
+
 }
@@ -57,8 +57,19 @@ public final class RegexCompilerInterface {
         // RegexLanguage does its own validation of the flags. This call to validateFlags only
         // serves the purpose of mimicking the error messages of Nashorn and V8.
         validateFlags(flags, context.getEcmaScriptVersion(), context.isOptionNashornCompatibilityMode());
+        boolean useCache = context.getContextOptions().getRegexCacheSize() > 0;
+        if (useCache) {
+            Object cached = context.getCachedCompiledRegex(pattern, flags);
+            if (cached != null) {
+                return cached;
+            }
+        }
         try {
-            return compileRegexNode.execute(context.getRegexEngine(), pattern, flags);
+            Object compiledRegex = compileRegexNode.execute(context.getRegexEngine(), pattern, flags);
+            if (useCache) {
+                context.cacheCompiledRegex(pattern, flags, compiledRegex);
+            }
+            return compiledRegex;
         } catch (RuntimeException e) {
             CompilerDirectives.transferToInterpreter();
             if (e instanceof TruffleException && ((TruffleException) e).isSyntaxError()) {
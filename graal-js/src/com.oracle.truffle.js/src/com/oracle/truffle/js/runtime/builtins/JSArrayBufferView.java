@@ -532,9 +532,9 @@ public final class JSArrayBufferView extends JSBuiltinObject {
         JSObjectUtil.putConstantAccessorProperty(ctx, prototype, Symbol.SYMBOL_TO_STRING_TAG, toStringTagGetter, Undefined.instance);
         // The initial value of the @@iterator property is the same function object as the initial
         // value of the %TypedArray%.prototype.values property.
-        JSObjectUtil.putDataProperty(ctx, prototype, Symbol.SYMBOL_ITERATOR, prototype.get("values"), JSAttributes.getDefaultNotEnumerable());
+        JSObjectUtil.putDataProperty(ctx, prototype, Symbol.SYMBOL_ITERATOR, JSObject.get(prototype, "values"), JSAttributes.getDefaultNotEnumerable());
         // %TypedArray%.prototype.toString is the same function object as Array.prototype.toString
-        JSObjectUtil.putDataProperty(ctx, prototype, "toString", realm.getArrayPrototype().get("toString"), JSAttributes.getDefaultNotEnumerable());
+        JSObjectUtil.putDataProperty(ctx, prototype, "toString", JSObject.get(realm.getArrayPrototype(), "toString"), JSAttributes.getDefaultNotEnumerable());
         return prototype;
     }
 
@@ -64,6 +64,7 @@ import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.JSShape;
+import com.oracle.truffle.js.runtime.objects.LazyBuiltinFunctionPropertyProxy;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
 import com.oracle.truffle.js.runtime.objects.Undefined;
@@ -291,6 +292,10 @@ public final class JSDictionaryObject extends JSBuiltinObject {
             if (JSObject.HIDDEN_PROTO.equals(key)) {
                 assert hashedShape.hasProperty(key);
                 continue; // has already been added
+            } else if (JSProperty.isProxy(p) && p.get(obj, false) instanceof LazyBuiltinFunctionPropertyProxy) {
+                // not yet materialized built-in function
+                Object value = ((LazyBuiltinFunctionPropertyProxy) p.get(obj, false)).getFunction();
+                hashMap.put(key, toPropertyDescriptor(p, value));
             } else if (p.isHidden() || p.getLocation().isValue() || JSProperty.isProxy(p)) {
                 hashedShape = hashedShape.addProperty(p);
             } else {
@@ -397,18 +397,7 @@ public final class JSError extends JSBuiltinObject {
                     builder.append(methodName);
                     builder.append(" (");
                 }
-                String fileName = elem.getFileName();
-                if (JSFunction.BUILTIN_SOURCE_NAME.equals(fileName)) {
-                    builder.append("native");
-                } else {
-                    builder.append(fileName);
-                    builder.append(":");
-                    builder.append(elem.getLineNumber());
-                    if (!context.isOptionNashornCompatibilityMode()) {
-                        builder.append(":");
-                        builder.append(elem.getColumnNumber());
-                    }
-                }
+                builder.append(elem.getFormattedLocation(context));
                 if (includeMethodName) {
                     builder.append(")");
                 }
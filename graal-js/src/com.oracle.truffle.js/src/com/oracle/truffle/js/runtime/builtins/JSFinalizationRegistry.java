@@ -154,7 +154,7 @@ public final class JSFinalizationRegistry extends JSBuiltinObject implements JSC
         JSObjectUtil.putDataProperty(ctx, prototype, Symbol.SYMBOL_TO_STRING_TAG, CLASS_NAME, JSAttributes.configurableNotEnumerableNotWritable());
         // The initial value of the @@iterator property is the same function object as
         // the initial value of the entries property.
-        JSObjectUtil.putDataProperty(ctx, prototype, Symbol.SYMBOL_ITERATOR, prototype.get(JSArray.ENTRIES), JSAttributes.getDefaultNotEnumerable());
+        JSObjectUtil.putDataProperty(ctx, prototype, Symbol.SYMBOL_ITERATOR, JSObject.get(prototype, JSArray.ENTRIES), JSAttributes.getDefaultNotEnumerable());
         return prototype;
     }
 
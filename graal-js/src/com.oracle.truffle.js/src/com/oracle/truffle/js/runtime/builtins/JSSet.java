@@ -159,7 +159,7 @@ public final class JSSet extends JSBuiltinObject implements JSConstructorFactory
         JSObjectUtil.putConstantAccessorProperty(ctx, prototype, SIZE, createSizeGetterFunction(realm), Undefined.instance);
         JSObjectUtil.putFunctionsFromContainer(realm, prototype, SetPrototypeBuiltins.BUILTINS);
         JSObjectUtil.putDataProperty(ctx, prototype, Symbol.SYMBOL_TO_STRING_TAG, CLASS_NAME, JSAttributes.configurableNotEnumerableNotWritable());
-        Object values = prototype.get("values");
+        Object values = JSObject.get(prototype, "values");
         // The initial value of the keys and @@iterator properties is the same function object as
         // the initial value of the values property.
         JSObjectUtil.putDataProperty(ctx, prototype, "keys", values, JSAttributes.getDefaultNotEnumerable());
@@ -40,29 +40,101 @@
  */
 package com.oracle.truffle.js.runtime.objects;
 
+import com.oracle.js.parser.ir.FunctionNode;
+import com.oracle.js.parser.ir.Module;
+import com.oracle.truffle.api.TruffleContext;
 import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage.Env;
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
 import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRealm;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultESModuleLoader implements JSModuleLoader {
 
+    /**
+     * Maximum number of modules that are parsed in the background, but have not been loaded yet.
+     * Modules found while the limit is reached wait in {@link #pendingModules}.
+     */
+    private static final int MAX_PREFETCHED_MODULES = 64;
+    private static final int MAX_PREFETCH_THREADS = 4;
+
     protected final JSRealm realm;
     protected final Map<String, JSModuleRecord> moduleMap = new HashMap<>();
 
+    /**
+     * Modules that are parsed in the background, but have not been loaded yet, by canonical path,
+     * in the order they were found. {@code null} if prefetching is disabled. Guards the other
+     * prefetching state, which is shared by the context thread and the parser threads.
+     */
+    private final LinkedHashMap<String, Future<PrefetchedModule>> prefetchedModules;
+    /** Canonical paths of all modules that have been loaded or found by the prefetching. */
+    private final Set<String> knownModules;
+    /** Modules that are found, but wait for a free slot in {@link #prefetchedModules}. */
+    private final ArrayDeque<ModuleRequest> pendingModules;
+
+    /**
+     * Parses prefetched modules. Created on first use, shut down in {@link #dispose()}.
+     */
+    private ThreadPoolExecutor prefetchExecutor;
+    private final List<TruffleContext> prefetchContexts = new ArrayList<>();
+
+    /**
+     * A module that has been parsed, but not translated yet.
+     */
+    private static final class PrefetchedModule {
+        final Source source;
+        final FunctionNode parsed;
+
+        PrefetchedModule(Source source, FunctionNode parsed) {
+            this.source = source;
+            this.parsed = parsed;
+        }
+    }
+
+    /**
+     * A module that has been resolved by the prefetching, but not parsed yet.
+     */
+    private static final class ModuleRequest {
+        final String specifier;
+        final TruffleFile moduleFile;
+
+        ModuleRequest(String specifier, TruffleFile moduleFile) {
+            this.specifier = specifier;
+            this.moduleFile = moduleFile;
+        }
+    }
+
     public static DefaultESModuleLoader create(JSRealm realm) {
         return new DefaultESModuleLoader(realm);
     }
 
     protected DefaultESModuleLoader(JSRealm realm) {
         this.realm = realm;
+        boolean prefetch = realm.getContext().getContextOptions().isModulePrefetch() && realm.getEnv().isCreateThreadAllowed();
+        this.prefetchedModules = prefetch ? new LinkedHashMap<>() : null;
+        this.knownModules = prefetch ? new HashSet<>() : null;
+        this.pendingModules = prefetch ? new ArrayDeque<>() : null;
     }
 
     protected URI asURI(String specifier) {
@@ -81,19 +153,7 @@ public class DefaultESModuleLoader implements JSModuleLoader {
     public JSModuleRecord resolveImportedModule(ScriptOrModule referrer, String specifier) {
         String refPath = referrer == null ? null : referrer.getSource().getPath();
         try {
-            TruffleFile moduleFile;
-            if (refPath == null) {
-                // Importing module source does not originate from a file.
-                URI maybeUri = asURI(specifier);
-                if (maybeUri != null) {
-                    moduleFile = realm.getEnv().getPublicTruffleFile(maybeUri).getCanonicalFile();
-                } else {
-                    moduleFile = realm.getEnv().getPublicTruffleFile(specifier).getCanonicalFile();
-                }
-            } else {
-                TruffleFile refFile = realm.getEnv().getPublicTruffleFile(refPath);
-                moduleFile = refFile.resolveSibling(specifier).getCanonicalFile();
-            }
+            TruffleFile moduleFile = resolveModuleFile(refPath, specifier);
             String canonicalPath = moduleFile.getPath();
             return loadModuleFromUrl(specifier, moduleFile, canonicalPath);
         } catch (IOException | SecurityException e) {
@@ -101,17 +161,154 @@ public class DefaultESModuleLoader implements JSModuleLoader {
         }
     }
 
+    private TruffleFile resolveModuleFile(String refPath, String specifier) throws IOException {
+        ModuleResolutionCache cache = realm.getModuleResolutionCache();
+        if (!cache.isEnabled()) {
+            return resolveModuleFileUncached(refPath, specifier);
+        }
+        TruffleFile directory = refPath == null ? realm.getEnv().getCurrentWorkingDirectory() : realm.getEnv().getPublicTruffleFile(refPath).getParent();
+        return cache.resolveModule(ModuleResolutionCache.Resolver.ES_MODULE, directory, specifier, () -> resolveModuleFileUncached(refPath, specifier));
+    }
+
+    private TruffleFile resolveModuleFileUncached(String refPath, String specifier) throws IOException {
+        if (refPath == null) {
+            // Importing module source does not originate from a file.
+            URI maybeUri = asURI(specifier);
+            if (maybeUri != null) {
+                return realm.getEnv().getPublicTruffleFile(maybeUri).getCanonicalFile();
+            } else {
+                return realm.getEnv().getPublicTruffleFile(specifier).getCanonicalFile();
+            }
+        } else {
+            TruffleFile refFile = realm.getEnv().getPublicTruffleFile(refPath);
+            return refFile.resolveSibling(specifier).getCanonicalFile();
+        }
+    }
+
     protected JSModuleRecord loadModuleFromUrl(String specifier, TruffleFile moduleFile, String canonicalPath) throws IOException {
         JSModuleRecord existingModule = moduleMap.get(canonicalPath);
         if (existingModule != null) {
             return existingModule;
         }
-        Source source = Source.newBuilder(JavaScriptLanguage.ID, moduleFile).name(specifier).build();
-        JSModuleRecord newModule = realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this);
+        JSModuleRecord newModule = prefetchedModules == null ? null : takePrefetchedModule(specifier, canonicalPath);
+        if (newModule == null) {
+            Source source = Source.newBuilder(JavaScriptLanguage.ID, moduleFile).name(specifier).build();
+            newModule = realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this);
+            prefetchDependencies(newModule);
+        }
         moduleMap.put(canonicalPath, newModule);
         return newModule;
     }
 
+    /**
+     * Translates a module that has been parsed in the background, if any. Returns {@code null} if
+     * the module has to be loaded on this thread, e.g., because parsing failed and the error has
+     * to be reported from here.
+     */
+    private JSModuleRecord takePrefetchedModule(String specifier, String canonicalPath) {
+        Future<PrefetchedModule> future;
+        synchronized (prefetchedModules) {
+            knownModules.add(canonicalPath);
+            future = prefetchedModules.remove(canonicalPath);
+            if (future == null && prefetchedModules.size() >= MAX_PREFETCHED_MODULES) {
+                // Not prefetched although all slots are taken: the module found first has not
+                // been used so far, so it is evicted to make room for the pending modules.
+                Iterator<Future<PrefetchedModule>> eldest = prefetchedModules.values().iterator();
+                eldest.next().cancel(false);
+                eldest.remove();
+            }
+            submitPendingModules();
+        }
+        if (future == null) {
+            return null;
+        }
+        PrefetchedModule prefetched;
+        try {
+            prefetched = future.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        // The name is taken from the first import, which does not have to be the one evaluated first.
+        if (!prefetched.source.getName().equals(specifier)) {
+            return null;
+        }
+        return realm.getContext().getEvaluator().parseModule(realm.getContext(), prefetched.source, this, prefetched.parsed);
+    }
+
+    /**
+     * Starts prefetching the modules requested by a module that has been loaded on the context
+     * thread. The dependencies of prefetched modules are found by the parser threads.
+     */
+    private void prefetchDependencies(JSModuleRecord loadedModule) {
+        if (prefetchedModules == null) {
+            return;
+        }
+        if (prefetchExecutor == null) {
+            startPrefetchExecutor();
+        }
+        prefetchDependencies(loadedModule.getSource().getPath(), ((Module) loadedModule.getModule()).getRequestedModules());
+    }
+
+    /**
+     * Resolves the requested modules and parses the ones not known yet in the background. Called
+     * on the context thread and on the parser threads, so the import graph is walked in the
+     * background. Dependencies are resolved like by this loader, modules that end up being resolved
+     * to another file are just not used.
+     */
+    private void prefetchDependencies(String refPath, List<String> requestedModules) {
+        for (String requestedModule : requestedModules) {
+            TruffleFile moduleFile;
+            try {
+                moduleFile = resolveModuleFile(refPath, requestedModule);
+            } catch (IOException | RuntimeException e) {
+                continue; // reported when the module is resolved
+            }
+            synchronized (prefetchedModules) {
+                if (knownModules.add(moduleFile.getPath())) {
+                    pendingModules.add(new ModuleRequest(requestedModule, moduleFile));
+                }
+                submitPendingModules();
+            }
+        }
+    }
+
+    private void submitPendingModules() {
+        assert Thread.holdsLock(prefetchedModules);
+        while (prefetchedModules.size() < MAX_PREFETCHED_MODULES && !pendingModules.isEmpty()) {
+            ModuleRequest request = pendingModules.remove();
+            try {
+                prefetchedModules.put(request.moduleFile.getPath(), prefetchExecutor.submit(() -> prefetchModule(request)));
+            } catch (RejectedExecutionException e) {
+                return; // disposed
+            }
+        }
+    }
+
+    private PrefetchedModule prefetchModule(ModuleRequest request) throws IOException {
+        JSContext context = realm.getContext();
+        Source source = Source.newBuilder(JavaScriptLanguage.ID, request.moduleFile).name(request.specifier).build();
+        FunctionNode parsed = context.getEvaluator().preparseModule(context, source);
+        prefetchDependencies(source.getPath(), parsed.getModule().getRequestedModules());
+        return new PrefetchedModule(source, parsed);
+    }
+
+    private void startPrefetchExecutor() {
+        Env env = realm.getEnv();
+        int threads = Math.max(1, Math.min(MAX_PREFETCH_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        prefetchExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+            // The context is single-threaded, so each parser thread enters an inner context of
+            // its own. The parser does not use the realm of that context.
+            TruffleContext parserContext = env.newContextBuilder().build();
+            prefetchContexts.add(parserContext);
+            return env.createThread(runnable, parserContext);
+        });
+        // the inner contexts are created here, on the context thread
+        prefetchExecutor.prestartAllCoreThreads();
+    }
+
     @Override
     public JSModuleRecord loadModule(Source source) {
         String path = source.getPath();
@@ -127,6 +324,51 @@ public class DefaultESModuleLoader implements JSModuleLoader {
                 throw Errors.createErrorFromException(e);
             }
         }
-        return moduleMap.computeIfAbsent(canonicalPath, (key) -> realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this));
+        JSModuleRecord existingModule = moduleMap.get(canonicalPath);
+        if (existingModule != null) {
+            return existingModule;
+        }
+        JSModuleRecord newModule = realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this);
+        moduleMap.put(canonicalPath, newModule);
+        if (prefetchedModules != null) {
+            synchronized (prefetchedModules) {
+                knownModules.add(canonicalPath);
+            }
+            prefetchDependencies(newModule);
+        }
+        return newModule;
+    }
+
+    /**
+     * Stops the background parsing of modules and waits for the parser threads to complete.
+     */
+    @Override
+    public void dispose() {
+        if (prefetchExecutor == null) {
+            return;
+        }
+        prefetchExecutor.shutdownNow();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (prefetchExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (TruffleContext parserContext : prefetchContexts) {
+            parserContext.close();
+        }
+        prefetchContexts.clear();
+        prefetchExecutor = null;
+        synchronized (prefetchedModules) {
+            prefetchedModules.clear();
+            pendingModules.clear();
+        }
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
+
+/**
+ * Recorded result of installing the functions of a built-ins container into an object.
+ *
+ * In a multi-context setup, shapes are shared by all realms of a context, so every realm
+ * installs the same built-in functions into objects of the same initial shape and ends up with the
+ * same final shape. The first realm records this transition; subsequent realms replay it with a
+ * single shape change instead of defining every property one at a time.
+ *
+ * @see JSObjectUtil#putFunctionsFromContainer
+ */
+public final class JSBuiltinsTemplate {
+    private final Shape initialShape;
+    private final Shape finalShape;
+    private final JSFunctionData[] functionData;
+    private final Property[] properties;
+
+    JSBuiltinsTemplate(Shape initialShape, Shape finalShape, JSFunctionData[] functionData, Property[] properties) {
+        assert functionData.length == properties.length;
+        this.initialShape = initialShape;
+        this.finalShape = finalShape;
+        this.functionData = functionData;
+        this.properties = properties;
+    }
+
+    /**
+     * Creates a template from the shapes before and after installing the given functions, or
+     * returns {@code null} if the installed properties cannot be replayed.
+     */
+    static JSBuiltinsTemplate create(Shape initialShape, Shape finalShape, JSFunctionData[] functionData, Object[] keys) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (initialShape == finalShape || !finalShape.isValid() || finalShape.getPropertyCount() != initialShape.getPropertyCount() + keys.length) {
+            return null;
+        }
+        Property[] properties = new Property[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            Property property = finalShape.getProperty(keys[i]);
+            if (property == null || !JSProperty.isData(property) || initialShape.hasProperty(keys[i])) {
+                return null;
+            }
+            properties[i] = property;
+        }
+        return new JSBuiltinsTemplate(initialShape, finalShape, functionData, properties);
+    }
+
+    boolean isApplicable(DynamicObject thisObj) {
+        return thisObj.getShape() == initialShape && finalShape.isValid();
+    }
+
+    void apply(JSRealm realm, DynamicObject thisObj) {
+        CompilerAsserts.neverPartOfCompilation();
+        assert isApplicable(thisObj);
+        thisObj.setShapeAndGrow(initialShape, finalShape);
+        for (int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            Object value;
+            if (JSProperty.isProxy(property)) {
+                value = new LazyBuiltinFunctionPropertyProxy(realm, functionData[i], property.getKey());
+            } else {
+                value = JSFunction.create(realm, functionData[i]);
+            }
+            property.setSafe(thisObj, value, null);
+        }
+    }
+}
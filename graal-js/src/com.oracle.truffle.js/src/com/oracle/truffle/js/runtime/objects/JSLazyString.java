@@ -40,6 +40,10 @@
  */
 package com.oracle.truffle.js.runtime.objects;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
@@ -162,6 +166,15 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
         return new JSLazyString(new JSLazyIntWrapper(left), right);
     }
 
+    /**
+     * Maximum number of rope nodes traversed to reach a leaf before the rope is rebalanced.
+     */
+    private static final int MAX_TRAVERSAL_DEPTH = 64;
+    /**
+     * Ropes whose leaves are shorter than this on average are flattened instead of rebalanced.
+     */
+    private static final int MIN_AVERAGE_LEAF_LENGTH = 16;
+
     private CharSequence left;
     private CharSequence right;
     private final int length;
@@ -201,63 +214,269 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
         return right == null;
     }
 
+    /**
+     * Concatenates the leaves in order into a {@link StringBuilder}. As opposed to filling a
+     * {@code char[]}, this keeps Latin-1 content in a byte-per-char buffer on JDKs with compact
+     * strings, halving the temporary memory needed for the common case of ASCII strings.
+     */
     @TruffleBoundary
     private void flatten() {
-        char[] dst = new char[length];
-        flatten(this, 0, length, dst, 0);
-        left = new String(dst);
+        CompilerAsserts.neverPartOfCompilation();
+        StringBuilder sb = new StringBuilder(length);
+        LeafIterator leaves = new LeafIterator();
+        leaves.seek(this, 0, Integer.MAX_VALUE);
+        while (leaves.next()) {
+            sb.append(leaves.leaf);
+        }
+        assert sb.length() == length;
+        left = sb.toString();
         right = null;
     }
 
-    private static void flatten(CharSequence src, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
-        CompilerAsserts.neverPartOfCompilation();
-        CharSequence str = src;
-        int from = srcBegin;
-        int to = srcEnd;
-        int dstFrom = dstBegin;
-        for (;;) {
-            assert 0 <= from && from <= to && to <= str.length();
-            if (str instanceof JSLazyString) {
-                JSLazyString lazyString = (JSLazyString) str;
-                CharSequence left = lazyString.left;
-                CharSequence right = lazyString.right;
-                int mid = left.length();
-
-                if (to - mid >= mid - from) {
-                    // right is longer, recurse left
-                    if (from < mid) {
-                        if (left instanceof String) {
-                            ((String) left).getChars(from, mid, dst, dstFrom);
-                        } else {
-                            flatten(left, from, mid, dst, dstFrom);
-                        }
-                        dstFrom += mid - from;
-                        from = 0;
-                    } else {
-                        from -= mid;
-                    }
-                    to -= mid;
-                    str = right;
+    /**
+     * Returns {@code true} if the characters of this string starting at {@code offset} are equal to
+     * {@code other}. Does not flatten the string, only the leaves covering the region are visited.
+     */
+    @TruffleBoundary
+    public boolean regionMatches(int offset, String other) {
+        int otherLength = other.length();
+        if (offset < 0 || offset > length - otherLength) {
+            return false;
+        }
+        if (isFlat()) {
+            return ((String) left).startsWith(other, offset);
+        }
+        int matched = 0;
+        LeafIterator leaves = leavesFrom(offset);
+        while (matched < otherLength && leaves.next()) {
+            String leaf = leaves.leaf;
+            int begin = offset + matched - leaves.leafStart;
+            int count = Math.min(leaf.length() - begin, otherLength - matched);
+            if (!leaf.regionMatches(begin, other, matched, count)) {
+                return false;
+            }
+            matched += count;
+        }
+        assert matched == otherLength;
+        return true;
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code search} at or after {@code fromIndex},
+     * or -1. The leaves are searched one after another without flattening the string; occurrences
+     * spanning several leaves are found using the last {@code search.length() - 1} characters of
+     * the preceding leaves.
+     */
+    @TruffleBoundary
+    public int indexOf(String search, int fromIndex) {
+        int from = Math.max(fromIndex, 0);
+        int searchLength = search.length();
+        if (searchLength == 0) {
+            return Math.min(from, length);
+        } else if (from > length - searchLength) {
+            return -1;
+        }
+        if (isFlat()) {
+            return ((String) left).indexOf(search, from);
+        }
+        int carryLength = searchLength - 1;
+        StringBuilder carry = new StringBuilder(carryLength);
+        int carryStart = from;
+        LeafIterator leaves = leavesFrom(from);
+        while (leaves.next()) {
+            String leaf = leaves.leaf;
+            int leafStart = leaves.leafStart;
+            int begin = Math.max(from - leafStart, 0);
+            int previousLength = carry.length();
+            if (previousLength > 0) {
+                carry.append(leaf, 0, Math.min(leaf.length(), carryLength));
+                int index = carry.indexOf(search);
+                if (index >= 0 && index < previousLength) {
+                    return carryStart + index;
+                }
+                carry.setLength(previousLength);
+            }
+            int index = leaf.indexOf(search, begin);
+            if (index >= 0) {
+                return leafStart + index;
+            }
+            if (leaf.length() - begin >= carryLength) {
+                carry.setLength(0);
+                carry.append(leaf, leaf.length() - carryLength, leaf.length());
+                carryStart = leafStart + leaf.length() - carryLength;
+            } else {
+                if (previousLength == 0) {
+                    carryStart = leafStart + begin;
+                }
+                carry.append(leaf, begin, leaf.length());
+                int excess = carry.length() - carryLength;
+                if (excess > 0) {
+                    carry.delete(0, excess);
+                    carryStart += excess;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the substring between {@code start} (inclusive) and {@code end} (exclusive). If the
+     * range lies within a single leaf, only that leaf is copied from; otherwise the string is
+     * flattened.
+     */
+    @TruffleBoundary
+    public String substring(int start, int end) {
+        assert 0 <= start && start <= end && end <= length;
+        if (!isFlat()) {
+            CharSequence node = this;
+            int offset = start;
+            int depth = 0;
+            while (isRope(node)) {
+                JSLazyString rope = (JSLazyString) node;
+                int mid = rope.left.length();
+                if (offset + (end - start) <= mid) {
+                    node = rope.left;
+                } else if (offset >= mid) {
+                    node = rope.right;
+                    offset -= mid;
                 } else {
-                    // left is longer, recurse right
-                    if (to > mid) {
-                        if (right instanceof String) {
-                            ((String) right).getChars(0, to - mid, dst, dstFrom + mid - from);
-                        } else {
-                            flatten(right, 0, to - mid, dst, dstFrom + mid - from);
-                        }
-                        to = mid;
-                    }
-                    str = left;
+                    break;
+                }
+                if (++depth > MAX_TRAVERSAL_DEPTH) {
+                    rebalance();
+                    return substring(start, end);
                 }
-            } else if (str instanceof String) {
-                ((String) str).getChars(from, to, dst, dstFrom);
-                return;
+            }
+            if (!isRope(node)) {
+                return leafToString(node).substring(offset, offset + (end - start));
+            }
+        }
+        return toString().substring(start, end);
+    }
+
+    /**
+     * Restructures a deep rope into a balanced tree of its leaves, so that subsequent traversals
+     * need a logarithmic number of steps. Ropes consisting of many small leaves are flattened
+     * instead. Only this node is modified; subtrees that may be shared with other strings are left
+     * as they are.
+     */
+    @TruffleBoundary
+    void rebalance() {
+        if (isFlat()) {
+            return;
+        }
+        List<CharSequence> leaves = new ArrayList<>();
+        ArrayDeque<CharSequence> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            CharSequence node = stack.pop();
+            if (isRope(node)) {
+                stack.push(((JSLazyString) node).right);
+                stack.push(((JSLazyString) node).left);
             } else {
-                assert JSRuntime.isString(str) || str instanceof JSLazyIntWrapper;
-                str.toString().getChars(from, to, dst, dstFrom);
-                return;
+                leaves.add(node);
+            }
+        }
+        if (leaves.size() > length / MIN_AVERAGE_LEAF_LENGTH) {
+            flatten();
+            return;
+        }
+        int mid = leaves.size() >>> 1;
+        CharSequence newLeft = balancedRope(leaves, 0, mid);
+        CharSequence newRight = balancedRope(leaves, mid, leaves.size());
+        assert newLeft.length() + newRight.length() == length;
+        left = newLeft;
+        right = newRight;
+    }
+
+    private static CharSequence balancedRope(List<CharSequence> leaves, int from, int to) {
+        if (to - from == 1) {
+            return leaves.get(from);
+        }
+        int mid = (from + to) >>> 1;
+        return new JSLazyString(balancedRope(leaves, from, mid), balancedRope(leaves, mid, to));
+    }
+
+    private LeafIterator leavesFrom(int index) {
+        LeafIterator leaves = new LeafIterator();
+        if (!leaves.seek(this, index)) {
+            rebalance();
+            boolean found = leaves.seek(this, index);
+            assert found;
+        }
+        return leaves;
+    }
+
+    private static boolean isRope(CharSequence node) {
+        return node instanceof JSLazyString && !((JSLazyString) node).isFlat();
+    }
+
+    private static String leafToString(CharSequence leaf) {
+        assert !isRope(leaf);
+        return leaf instanceof String ? (String) leaf : leaf.toString();
+    }
+
+    /**
+     * Iterates over the leaves of a rope in order, using an explicit stack of pending right
+     * subtrees.
+     */
+    private static final class LeafIterator {
+        private final ArrayDeque<CharSequence> pending = new ArrayDeque<>();
+        private CharSequence nextLeaf;
+        private int nextLeafStart;
+        String leaf;
+        int leafStart;
+
+        /**
+         * Positions the iterator on the leaf containing {@code index}. Returns {@code false} if
+         * the leaf could not be reached within {@code maxDepth} steps.
+         */
+        boolean seek(JSLazyString root, int index) {
+            return seek(root, index, MAX_TRAVERSAL_DEPTH);
+        }
+
+        boolean seek(JSLazyString root, int index, int maxDepth) {
+            pending.clear();
+            CharSequence node = root;
+            int start = 0;
+            int depth = 0;
+            while (isRope(node)) {
+                if (++depth > maxDepth) {
+                    return false;
+                }
+                JSLazyString rope = (JSLazyString) node;
+                int mid = rope.left.length();
+                if (index < start + mid) {
+                    pending.push(rope.right);
+                    node = rope.left;
+                } else {
+                    start += mid;
+                    node = rope.right;
+                }
+            }
+            nextLeaf = node;
+            nextLeafStart = start;
+            leaf = null;
+            return true;
+        }
+
+        boolean next() {
+            if (nextLeaf == null) {
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                CharSequence node = pending.pop();
+                while (isRope(node)) {
+                    pending.push(((JSLazyString) node).right);
+                    node = ((JSLazyString) node).left;
+                }
+                nextLeaf = node;
+                nextLeafStart = leafStart + leaf.length();
             }
+            leaf = leafToString(nextLeaf);
+            leafStart = nextLeafStart;
+            nextLeaf = null;
+            return true;
         }
     }
 
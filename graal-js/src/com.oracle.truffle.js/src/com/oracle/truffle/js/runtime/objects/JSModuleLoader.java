@@ -46,4 +46,11 @@ public interface JSModuleLoader {
     JSModuleRecord resolveImportedModule(ScriptOrModule referencingModule, String specifier);
 
     JSModuleRecord loadModule(Source moduleSource);
+
+    /**
+     * Releases resources held by the loader, e.g., background threads. Called when the context is
+     * finalized.
+     */
+    default void dispose() {
+    }
 }
@@ -40,7 +40,9 @@
  */
 package com.oracle.truffle.js.runtime.objects;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.IntUnaryOperator;
@@ -393,6 +395,30 @@ public final class JSObjectUtil {
 
     public static void putFunctionsFromContainer(JSRealm realm, DynamicObject thisObj, JSBuiltinsContainer container) {
         JSContext context = realm.getContext();
+        if (!context.isMultiContext()) {
+            putFunctionsFromContainerImpl(realm, thisObj, container, null, null);
+            return;
+        }
+        JSBuiltinsTemplate template = context.getBuiltinsTemplate(container);
+        if (template != null && template.isApplicable(thisObj)) {
+            template.apply(realm, thisObj);
+            return;
+        }
+        Shape initialShape = thisObj.getShape();
+        List<JSFunctionData> functionData = new ArrayList<>();
+        List<Object> keys = new ArrayList<>();
+        putFunctionsFromContainerImpl(realm, thisObj, container, functionData, keys);
+        if (template == null) {
+            template = JSBuiltinsTemplate.create(initialShape, thisObj.getShape(), functionData.toArray(new JSFunctionData[functionData.size()]), keys.toArray());
+            if (template != null) {
+                context.putBuiltinsTemplate(container, template);
+            }
+        }
+    }
+
+    private static void putFunctionsFromContainerImpl(JSRealm realm, DynamicObject thisObj, JSBuiltinsContainer container, List<JSFunctionData> installedFunctionData,
+                    List<Object> installedKeys) {
+        JSContext context = realm.getContext();
         container.forEachBuiltin(new Consumer<Builtin>() {
             @Override
             public void accept(Builtin builtin) {
@@ -402,7 +428,16 @@ public final class JSObjectUtil {
                     return;
                 }
                 JSFunctionData functionData = builtin.createFunctionData(context);
-                putDataProperty(context, thisObj, builtin.getKey(), JSFunction.create(realm, functionData), builtin.getAttributeFlags());
+                if (context.getContextOptions().isLazyBuiltins()) {
+                    assert checkForExistingProperty(thisObj, builtin.getKey());
+                    defineProxyProperty(thisObj, builtin.getKey(), new LazyBuiltinFunctionPropertyProxy(realm, functionData, builtin.getKey()), builtin.getAttributeFlags());
+                } else {
+                    putDataProperty(context, thisObj, builtin.getKey(), JSFunction.create(realm, functionData), builtin.getAttributeFlags());
+                }
+                if (installedFunctionData != null) {
+                    installedFunctionData.add(functionData);
+                    installedKeys.add(builtin.getKey());
+                }
             }
         });
     }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
+
+/**
+ * Placeholder for a built-in function property that has not been accessed yet (see
+ * {@link JSContextOptions#LAZY_BUILTINS}). The function object is created on first access and the
+ * proxy property is then replaced by an ordinary data property with the same attributes, in place,
+ * so that the property order is preserved.
+ */
+public final class LazyBuiltinFunctionPropertyProxy implements PropertyProxy {
+    private final JSRealm realm;
+    private final JSFunctionData functionData;
+    private final Object key;
+    private DynamicObject function;
+
+    public LazyBuiltinFunctionPropertyProxy(JSRealm realm, JSFunctionData functionData, Object key) {
+        this.realm = realm;
+        this.functionData = functionData;
+        this.key = key;
+    }
+
+    @TruffleBoundary
+    @Override
+    public Object get(DynamicObject store) {
+        DynamicObject result = getFunction();
+        materialize(store, result);
+        return result;
+    }
+
+    @TruffleBoundary
+    @Override
+    public boolean set(DynamicObject store, Object value) {
+        materialize(store, value);
+        return true;
+    }
+
+    /**
+     * Returns the function object, creating it if necessary, without changing the owning object.
+     */
+    @TruffleBoundary
+    public DynamicObject getFunction() {
+        DynamicObject result = function;
+        if (result == null) {
+            result = JSFunction.create(realm, functionData);
+            function = result;
+        }
+        return result;
+    }
+
+    private void materialize(DynamicObject store, Object value) {
+        Property property = store.getShape().getProperty(key);
+        if (property != null && JSProperty.isProxy(property) && property.get(store, false) == this) {
+            JSObjectUtil.defineDataProperty(store, key, value, property.getFlags() & ~JSProperty.PROXY);
+        }
+    }
+}
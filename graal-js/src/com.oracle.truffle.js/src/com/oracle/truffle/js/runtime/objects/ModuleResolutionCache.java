@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import java.io.IOException;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.object.DynamicObject;
+
+/**
+ * Per-realm cache of module resolution results: resolved module specifiers, file system lookups
+ * (including missing files) and parsed {@code package.json} files. Entries are kept until the
+ * realm is disposed, or, with validation enabled, until the modification time of the file or
+ * directory they depend on changes. A resolved module specifier only depends on the file it was
+ * resolved to, so validation does not notice files added to the directories probed before that
+ * file, e.g., a closer {@code node_modules} directory.
+ */
+public final class ModuleResolutionCache {
+
+    private final boolean enabled;
+    private final boolean validate;
+
+    /** Resolved modules by specifier and the directory it is resolved from. */
+    private final Map<String, Entry<TruffleFile>> resolvedModules = new ConcurrentHashMap<>();
+    /** Whether a path is a regular file, depending on the parent directory. */
+    private final Map<String, Entry<Boolean>> regularFiles = new ConcurrentHashMap<>();
+    /** Parsed package.json files. */
+    private final Map<String, Entry<DynamicObject>> packageJsons = new ConcurrentHashMap<>();
+
+    private static final class Entry<T> {
+        final T value;
+        /** File whose modification time is checked when validating this entry. */
+        final TruffleFile stamp;
+        /** Modification time of the stamp file, or null if it did not exist. */
+        final FileTime lastModified;
+
+        Entry(T value, TruffleFile stamp, FileTime lastModified) {
+            this.value = value;
+            this.stamp = stamp;
+            this.lastModified = lastModified;
+        }
+    }
+
+    public ModuleResolutionCache(boolean enabled, boolean validate) {
+        this.enabled = enabled;
+        this.validate = validate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The resolution algorithms using this cache. They resolve the same specifier differently, so
+     * their results are cached separately.
+     */
+    public enum Resolver {
+        /** CommonJS {@code require}, which probes extensions and directory indexes. */
+        COMMONJS,
+        /** {@link DefaultESModuleLoader}, which requires the exact file. */
+        ES_MODULE,
+        /** The npm-compatible ES module loader, which applies package and type rules. */
+        NPM_ES_MODULE
+    }
+
+    /**
+     * Returns the cached result of resolving a specifier from the given directory, or
+     * {@code null} if it has not been resolved yet. Nothing is cached without a directory.
+     */
+    public TruffleFile getResolvedModule(Resolver resolver, TruffleFile directory, String specifier) {
+        if (!enabled || directory == null) {
+            return null;
+        }
+        Entry<TruffleFile> entry = lookup(resolvedModules, resolvedModuleKey(resolver, directory, specifier));
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Caches the result of resolving a specifier from the given directory. With validation, the
+     * entry is only revalidated against the resolved file.
+     */
+    public void putResolvedModule(Resolver resolver, TruffleFile directory, String specifier, TruffleFile resolved) {
+        if (enabled && directory != null) {
+            resolvedModules.put(resolvedModuleKey(resolver, directory, specifier), newEntry(resolved, resolved));
+        }
+    }
+
+    /**
+     * Resolves a specifier from the given directory, i.e., the directory of the importing module or
+     * the directory that specifiers of a module that does not originate from a file are resolved
+     * against. The result of the resolution is cached.
+     */
+    public TruffleFile resolveModule(Resolver resolver, TruffleFile directory, String specifier, ModuleResolution resolution) throws IOException {
+        if (!enabled) {
+            return resolution.resolve();
+        }
+        TruffleFile resolved = getResolvedModule(resolver, directory, specifier);
+        if (resolved == null) {
+            resolved = resolution.resolve();
+            putResolvedModule(resolver, directory, specifier, resolved);
+        }
+        return resolved;
+    }
+
+    @FunctionalInterface
+    public interface ModuleResolution {
+        TruffleFile resolve() throws IOException;
+    }
+
+    private static String resolvedModuleKey(Resolver resolver, TruffleFile directory, String specifier) {
+        // no path contains a NUL character
+        return resolver.ordinal() + "\0" + directory.getPath() + '\0' + specifier;
+    }
+
+    /**
+     * Returns whether the file exists and is a regular file.
+     */
+    public boolean isRegularFile(TruffleFile file) {
+        if (!enabled) {
+            return file.exists() && file.isRegularFile();
+        }
+        String key = file.getPath();
+        Entry<Boolean> entry = lookup(regularFiles, key);
+        if (entry == null) {
+            // Files are added and removed in the parent directory, which updates its modification time.
+            entry = newEntry(file.exists() && file.isRegularFile(), file.getParent());
+            regularFiles.put(key, entry);
+        }
+        return entry.value;
+    }
+
+    /**
+     * Returns the parsed package.json file, parsing it with the given function if needed.
+     */
+    public DynamicObject getPackageJson(TruffleFile packageJson, Function<TruffleFile, DynamicObject> parser) {
+        if (!enabled) {
+            return parser.apply(packageJson);
+        }
+        String key = packageJson.getPath();
+        Entry<DynamicObject> entry = lookup(packageJsons, key);
+        if (entry == null) {
+            entry = newEntry(parser.apply(packageJson), packageJson);
+            packageJsons.put(key, entry);
+        }
+        return entry.value;
+    }
+
+    private <T> Entry<T> lookup(Map<String, Entry<T>> map, String key) {
+        Entry<T> entry = map.get(key);
+        if (entry != null && validate && !Objects.equals(entry.lastModified, lastModifiedTime(entry.stamp))) {
+            map.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private <T> Entry<T> newEntry(T value, TruffleFile stamp) {
+        return new Entry<>(value, stamp, validate ? lastModifiedTime(stamp) : null);
+    }
+
+    private static FileTime lastModifiedTime(TruffleFile file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return file.getLastModifiedTime();
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+}
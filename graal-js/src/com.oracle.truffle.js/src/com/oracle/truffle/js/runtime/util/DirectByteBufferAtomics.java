@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lock-free atomic access to naturally aligned 32-bit and 64-bit words of direct byte buffers in
+ * native byte order. Replaced by the JDK-specific implementations; this version reports every
+ * location as unsupported so that callers fall back to locking.
+ */
+public final class DirectByteBufferAtomics {
+    private DirectByteBufferAtomics() {
+    }
+
+    /**
+     * Returns true if the {@code unitSize}-byte word at {@code byteIndex} can be accessed atomically
+     * without locking, i.e. the buffer is direct, the word is in bounds and naturally aligned, and
+     * the buffer itself is 8-byte aligned. The latter makes every aligned element of a buffer
+     * lock-free, so overlapping accesses of different widths never mix locked and lock-free
+     * access; a misaligned buffer, e.g. a file mapped at an odd offset, always uses the lock.
+     */
+    public static boolean isLockFree(ByteBuffer buffer, int byteIndex, int unitSize) {
+        return false;
+    }
+
+    /**
+     * Returns the index of the naturally aligned {@code unitSize}-byte word containing
+     * {@code byteIndex}, or -1 if it cannot be determined.
+     */
+    public static int alignDown(ByteBuffer buffer, int byteIndex, int unitSize) {
+        return -1;
+    }
+
+    public static int getIntVolatile(ByteBuffer buffer, int byteIndex) {
+        throw notLockFree();
+    }
+
+    public static void setIntVolatile(ByteBuffer buffer, int byteIndex, int value) {
+        throw notLockFree();
+    }
+
+    public static int compareAndExchangeInt(ByteBuffer buffer, int byteIndex, int expected, int replacement) {
+        throw notLockFree();
+    }
+
+    public static long getLongVolatile(ByteBuffer buffer, int byteIndex) {
+        throw notLockFree();
+    }
+
+    public static void setLongVolatile(ByteBuffer buffer, int byteIndex, long value) {
+        throw notLockFree();
+    }
+
+    public static long compareAndExchangeLong(ByteBuffer buffer, int byteIndex, long expected, long replacement) {
+        throw notLockFree();
+    }
+
+    /**
+     * The accessors may only be used for words for which {@link #isLockFree} returned true. This
+     * version never does, so they are unreachable.
+     */
+    private static UnsupportedOperationException notLockFree() {
+        assert false : "atomic access must be guarded by isLockFree";
+        throw new UnsupportedOperationException("atomic access must be guarded by isLockFree");
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.codec.BinaryDecoder;
+import com.oracle.truffle.js.codec.BinaryEncoder;
+import com.oracle.truffle.js.runtime.BigInt;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSDate;
+import com.oracle.truffle.js.runtime.builtins.JSMap;
+import com.oracle.truffle.js.runtime.builtins.JSSet;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Heap snapshot of the global properties created by an initialization script, see
+ * {@code SnapshotTool --heap-snapshot}. Restoring the snapshot into a fresh realm replaces running
+ * the script on every startup.
+ *
+ * The snapshot holds plain data only: primitives, ordinary objects, arrays, dates, maps and sets.
+ * Shared and cyclic object references are preserved. Each object is written once, when it is first
+ * reached, and referred to by its index afterwards.
+ */
+public final class HeapSnapshot {
+
+    public static final int MAGIC = 0x4a534853;
+    public static final int VERSION = 3;
+
+    public static final int TAG_UNDEFINED = 0;
+    public static final int TAG_NULL = 1;
+    public static final int TAG_TRUE = 2;
+    public static final int TAG_FALSE = 3;
+    public static final int TAG_INT = 4;
+    public static final int TAG_DOUBLE = 5;
+    public static final int TAG_STRING = 6;
+    /** BigInt value as two's-complement byte array. */
+    public static final int TAG_BIGINT = 7;
+    /** Reference to an object written before, by index. */
+    public static final int TAG_REFERENCE = 8;
+    /** Ordinary object with {@code Object.prototype} as prototype. */
+    public static final int TAG_OBJECT = 9;
+    /** Ordinary object with {@code null} prototype. */
+    public static final int TAG_NULL_PROTOTYPE_OBJECT = 10;
+    public static final int TAG_ARRAY = 11;
+    /** Missing array element. */
+    public static final int TAG_HOLE = 12;
+    public static final int TAG_DATE = 13;
+    public static final int TAG_MAP = 14;
+    public static final int TAG_SET = 15;
+    /** Array written as its length and (index, value) pairs of its elements. */
+    public static final int TAG_SPARSE_ARRAY = 16;
+
+    /** Integrity levels of arrays, written after their elements. */
+    public static final int ARRAY_EXTENSIBLE = 0;
+    public static final int ARRAY_NON_EXTENSIBLE = 1;
+    public static final int ARRAY_SEALED = 2;
+    public static final int ARRAY_FROZEN = 3;
+
+    /** Value of the entries of a restored set, only the keys are relevant. */
+    private static final Object PRESENT = new Object();
+    private static final Object HOLE = new Object();
+
+    private final JSRealm realm;
+    private final JSContext context;
+    private final BinaryDecoder decoder;
+    private final List<DynamicObject> objects = new ArrayList<>();
+
+    private HeapSnapshot(JSRealm realm, ByteBuffer buffer) {
+        this.realm = realm;
+        this.context = realm.getContext();
+        this.decoder = new BinaryDecoder(buffer);
+    }
+
+    /**
+     * Defines the global properties recorded in the snapshot on the global object of the realm.
+     */
+    @TruffleBoundary
+    public static void restore(JSRealm realm, ByteBuffer buffer) {
+        new HeapSnapshot(realm, buffer).restoreGlobals();
+    }
+
+    private void restoreGlobals() {
+        if (decoder.getInt() != MAGIC || decoder.getInt() != VERSION) {
+            throw Errors.createError("Invalid heap snapshot");
+        }
+        DynamicObject global = realm.getGlobalObject();
+        int count = decoder.getUInt();
+        for (int i = 0; i < count; i++) {
+            String key = getString(decoder);
+            int attributes = decoder.getUInt();
+            Object value = readValue();
+            JSObject.defineOwnProperty(global, key, PropertyDescriptor.createData(value, attributes), true);
+        }
+    }
+
+    private Object readValue() {
+        int tag = decoder.getUInt();
+        switch (tag) {
+            case TAG_UNDEFINED:
+                return Undefined.instance;
+            case TAG_NULL:
+                return Null.instance;
+            case TAG_TRUE:
+                return true;
+            case TAG_FALSE:
+                return false;
+            case TAG_INT:
+                return decoder.getInt();
+            case TAG_DOUBLE:
+                return decoder.getDouble();
+            case TAG_STRING:
+                return getString(decoder);
+            case TAG_BIGINT:
+                return BigInt.fromBigInteger(new BigInteger(decoder.getByteArray()));
+            case TAG_REFERENCE:
+                return objects.get(decoder.getUInt());
+            case TAG_OBJECT:
+                return readObject(JSUserObject.create(context, realm));
+            case TAG_NULL_PROTOTYPE_OBJECT:
+                return readObject(JSUserObject.createWithNullPrototype(context));
+            case TAG_ARRAY:
+                return readArray();
+            case TAG_SPARSE_ARRAY:
+                return readSparseArray();
+            case TAG_HOLE:
+                return HOLE;
+            case TAG_DATE:
+                return register(JSDate.create(context, decoder.getDouble()));
+            case TAG_MAP:
+                return readMap();
+            case TAG_SET:
+                return readSet();
+            default:
+                throw Errors.createError("Invalid heap snapshot: unknown tag " + tag);
+        }
+    }
+
+    private DynamicObject register(DynamicObject object) {
+        objects.add(object);
+        return object;
+    }
+
+    private DynamicObject readObject(DynamicObject object) {
+        register(object);
+        int count = decoder.getUInt();
+        for (int i = 0; i < count; i++) {
+            String key = getString(decoder);
+            int attributes = decoder.getUInt();
+            Object value = readValue();
+            JSObject.defineOwnProperty(object, key, PropertyDescriptor.createData(value, attributes), true);
+        }
+        if (decoder.getUInt() == 0) {
+            JSObject.preventExtensions(object);
+        }
+        return object;
+    }
+
+    private DynamicObject readArray() {
+        int length = decoder.getUInt();
+        DynamicObject array = register(JSArray.createEmpty(context, length));
+        for (int i = 0; i < length; i++) {
+            Object value = readValue();
+            if (value != HOLE) {
+                JSObject.set(array, i, value);
+            }
+        }
+        return applyIntegrityLevel(array);
+    }
+
+    private DynamicObject readSparseArray() {
+        int length = decoder.getUInt();
+        DynamicObject array = register(JSArray.createEmptyZeroLength(context));
+        int count = decoder.getUInt();
+        for (int i = 0; i < count; i++) {
+            int index = decoder.getUInt();
+            JSObject.set(array, index, readValue());
+        }
+        JSObject.set(array, JSArray.LENGTH, length);
+        return applyIntegrityLevel(array);
+    }
+
+    private DynamicObject applyIntegrityLevel(DynamicObject array) {
+        int integrityLevel = decoder.getUInt();
+        switch (integrityLevel) {
+            case ARRAY_EXTENSIBLE:
+                break;
+            case ARRAY_NON_EXTENSIBLE:
+                JSObject.preventExtensions(array);
+                break;
+            case ARRAY_SEALED:
+                JSObject.setIntegrityLevel(array, false);
+                break;
+            case ARRAY_FROZEN:
+                JSObject.setIntegrityLevel(array, true);
+                break;
+            default:
+                throw Errors.createError("Invalid heap snapshot: unknown integrity level " + integrityLevel);
+        }
+        return array;
+    }
+
+    private DynamicObject readMap() {
+        DynamicObject map = register(JSMap.create(context));
+        JSHashMap internalMap = JSMap.getInternalMap(map);
+        int size = decoder.getUInt();
+        for (int i = 0; i < size; i++) {
+            Object key = readValue();
+            Object value = readValue();
+            internalMap.put(key, value);
+        }
+        return map;
+    }
+
+    private DynamicObject readSet() {
+        DynamicObject set = register(JSSet.create(context));
+        JSHashMap internalSet = JSSet.getInternalSet(set);
+        int size = decoder.getUInt();
+        for (int i = 0; i < size; i++) {
+            internalSet.put(readValue(), PRESENT);
+        }
+        return set;
+    }
+
+    /**
+     * Strings are stored as UTF-16 code units, so that unpaired surrogates are preserved.
+     */
+    public static void putString(BinaryEncoder encoder, String value) {
+        encoder.putUInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            encoder.putUInt(value.charAt(i));
+        }
+    }
+
+    private static String getString(BinaryDecoder decoder) {
+        int length = decoder.getUInt();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) decoder.getUInt();
+        }
+        return new String(chars);
+    }
+}
@@ -60,8 +60,10 @@ import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSException;
+import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Undefined;
 
 /**
  *
@@ -532,6 +534,26 @@ public final class IntlUtil {
         return IntlUtil.selectedLocale(ctx, locales).stripExtensions();
     }
 
+    /**
+     * Returns the key under which an Intl object of the given kind, initialized with the given
+     * {@code locales} and {@code options} by a locale-sensitive built-in (like
+     * {@code Number.prototype.toLocaleString}), can be cached in the realm; or {@code null} if
+     * initializing it could have observable side effects. Only undefined options and a locale that
+     * is undefined or a single string qualify.
+     */
+    @TruffleBoundary
+    public static String localeFormatterCacheKey(String kind, Object locales, Object options) {
+        if (options != Undefined.instance) {
+            return null;
+        }
+        if (locales == Undefined.instance) {
+            return kind;
+        } else if (JSRuntime.isString(locales)) {
+            return kind + '=' + locales.toString();
+        }
+        return null;
+    }
+
     public static DynamicObject makePart(JSContext context, String type, String value) {
         return makePart(context, type, value, null);
     }
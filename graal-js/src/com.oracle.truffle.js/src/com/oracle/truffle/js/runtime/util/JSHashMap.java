@@ -40,12 +40,21 @@
  */
 package com.oracle.truffle.js.runtime.util;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 /**
  * ES6-compliant hash map implementation.
+ *
+ * Entries are kept in insertion order in a dense entry table, with separately chained index
+ * buckets pointing into it (in the style of deterministic close tables). Removed entries leave a
+ * hole that is skipped during iteration and squeezed out when the table is rehashed. Keys are
+ * stored unboxed as long as all keys of the map are int, double, or string values.
+ *
+ * A rehash or clear replaces the current {@link Table} with a new one and records in the old
+ * table how live cursors have to translate their position into the new table, so cursors never
+ * need to be registered with the map.
  */
 public final class JSHashMap {
     public interface Cursor {
@@ -72,21 +81,25 @@ public final class JSHashMap {
         Cursor copy();
     }
 
-    private final HashMap<Object, Node> map;
-    private final Node head;
-    private Node tail;
+    static final int INITIAL_CAPACITY = 8;
+
+    static final byte KIND_EMPTY = 0;
+    static final byte KIND_INT = 1;
+    static final byte KIND_DOUBLE = 2;
+    static final byte KIND_STRING = 3;
+    static final byte KIND_OBJECT = 4;
+
+    private Table table;
+    private int size;
 
     @TruffleBoundary(allowInlining = true)
     public JSHashMap() {
-        this.map = new HashMap<>();
-        Node dummy = new Node(null, null, null, null);
-        this.head = dummy;
-        this.tail = dummy;
+        this.table = new Table(INITIAL_CAPACITY);
     }
 
     @TruffleBoundary(allowInlining = true)
     public int size() {
-        return map.size();
+        return size;
     }
 
     /**
@@ -94,172 +107,375 @@ public final class JSHashMap {
      */
     @TruffleBoundary
     public void put(Object key, Object value) {
-        Node newNode = new Node(key, value, null, null);
-        Node oldNode = map.putIfAbsent(key, newNode);
-        if (oldNode == null) {
-            newNode.setPrev(tail);
-            tail.setNext(newNode);
-            tail = newNode;
-        } else {
-            oldNode.setValue(value);
+        assert key != null && value != null;
+        int hash = hash(key);
+        int index = table.find(key, hash);
+        if (index >= 0) {
+            table.values[index] = value;
+            return;
+        }
+        if (table.used == table.capacity()) {
+            // grow only if the table is at least half full of live entries, otherwise compact
+            rehash(size >= table.capacity() / 2 ? table.capacity() << 1 : table.capacity());
         }
+        table.append(key, hash, value);
+        size++;
     }
 
     @TruffleBoundary
     public Object get(Object key) {
-        Node node = map.get(key);
-        return node == null ? null : node.getValue();
+        int index = table.find(key, hash(key));
+        return index < 0 ? null : table.values[index];
     }
 
     @TruffleBoundary
     public boolean has(Object key) {
-        return map.containsKey(key);
+        return table.find(key, hash(key)) >= 0;
     }
 
     @TruffleBoundary
     public boolean remove(Object key) {
-        Node node = map.remove(key);
-        if (node == null) {
+        int index = table.find(key, hash(key));
+        if (index < 0) {
             return false;
-        } else {
-            unlink(node);
-            return true;
         }
+        table.removeAt(index);
+        size--;
+        if (size < table.capacity() >> 2 && table.capacity() > INITIAL_CAPACITY) {
+            rehash(table.capacity() >> 1);
+        }
+        return true;
+    }
+
+    @TruffleBoundary
+    public void clear() {
+        Table newTable = new Table(INITIAL_CAPACITY);
+        table.obsolete(newTable, null, true);
+        table = newTable;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        Table oldTable = table;
+        Table newTable = new Table(newCapacity);
+        int removedCount = oldTable.used - size;
+        int[] removed = removedCount == 0 ? null : new int[removedCount];
+        int r = 0;
+        for (int i = 0; i < oldTable.used; i++) {
+            Object value = oldTable.values[i];
+            if (value == null) {
+                removed[r++] = i;
+            } else {
+                Object key = oldTable.getKey(i);
+                newTable.append(key, hash(key), value);
+            }
+        }
+        assert r == removedCount && newTable.used == size;
+        oldTable.obsolete(newTable, removed, false);
+        table = newTable;
     }
 
-    private void unlink(Node node) {
-        Node next = node.getNext();
-        Node prev = node.getPrev();
-        prev.setNext(next);
-        if (next != null) {
-            next.setPrev(prev);
+    /**
+     * Hash function that depends only on the key's value, not on the storage kind of the table, so
+     * that keys do not need to be rehashed when the key storage is generalized.
+     */
+    static int hash(Object key) {
+        int h;
+        if (key instanceof Integer) {
+            h = (Integer) key;
+        } else if (key instanceof Double) {
+            long bits = Double.doubleToLongBits((Double) key);
+            h = (int) (bits ^ (bits >>> 32));
         } else {
-            tail = prev;
+            h = key.hashCode();
         }
-        node.setEmpty();
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
     }
 
-    @TruffleBoundary
-    public void clear() {
-        map.clear();
-        for (Node current = head.getNext(); current != null; current = current.getNext()) {
-            current.setEmpty();
+    static byte kindOf(Object key) {
+        if (key instanceof Integer) {
+            return KIND_INT;
+        } else if (key instanceof Double) {
+            return KIND_DOUBLE;
+        } else if (key instanceof String) {
+            return KIND_STRING;
+        } else {
+            return KIND_OBJECT;
         }
-        head.setNext(null);
-        tail = head;
     }
 
     @TruffleBoundary
     @Override
     public String toString() {
-        return map.toString();
+        StringBuilder sb = new StringBuilder().append('{');
+        Table t = table;
+        boolean first = true;
+        for (int i = 0; i < t.used; i++) {
+            Object value = t.values[i];
+            if (value != null) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                first = false;
+                sb.append(t.getKey(i)).append('=').append(value);
+            }
+        }
+        return sb.append('}').toString();
     }
 
     public Cursor getEntries() {
-        return new CursorImpl(head);
+        return new CursorImpl(table, 0);
     }
 
-    private static final class CursorImpl implements Cursor {
-        private Node current;
+    /**
+     * Ordered entry table. Entry {@code i} consists of its key (stored in one of the key arrays
+     * depending on {@link #keyKind}) and {@code values[i]}; a {@code null} value marks a removed
+     * entry. {@code buckets} and {@code chain} hold entry indices plus one, so that 0 means none.
+     */
+    static final class Table {
+        byte keyKind;
+        int[] intKeys;
+        double[] doubleKeys;
+        Object[] objectKeys;
+        Object[] values;
+        int[] chain;
+        int[] buckets;
+        int used;
+
+        /** Table replacing this one after a rehash or clear, {@code null} while this is current. */
+        Table successor;
+        /** Sorted indices of the entries dropped by the rehash, {@code null} if there were none. */
+        int[] removedIndices;
+        boolean cleared;
+
+        Table(int capacity) {
+            assert Integer.bitCount(capacity) == 1;
+            this.keyKind = KIND_EMPTY;
+            this.values = new Object[capacity];
+            this.chain = new int[capacity];
+            this.buckets = new int[capacity];
+        }
 
-        CursorImpl(Node head) {
-            this.current = head;
+        int capacity() {
+            return values.length;
         }
 
-        @Override
-        public boolean advance() {
-            if (current == null) {
-                return false;
-            } else {
-                // if current is no longer in the map, back up to a previous node still in the map
-                while (current.isEmpty() && current.getPrev() != null) {
-                    current = current.getPrev();
-                }
-                Node next = current.getNext();
-                assert next == null || next.getKey() != null;
-                current = next;
-                return next != null;
+        int find(Object key, int hash) {
+            switch (keyKind) {
+                case KIND_EMPTY:
+                    return -1;
+                case KIND_INT:
+                    return key instanceof Integer ? findInt((Integer) key, hash) : -1;
+                case KIND_DOUBLE:
+                    return key instanceof Double ? findDouble(Double.doubleToLongBits((Double) key), hash) : -1;
+                case KIND_STRING:
+                    return key instanceof String ? findObject(key, hash) : -1;
+                default:
+                    return findObject(key, hash);
             }
         }
 
-        @Override
-        public Object getKey() {
-            Object key = current.getKey();
-            assert key != null;
-            return key;
+        private int findInt(int key, int hash) {
+            for (int i = buckets[hash & (buckets.length - 1)] - 1; i >= 0; i = chain[i] - 1) {
+                if (intKeys[i] == key && values[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
         }
 
-        @Override
-        public Object getValue() {
-            Object value = current.getValue();
-            assert value != null;
-            return value;
+        private int findDouble(long keyBits, int hash) {
+            for (int i = buckets[hash & (buckets.length - 1)] - 1; i >= 0; i = chain[i] - 1) {
+                if (Double.doubleToLongBits(doubleKeys[i]) == keyBits && values[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
         }
 
-        @Override
-        public String toString() {
-            return "Cursor [current=" + current + "]";
+        private int findObject(Object key, int hash) {
+            for (int i = buckets[hash & (buckets.length - 1)] - 1; i >= 0; i = chain[i] - 1) {
+                if (values[i] != null && key.equals(objectKeys[i])) {
+                    return i;
+                }
+            }
+            return -1;
         }
 
-        @Override
-        public Cursor copy() {
-            return new CursorImpl(current);
+        Object getKey(int index) {
+            switch (keyKind) {
+                case KIND_INT:
+                    return intKeys[index];
+                case KIND_DOUBLE:
+                    return doubleKeys[index];
+                default:
+                    return objectKeys[index];
+            }
         }
-    }
 
-    private static final class Node {
-        private Object key;
-        private Object value;
-        private Node prev;
-        private Node next;
-
-        Node(Object key, Object value, Node prev, Node next) {
-            this.key = key;
-            this.value = value;
-            this.prev = prev;
-            this.next = next;
+        void append(Object key, int hash, Object value) {
+            assert used < capacity();
+            int index = used;
+            byte kind = kindOf(key);
+            if (kind != keyKind) {
+                adoptKeyKind(kind);
+            }
+            switch (keyKind) {
+                case KIND_INT:
+                    intKeys[index] = (Integer) key;
+                    break;
+                case KIND_DOUBLE:
+                    doubleKeys[index] = (Double) key;
+                    break;
+                default:
+                    objectKeys[index] = key;
+                    break;
+            }
+            values[index] = value;
+            int bucket = hash & (buckets.length - 1);
+            chain[index] = buckets[bucket];
+            buckets[bucket] = index + 1;
+            used++;
         }
 
-        Object getKey() {
-            return key;
+        /**
+         * Switches the key storage so that it can hold keys of the given kind. Entry indices are not
+         * affected, so cursors stay valid.
+         */
+        private void adoptKeyKind(byte kind) {
+            if (keyKind == KIND_EMPTY) {
+                keyKind = kind;
+                int capacity = capacity();
+                if (kind == KIND_INT) {
+                    intKeys = new int[capacity];
+                } else if (kind == KIND_DOUBLE) {
+                    doubleKeys = new double[capacity];
+                } else {
+                    objectKeys = new Object[capacity];
+                }
+            } else if (keyKind != KIND_OBJECT) {
+                Object[] boxed = new Object[capacity()];
+                for (int i = 0; i < used; i++) {
+                    if (values[i] != null) {
+                        boxed[i] = getKey(i);
+                    }
+                }
+                objectKeys = boxed;
+                intKeys = null;
+                doubleKeys = null;
+                keyKind = KIND_OBJECT;
+            }
         }
 
-        Object getValue() {
-            return value;
+        void removeAt(int index) {
+            values[index] = null;
+            if (objectKeys != null) {
+                objectKeys[index] = null;
+            }
         }
 
-        void setValue(Object value) {
-            this.value = value;
+        void obsolete(Table newTable, int[] removed, boolean wasCleared) {
+            this.successor = newTable;
+            this.removedIndices = removed;
+            this.cleared = wasCleared;
+            // release the entries, cursors only need the position translation from now on
+            this.intKeys = null;
+            this.doubleKeys = null;
+            this.objectKeys = null;
+            this.values = null;
+            this.chain = null;
+            this.buckets = null;
         }
 
-        Node getPrev() {
-            return prev;
+        /**
+         * Translates a cursor position (index of the next entry to visit) into the successor table.
+         */
+        int translate(int position) {
+            if (cleared) {
+                return 0;
+            } else if (removedIndices == null) {
+                return position;
+            }
+            int found = Arrays.binarySearch(removedIndices, position);
+            int removedBefore = found >= 0 ? found : -(found + 1);
+            return position - removedBefore;
         }
+    }
 
-        void setPrev(Node prev) {
-            this.prev = prev;
+    private static final class CursorImpl implements Cursor {
+        private Table table;
+        private int position;
+        private Object key;
+        private Object value;
+
+        CursorImpl(Table table, int position) {
+            this.table = table;
+            this.position = position;
         }
 
-        Node getNext() {
-            return next;
+        @Override
+        public boolean advance() {
+            Table t = table;
+            if (t == null) {
+                return false;
+            }
+            if (t.successor != null) {
+                t = updateTable();
+            }
+            Object[] values = t.values;
+            for (int i = position; i < t.used; i++) {
+                Object v = values[i];
+                if (v != null) {
+                    key = t.getKey(i);
+                    value = v;
+                    position = i + 1;
+                    return true;
+                }
+            }
+            // exhausted, stay done even if entries are added later
+            table = null;
+            key = null;
+            value = null;
+            return false;
         }
 
-        void setNext(Node next) {
-            this.next = next;
+        @TruffleBoundary
+        private Table updateTable() {
+            Table t = table;
+            int p = position;
+            while (t.successor != null) {
+                p = t.translate(p);
+                t = t.successor;
+            }
+            table = t;
+            position = p;
+            return t;
         }
 
-        void setEmpty() {
-            this.key = null;
-            this.value = null;
+        @Override
+        public Object getKey() {
+            assert key != null;
+            return key;
         }
 
-        boolean isEmpty() {
-            return this.key == null;
+        @Override
+        public Object getValue() {
+            assert value != null;
+            return value;
         }
 
         @Override
         public String toString() {
-            return "Node [key=" + key + ", value=" + value + "]";
+            return "Cursor [key=" + key + ", value=" + value + "]";
+        }
+
+        @Override
+        public Cursor copy() {
+            CursorImpl copy = new CursorImpl(table, position);
+            copy.key = key;
+            copy.value = value;
+            return copy;
         }
     }
 }
@@ -283,6 +283,21 @@ if (!SharedMemMessagingInit) {
 const getMessagePortDataNative = MessagePort.prototype.messageData;
 delete MessagePort.prototype.messageData;
 
+// Returns the transfer list of postMessage(value, transferList) or
+// postMessage(value, { transfer }). Other iterables are not inspected,
+// so that they are not consumed before the native side reads them.
+function arrayTransferList(options) {
+  if (Array.isArray(options)) {
+    return options;
+  }
+  if (options !== null && typeof options === 'object' &&
+      options[Symbol.iterator] === undefined) {
+    const transfer = options.transfer;
+    return Array.isArray(transfer) ? transfer : undefined;
+  }
+  return undefined;
+}
+
 const originalPostMessage = MessagePort.prototype.postMessage;
 MessagePort.prototype.postMessage = function(...args) {
   const messagePortData = getMessagePortDataNative.call(this);
@@ -291,11 +306,13 @@ MessagePort.prototype.postMessage = function(...args) {
     // closed, so we don't care about encoding Java messages.
     originalPostMessage.apply(this, args);
   } else {
+    let enqueued = false;
     try {
-      // Signal that we are ready to transfer Java objets.
-      this.sharedMemMessaging.enter(messagePortData);
+      // Signal that we are ready to transfer Java objets. ArrayBuffers in
+      // the transfer list that node cannot take over are moved on the Java side.
+      this.sharedMemMessaging.enter(messagePortData, arrayTransferList(args[1]));
       // Post message: might encode Java objects as a side effect.
-      const enqueued = originalPostMessage.apply(this, args);
+      enqueued = originalPostMessage.apply(this, args);
       const encodedJavaRefs = this.sharedMemMessaging.encodedJavaRefs();
 
       if (encodedJavaRefs === true && enqueued !== true) {
@@ -305,7 +322,8 @@ MessagePort.prototype.postMessage = function(...args) {
         this.sharedMemMessaging.free();
       }
     } finally {
-      this.sharedMemMessaging.leave();
+      // Detach the transferred ArrayBuffers if the message was delivered.
+      this.sharedMemMessaging.leave(enqueued === true);
     }
   }
 }
@@ -3509,8 +3509,8 @@ public final class GraalJSAccess {
      */
     private JavaMessagePortData currentMessagePortData = null;
 
-    public void unsetCurrentMessagePortData() {
-        currentMessagePortData.encodingEnd();
+    public void unsetCurrentMessagePortData(boolean delivered) {
+        currentMessagePortData.encodingEnd(delivered);
         currentMessagePortData = null;
     }
 
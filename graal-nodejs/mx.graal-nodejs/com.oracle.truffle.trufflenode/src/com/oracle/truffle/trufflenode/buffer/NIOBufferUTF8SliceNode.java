@@ -47,6 +47,7 @@ import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -141,6 +142,13 @@ public abstract class NIOBufferUTF8SliceNode extends NIOBufferAccessNode {
 
     @TruffleBoundary
     private static Object doDecode(ByteBuffer data) throws CharacterCodingException {
+        if (isAscii(data)) {
+            // ASCII is a subset of both UTF-8 and Latin-1; decoding as Latin-1 copies the bytes
+            // straight into a compact string instead of going through a char buffer.
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
         CharsetDecoder decoder = utf8.newDecoder();
         decoder.onMalformedInput(CodingErrorAction.REPORT);
         decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
@@ -148,6 +156,15 @@ public abstract class NIOBufferUTF8SliceNode extends NIOBufferAccessNode {
         return decoded.toString();
     }
 
+    private static boolean isAscii(ByteBuffer data) {
+        for (int i = data.position(); i < data.limit(); i++) {
+            if (data.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean oobCheck(int start, int end) {
         return start <= end && start >= 0;
     }
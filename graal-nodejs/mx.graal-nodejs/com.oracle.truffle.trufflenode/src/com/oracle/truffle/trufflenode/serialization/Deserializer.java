@@ -179,6 +179,8 @@ public class Deserializer {
                 return readHostObject();
             case SHARED_JAVA_OBJECT:
                 return readSharedJavaObject(context);
+            case MOVED_JAVA_ARRAY_BUFFER:
+                return readMovedJavaArrayBuffer(context);
             default:
                 throw Errors.createError("Deserialization of a value tagged " + tag);
         }
@@ -318,10 +320,11 @@ public class Deserializer {
     private DynamicObject readJSArrayBuffer(JSContext context) {
         int byteLength = readVarInt();
         DynamicObject arrayBuffer = JSArrayBuffer.createDirectArrayBuffer(context, byteLength);
-        ByteBuffer byteBuffer = JSArrayBuffer.getDirectByteBuffer(arrayBuffer);
-        for (int i = 0; i < byteLength; i++) {
-            byteBuffer.put(i, buffer.get());
-        }
+        ByteBuffer byteBuffer = JSArrayBuffer.getDirectByteBuffer(arrayBuffer).duplicate();
+        ByteBuffer contents = buffer.duplicate();
+        asBaseBuffer(contents).limit(contents.position() + byteLength);
+        byteBuffer.put(contents);
+        asBaseBuffer(buffer).position(buffer.position() + byteLength);
         assignId(arrayBuffer);
         return (peekTag() == SerializationTag.ARRAY_BUFFER_VIEW) ? readJSArrayBufferView(context, arrayBuffer) : arrayBuffer;
     }
@@ -486,13 +489,25 @@ public class Deserializer {
     }
 
     public Object readSharedJavaObject(JSContext context) {
+        Object element = readJavaRef();
+        return context.getRealm().getEnv().asGuestValue(element);
+    }
+
+    public DynamicObject readMovedJavaArrayBuffer(JSContext context) {
+        ByteBuffer byteBuffer = (ByteBuffer) readJavaRef();
+        DynamicObject arrayBuffer = JSArrayBuffer.createDirectArrayBuffer(context, byteBuffer);
+        assignId(arrayBuffer);
+        return (peekTag() == SerializationTag.ARRAY_BUFFER_VIEW) ? readJSArrayBufferView(context, arrayBuffer) : arrayBuffer;
+    }
+
+    private Object readJavaRef() {
         long messagePortPointer = readVarLong();
         if (messagePortCache == null || messagePortCache.getMessagePortDataPointer() != messagePortPointer) {
             messagePortCache = SharedMemMessagingManager.getMessagePortDataFor(messagePortPointer);
         }
         Object element = messagePortCache.removeJavaRef();
         assert element != null;
-        return context.getRealm().getEnv().asGuestValue(element);
+        return element;
     }
 
     public int readBytes(int length) {
@@ -80,7 +80,8 @@ public enum SerializationTag {
     THE_HOLE('-'), // kTheHole
     OBJECT_REFERENCE('^'), // kObjectReference
     HOST_OBJECT('\\'), // kHostObject
-    SHARED_JAVA_OBJECT('J'); // Custom, for shared interop Java objects
+    SHARED_JAVA_OBJECT('J'), // Custom, for shared interop Java objects
+    MOVED_JAVA_ARRAY_BUFFER('j'); // Custom, for ArrayBuffers transferred without copying
 
     private final byte tag;
 
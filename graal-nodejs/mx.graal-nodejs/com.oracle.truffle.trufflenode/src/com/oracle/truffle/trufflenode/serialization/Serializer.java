@@ -40,13 +40,20 @@
  */
 package com.oracle.truffle.trufflenode.serialization;
 
+import static com.oracle.truffle.js.runtime.util.BufferUtil.asBaseBuffer;
+
 import com.oracle.truffle.api.TruffleLanguage.Env;
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.js.runtime.BigInt;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractDoubleArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractIntArray;
 import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
 import com.oracle.truffle.js.runtime.builtins.JSArray;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
@@ -63,7 +70,10 @@ import com.oracle.truffle.js.runtime.builtins.JSRegExp;
 import com.oracle.truffle.js.runtime.builtins.JSSet;
 import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
 import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSProperty;
+import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.JSHashMap;
@@ -97,6 +107,8 @@ public class Serializer {
     private final Map<Object, Integer> objectMap = new IdentityHashMap<>();
     /** Maps a transferred object to its transfer ID. */
     private final Map<Object, Integer> transferMap = new IdentityHashMap<>();
+    /** Enumerable own property names of plain objects, by shape. */
+    private final Map<Shape, List<String>> shapeNamesCache = new IdentityHashMap<>();
     /** Determines whether {@code ArrayBuffer}s should be serialized as host objects. */
     private boolean treatArrayBufferViewsAsHostObjects;
 
@@ -309,8 +321,8 @@ public class Serializer {
     }
 
     private static boolean isOneByteString(String string) {
-        for (char c : string.toCharArray()) {
-            if (c >= 256) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 256) {
                 return false;
             }
         }
@@ -353,18 +365,25 @@ public class Serializer {
     private void writeJSArrayBuffer(DynamicObject arrayBuffer) {
         assert JSArrayBuffer.isJSDirectArrayBuffer(arrayBuffer);
         Integer id = transferMap.get(arrayBuffer);
-        if (id == null) {
+        JavaMessagePortData messagePort = access.getCurrentMessagePortData();
+        if (id != null) {
+            writeTag(SerializationTag.ARRAY_BUFFER_TRANSFER);
+            writeVarInt(Integer.toUnsignedLong(id));
+        } else if (messagePort != null && messagePort.isTransferredArrayBuffer(arrayBuffer)) {
+            // Transferred, but not taken over by the native side, which happens when node
+            // does not use its own allocator: hand the backing buffer itself over to the
+            // receiving worker. Externalized buffers are never registered and are copied.
+            writeTag(SerializationTag.MOVED_JAVA_ARRAY_BUFFER);
+            writeVarInt(messagePort.getMessagePortDataPointer());
+            messagePort.moveArrayBuffer(arrayBuffer);
+        } else {
             int byteLength = JSArrayBuffer.getDirectByteLength(arrayBuffer);
             ByteBuffer byteBuffer = JSArrayBuffer.getDirectByteBuffer(arrayBuffer);
             writeTag(SerializationTag.ARRAY_BUFFER);
             writeVarInt(byteLength);
-            ensureFreeSpace(byteLength);
-            for (int i = 0; i < byteLength; i++) {
-                buffer.put(byteBuffer.get(i));
-            }
-        } else {
-            writeTag(SerializationTag.ARRAY_BUFFER_TRANSFER);
-            writeVarInt(Integer.toUnsignedLong(id));
+            ByteBuffer contents = byteBuffer.duplicate();
+            asBaseBuffer(contents).position(0).limit(byteLength);
+            writeBytes(contents);
         }
     }
 
@@ -377,12 +396,29 @@ public class Serializer {
     private void writeJSObject(DynamicObject object) {
         assert JSObject.isJSObject(object);
         writeTag(SerializationTag.BEGIN_JS_OBJECT);
-        List<String> names = JSObject.enumerableOwnNames(object);
+        List<String> names = enumerableOwnNames(object);
         writeJSObjectProperties(object, names);
         writeTag(SerializationTag.END_JS_OBJECT);
         writeVarInt(names.size());
     }
 
+    /**
+     * The enumerable own property names of a plain object depend on its shape only, so they are
+     * computed once for all objects of the same shape.
+     */
+    private List<String> enumerableOwnNames(DynamicObject object) {
+        if (JSUserObject.isJSUserObject(object)) {
+            Shape shape = object.getShape();
+            List<String> names = shapeNamesCache.get(shape);
+            if (names == null) {
+                names = JSObject.enumerableOwnNames(object);
+                shapeNamesCache.put(shape, names);
+            }
+            return names;
+        }
+        return JSObject.enumerableOwnNames(object);
+    }
+
     private void writeJSObjectProperties(DynamicObject object, List<String> keys) {
         assert JSObject.isJSObject(object);
         for (String key : keys) {
@@ -428,6 +464,10 @@ public class Serializer {
     private void writeJSArray(DynamicObject object) {
         assert JSArray.isJSArray(object);
         long length = JSAbstractArray.arrayGetLength(object);
+        if (isPackedArrayWithoutNamedProperties(object, length)) {
+            writePackedJSArray(object, (int) length);
+            return;
+        }
         List<String> names = JSObject.enumerableOwnNames(object);
         boolean dense = names.size() >= length;
         if (dense) {
@@ -457,6 +497,51 @@ public class Serializer {
         writeVarInt(length);
     }
 
+    /**
+     * Checks whether all elements of the array are present in its storage and it has no other
+     * enumerable properties, i.e., it can be written without enumerating its property names.
+     */
+    private static boolean isPackedArrayWithoutNamedProperties(DynamicObject array, long length) {
+        if (length == 0 || length > Integer.MAX_VALUE) {
+            return false;
+        }
+        ScriptArray arrayType = JSObject.getArray(array);
+        if (arrayType.isHolesType() || arrayType.firstElementIndex(array) != 0 || arrayType.lastElementIndex(array) != length - 1) {
+            return false;
+        }
+        for (Property property : JSShape.getProperties(array.getShape())) {
+            if (JSProperty.isEnumerable(property) && property.getKey() instanceof String) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writePackedJSArray(DynamicObject array, int length) {
+        ScriptArray arrayType = JSObject.getArray(array);
+        writeTag(SerializationTag.BEGIN_DENSE_JS_ARRAY);
+        writeVarInt(length);
+        if (arrayType instanceof AbstractIntArray) {
+            AbstractIntArray intArray = (AbstractIntArray) arrayType;
+            for (int i = 0; i < length; i++) {
+                writeInt(intArray.getInBoundsFastInt(array, i, false));
+            }
+        } else if (arrayType instanceof AbstractDoubleArray) {
+            AbstractDoubleArray doubleArray = (AbstractDoubleArray) arrayType;
+            for (int i = 0; i < length; i++) {
+                writeIntOrDouble(doubleArray.getInBoundsFastDouble(array, i, false));
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                // the array type may change when serializing an element (e.g. by a getter)
+                writeValue(JSObject.get(array, i));
+            }
+        }
+        writeTag(SerializationTag.END_DENSE_JS_ARRAY);
+        writeVarInt(0);
+        writeVarInt(length);
+    }
+
     private void writeJSArrayBufferView(DynamicObject view) {
         if (treatArrayBufferViewsAsHostObjects) {
             writeHostObject(view);
@@ -528,6 +613,10 @@ public class Serializer {
     }
 
     public void release(ByteBuffer targetBuffer) {
+        JavaMessagePortData messagePort = access.getCurrentMessagePortData();
+        if (messagePort != null) {
+            messagePort.publishEncodedRefs();
+        }
         buffer.flip();
         targetBuffer.put(buffer);
     }
@@ -40,22 +40,43 @@
  */
 package com.oracle.truffle.trufflenode.threading;
 
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
 import com.oracle.truffle.trufflenode.JSExternalObject;
 
+/**
+ * Java side of a node::MessagePortData. Java references encoded in a message are collected while
+ * the message is serialized and published as one batch per message on a lock-free
+ * multi-producer/single-consumer queue, from which the receiving worker takes them in order while
+ * deserializing.
+ */
 public class JavaMessagePortData {
 
     private final long nativePointer;
-    private final Deque<Object> queue;
-    private int encodedRefs;
+    private final MessageQueue queue;
+
+    /** Java references of the message being encoded. */
+    private List<Object> encodedRefs;
+    /** Batch of the last encoded message, until the message is known to be delivered. */
+    private Batch lastPublished;
+    /** Non-external ArrayBuffers in the transfer list of the message being encoded. */
+    private final Set<DynamicObject> transferredArrayBuffers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Batch the receiving side is currently reading from. */
+    private Batch consuming;
+    private int consumingIndex;
 
     public JavaMessagePortData(DynamicObject external) {
         assert JSExternalObject.isJSExternalObject(external);
-        this.encodedRefs = 0;
-        this.queue = new ConcurrentLinkedDeque<>();
+        this.encodedRefs = new ArrayList<>();
+        this.queue = new MessageQueue();
         this.nativePointer = JSExternalObject.getPointer(external);
     }
 
@@ -64,31 +85,142 @@ public class JavaMessagePortData {
     }
 
     public void encodingBegin() {
-        encodedRefs = 0;
+        encodedRefs = new ArrayList<>();
+        lastPublished = null;
+        transferredArrayBuffers.clear();
     }
 
-    public void encodingEnd() {
-        encodedRefs = 0;
+    /**
+     * Ends the encoding of a message. If the message was delivered, the registered ArrayBuffers of
+     * its transfer list are detached, including those that the message does not reference.
+     * Externalized ArrayBuffers are not registered, they are copied and stay usable.
+     */
+    public void encodingEnd(boolean delivered) {
+        if (delivered) {
+            for (DynamicObject arrayBuffer : transferredArrayBuffers) {
+                JSArrayBuffer.detachArrayBuffer(arrayBuffer);
+            }
+        }
+        encodedRefs = new ArrayList<>();
+        lastPublished = null;
+        transferredArrayBuffers.clear();
     }
 
     public boolean encodedJavaRefs() {
-        return encodedRefs > 0;
+        return !encodedRefs.isEmpty() || lastPublished != null;
     }
 
     public void enqueueJavaRef(Object hostObject) {
-        queue.add(hostObject);
-        encodedRefs++;
+        encodedRefs.add(hostObject);
+    }
+
+    /**
+     * Registers a non-external ArrayBuffer from the transfer list of the message being encoded.
+     */
+    public void addTransferredArrayBuffer(DynamicObject arrayBuffer) {
+        transferredArrayBuffers.add(arrayBuffer);
+    }
+
+    public boolean isTransferredArrayBuffer(DynamicObject arrayBuffer) {
+        return !transferredArrayBuffers.isEmpty() && transferredArrayBuffers.contains(arrayBuffer);
     }
 
+    /**
+     * Moves the backing buffer of a transferred ArrayBuffer into the message being encoded. The
+     * ArrayBuffer is detached once the message has been delivered.
+     */
+    public void moveArrayBuffer(DynamicObject arrayBuffer) {
+        assert isTransferredArrayBuffer(arrayBuffer);
+        enqueueJavaRef(JSArrayBuffer.getDirectByteBuffer(arrayBuffer));
+    }
+
+    /**
+     * Makes the Java references of the encoded message available to the receiving side. Called
+     * when the serialization of the message is complete, before the message is enqueued.
+     */
+    public void publishEncodedRefs() {
+        if (!encodedRefs.isEmpty()) {
+            Batch batch = new Batch(encodedRefs.toArray());
+            encodedRefs = new ArrayList<>();
+            queue.offer(batch);
+            lastPublished = batch;
+        }
+    }
+
+    /**
+     * Discards the Java references of the last encoded message, which was not delivered.
+     */
     public void disposeLastMessageRefs() {
-        for (int i = 0; i < encodedRefs; i++) {
-            queue.removeLast();
+        if (lastPublished != null) {
+            lastPublished.cancelled = true;
+            lastPublished = null;
         }
-        encodedRefs = 0;
+        encodedRefs = new ArrayList<>();
     }
 
     public Object removeJavaRef() {
-        return queue.removeFirst();
+        while (consuming == null || consumingIndex == consuming.refs.length) {
+            consuming = queue.poll();
+            consumingIndex = 0;
+            if (consuming == null) {
+                return null;
+            } else if (consuming.cancelled) {
+                consuming = null;
+            }
+        }
+        Object ref = consuming.refs[consumingIndex];
+        consuming.refs[consumingIndex++] = null;
+        return ref;
+    }
+
+    private static final class Batch {
+        final Object[] refs;
+        volatile boolean cancelled;
+
+        Batch(Object[] refs) {
+            this.refs = refs;
+        }
+    }
+
+    /**
+     * Unbounded lock-free multi-producer/single-consumer queue. Producers append to the tail with a
+     * single atomic exchange; the consumer follows the links from its private head.
+     */
+    private static final class MessageQueue {
+        private final AtomicReference<Node> tail;
+        private Node head;
+
+        MessageQueue() {
+            Node stub = new Node(null);
+            this.head = stub;
+            this.tail = new AtomicReference<>(stub);
+        }
+
+        void offer(Batch batch) {
+            Node node = new Node(batch);
+            Node previous = tail.getAndSet(node);
+            previous.next = node;
+        }
+
+        Batch poll() {
+            Node next = head.next;
+            if (next == null) {
+                return null;
+            }
+            Batch batch = next.batch;
+            next.batch = null;
+            head = next;
+            return batch;
+        }
+
+        private static final class Node {
+            Batch batch;
+            volatile Node next;
+
+            Node(Batch batch) {
+                this.batch = batch;
+            }
+        }
     }
 
 }
@@ -40,6 +40,7 @@
  */
 package com.oracle.truffle.trufflenode.threading;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.builtins.JSBuiltinsContainer;
@@ -47,6 +48,10 @@ import com.oracle.truffle.js.nodes.function.JSBuiltin;
 import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.trufflenode.GraalJSAccess;
 import com.oracle.truffle.trufflenode.JSExternalObject;
 import com.oracle.truffle.trufflenode.threading.SharedMemMessagingBuiltinsFactory.DisposeNodeGen;
@@ -61,8 +66,8 @@ public class SharedMemMessagingBuiltins extends JSBuiltinsContainer.SwitchEnum<S
     }
 
     public enum API implements BuiltinEnum<API> {
-        enter(1),
-        leave(0),
+        enter(2),
+        leave(1),
         free(0),
         encodedJavaRefs(0),
         dispose(1);
@@ -83,9 +88,9 @@ public class SharedMemMessagingBuiltins extends JSBuiltinsContainer.SwitchEnum<S
     protected Object createNode(JSContext context, JSBuiltin builtin, boolean construct, boolean newTarget, API builtinEnum) {
         switch (builtinEnum) {
             case enter:
-                return EnterNodeGen.create(context, builtin, args().withThis().fixedArgs(1).createArgumentNodes(context));
+                return EnterNodeGen.create(context, builtin, args().withThis().fixedArgs(2).createArgumentNodes(context));
             case leave:
-                return LeaveNodeGen.create(context, builtin, args().withThis().fixedArgs(0).createArgumentNodes(context));
+                return LeaveNodeGen.create(context, builtin, args().withThis().fixedArgs(1).createArgumentNodes(context));
             case free:
                 return FreeNodeGen.create(context, builtin, args().withThis().fixedArgs(0).createArgumentNodes(context));
             case encodedJavaRefs:
@@ -98,6 +103,8 @@ public class SharedMemMessagingBuiltins extends JSBuiltinsContainer.SwitchEnum<S
 
     /**
      * Signals that we are starting to encode an object tree onto a native MessagePortData queue.
+     * Non-external ArrayBuffers in the transfer list that node does not take over are moved to the
+     * receiving worker without copying.
      */
     public abstract static class EnterNode extends JSBuiltinNode {
 
@@ -106,12 +113,29 @@ public class SharedMemMessagingBuiltins extends JSBuiltinsContainer.SwitchEnum<S
         }
 
         @Specialization
-        public Object enter(DynamicObject self, DynamicObject nativeMessagePortData) {
+        public Object enter(DynamicObject self, DynamicObject nativeMessagePortData, Object transferList) {
             assert JSExternalObject.isJSExternalObject(nativeMessagePortData);
             GraalJSAccess access = (GraalJSAccess) SharedMemMessagingBindings.getApiField(self);
             access.setCurrentMessagePortData(nativeMessagePortData);
+            if (JSArray.isJSArray(transferList)) {
+                addTransferredArrayBuffers(access, (DynamicObject) transferList);
+            }
             return self;
         }
+
+        @TruffleBoundary
+        private static void addTransferredArrayBuffers(GraalJSAccess access, DynamicObject transferList) {
+            JavaMessagePortData messagePortData = access.getCurrentMessagePortData();
+            long length = JSAbstractArray.arrayGetLength(transferList);
+            for (long i = 0; i < length; i++) {
+                Object element = JSObject.get(transferList, i);
+                // The memory of externalized ArrayBuffers may be owned by native code. Like node,
+                // we copy them instead of moving and detaching them.
+                if (JSArrayBuffer.isJSDirectArrayBuffer(element) && !access.arrayBufferIsExternal(element)) {
+                    messagePortData.addTransferredArrayBuffer((DynamicObject) element);
+                }
+            }
+        }
     }
 
     /**
@@ -149,7 +173,8 @@ public class SharedMemMessagingBuiltins extends JSBuiltinsContainer.SwitchEnum<S
     }
 
     /**
-     * Signals that we should stop encoding Java references while encoding.
+     * Signals that we should stop encoding Java references while encoding. If the message was
+     * delivered, the ArrayBuffers in its transfer list are detached.
      */
     public abstract static class LeaveNode extends JSBuiltinNode {
 
@@ -158,9 +183,9 @@ public class SharedMemMessagingBuiltins extends JSBuiltinsContainer.SwitchEnum<S
         }
 
         @Specialization
-        public Object leave(DynamicObject self) {
+        public Object leave(DynamicObject self, boolean delivered) {
             GraalJSAccess access = (GraalJSAccess) SharedMemMessagingBindings.getApiField(self);
-            access.unsetCurrentMessagePortData();
+            access.unsetCurrentMessagePortData(delivered);
             return self;
         }
     }
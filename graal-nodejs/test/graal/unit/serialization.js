@@ -112,6 +112,8 @@ var data = [
     [sparseArray, 'ff0d61e807495449a6034001e807'],
     [sparseArrayWithProperty, 'ff0d61e807495449a6032203666f6f22036261724002e807'],
     [denseArrayWithProperty, 'ff0d4102495449a6032203666f6f2203626172240102'],
+    [[0.5, 2], 'ff0d41024e000000000000e03f4904240002'],
+    [[{ a: 1 }, { a: 2 }], 'ff0d41026f22016149027b016f22016149047b01240002'],
     [sparseArrayWithHighIndex, 'ff0d61ffffffff0f4e0000c0ffffffef4149004001ffffffff0f'],
     [0n, 'ff0d5a00'],
     [1n, 'ff0d5a100100000000000000'],
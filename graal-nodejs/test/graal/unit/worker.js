@@ -47,6 +47,82 @@ const {
 } = require('worker_threads');
 
 describe('Worker', function () {
+    // ArrayBuffers allocated by JavaScript are taken over by the native side,
+    // the Java side only moves the ones that node cannot take over.
+    it('should transfer ArrayBuffers allocated by JavaScript', function (done) {
+        if (isMainThread) {
+            let w = new Worker(`
+                            const {
+                                parentPort
+                            } = require('worker_threads');
+
+                            parentPort.on('message', (m) => {
+                                parentPort.postMessage(m.length + ':' + m[0] + ':' + m[m.length - 1]);
+                            });
+            `, {
+                eval: true
+            });
+            const array = new Uint8Array(new ArrayBuffer(1 << 20));
+            array[0] = 42;
+            array[array.length - 1] = 211;
+            w.on('message', (m) => {
+                assert.strictEqual(m, (1 << 20) + ':42:211');
+                w.terminate().then(() => done());
+            });
+            w.postMessage(array, [array.buffer]);
+            assert.strictEqual(array.buffer.byteLength, 0);
+        }
+    }).timeout(5000);
+
+    it('should accept the transfer list as an option', function (done) {
+        if (isMainThread) {
+            let w = new Worker(`
+                            const {
+                                parentPort
+                            } = require('worker_threads');
+
+                            parentPort.on('message', (m) => {
+                                parentPort.postMessage(m.length + ':' + m[0]);
+                            });
+            `, {
+                eval: true
+            });
+            const array = new Uint8Array(new ArrayBuffer(64));
+            array[0] = 42;
+            w.on('message', (m) => {
+                assert.strictEqual(m, '64:42');
+                w.terminate().then(() => done());
+            });
+            w.postMessage(array, {transfer: [array.buffer]});
+            assert.strictEqual(array.buffer.byteLength, 0);
+        }
+    }).timeout(5000);
+
+    it('should detach transferred ArrayBuffers that the message does not reference', function (done) {
+        if (isMainThread) {
+            let w = new Worker(`
+                            const {
+                                parentPort
+                            } = require('worker_threads');
+
+                            parentPort.on('message', (m) => {
+                                parentPort.postMessage(m);
+                            });
+            `, {
+                eval: true
+            });
+            const buffer = new ArrayBuffer(16);
+            const array = new Uint8Array(buffer);
+            w.on('message', (m) => {
+                assert.strictEqual(m, 'ping');
+                w.terminate().then(() => done());
+            });
+            w.postMessage('ping', [buffer]);
+            assert.strictEqual(buffer.byteLength, 0);
+            assert.strictEqual(array.length, 0);
+        }
+    }).timeout(5000);
+
     if (typeof java !== 'undefined') {
         it('terminate should terminate Thread.sleep()', function (done) {
             var worker = new Worker('java.lang.Thread.sleep(1000000)', {eval: true});